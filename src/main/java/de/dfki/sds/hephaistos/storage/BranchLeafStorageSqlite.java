@@ -12,9 +12,14 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.function.Function;
 import org.apache.commons.io.IOUtils;
 
 /**
@@ -41,11 +46,21 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
 
     private String tablename;
     private Connection connection;
+    //the queries use read connections if there are some
+    private ReadConnectionPool readConnectionPool;
+    //optional: all ancestors of a node are materialized in a closure table,
+    //so that tree, parents and subtree deletes do not need recursive queries
+    private boolean closureTable;
 
     public BranchLeafStorageSqlite(InternalStorageMetaData metaData, Connection connection) {
+        this(metaData, connection, new ReadConnectionPool(connection));
+    }
+    
+    public BranchLeafStorageSqlite(InternalStorageMetaData metaData, Connection connection, ReadConnectionPool readConnectionPool) {
         super(metaData);
         this.tablename = metaData.getId();
         this.connection = connection;
+        this.readConnectionPool = readConnectionPool;
         init();
     }
 
@@ -94,6 +109,16 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
         
     }
 
+    //called in a migration after the rows were copied into the new schema, to fill the added columns
+    protected void migrated(Connection c, Set<String> addedColumns) throws SQLException {
+        
+    }
+
+    //called after the tree was changed (insert, remove, clear), e.g. to drop cached copies
+    protected void treeChanged() {
+        
+    }
+
     /**
      * This class is used to read and write the tree meta data.
      */
@@ -246,10 +271,142 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
         SQLiteUtility.run(connection, c -> {
             String createTableQuery = getCreateTableQuery();
             c.prepareStatement(createTableQuery).execute();
+            
+            //a table of an older schema is migrated before the index is created
+            List<String> columns = getColumns(c);
+            if (!columns.equals(getColumnNames())) {
+                migrate(c, columns);
+            }
+            
+            PreparedStatement index = c.prepareStatement(getQuery("/de/dfki/sds/hephaistos/storage/CreateIndexParent.sql"));
+            index.execute();
+            index.close();
+            
+            //once created the closure table is maintained
+            closureTable = hasClosureTable(c);
 
             insertRoot(c);
         });
     }
+    
+    private List<String> getColumns(Connection c) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        PreparedStatement ps = c.prepareStatement("PRAGMA table_info(\"" + tablename + "\")");
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+            columns.add(rs.getString("name"));
+        }
+        ps.close();
+        return columns;
+    }
+    
+    private List<String> getColumnNames() {
+        List<String> names = new ArrayList<>();
+        for (TypedName tn : getAllTypeNames()) {
+            names.add(tn.getName());
+        }
+        return names;
+    }
+    
+    //Row reads by column index, so new columns can not be appended with ALTER TABLE:
+    //the table is copied into a table with the current schema (ids are kept)
+    private void migrate(Connection c, List<String> oldColumns) throws SQLException {
+        String oldTablename = tablename + "_migrate";
+        
+        List<String> keptColumns = new ArrayList<>();
+        Set<String> addedColumns = new HashSet<>();
+        for (String column : getColumnNames()) {
+            if (oldColumns.contains(column)) {
+                keptColumns.add("\"" + column + "\"");
+            } else {
+                addedColumns.add(column);
+            }
+        }
+        String kept = String.join(", ", keptColumns);
+        
+        boolean autoCommit = c.getAutoCommit();
+        c.setAutoCommit(false);
+        
+        Statement stmt = c.createStatement();
+        stmt.execute("ALTER TABLE \"" + tablename + "\" RENAME TO \"" + oldTablename + "\"");
+        stmt.execute(getCreateTableQuery());
+        stmt.execute("INSERT INTO \"" + tablename + "\" (" + kept + ") SELECT " + kept + " FROM \"" + oldTablename + "\"");
+        
+        migrated(c, addedColumns);
+        
+        stmt.execute("DROP TABLE \"" + oldTablename + "\"");
+        stmt.close();
+        
+        c.commit();
+        c.setAutoCommit(autoCommit);
+        
+        System.out.println(tablename + " migrated, added columns " + addedColumns);
+    }
+    
+    private boolean hasClosureTable(Connection c) throws SQLException {
+        PreparedStatement ps = c.prepareStatement("SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?");
+        ps.setString(1, tablename + "_Closure");
+        boolean exists = ps.executeQuery().next();
+        ps.close();
+        return exists;
+    }
+    
+    public boolean isClosureTable() {
+        return closureTable;
+    }
+    
+    /**
+     * Enables (creates and fills) or disables (drops) the closure table.
+     * The closure table has a row for every ancestor of a node, so it needs
+     * about nodes times average depth rows.
+     * @param closureTable 
+     */
+    public void setClosureTable(boolean closureTable) {
+        if(this.closureTable == closureTable) {
+            return;
+        }
+        if(closureTable) {
+            SQLiteUtility.execute(connection, getQuery("/de/dfki/sds/hephaistos/storage/CreateTableClosure.sql"));
+            SQLiteUtility.execute(connection, getQuery("/de/dfki/sds/hephaistos/storage/CreateIndexClosure.sql"));
+            this.closureTable = true;
+            rebuildClosureTable();
+        } else {
+            this.closureTable = false;
+            SQLiteUtility.execute(connection, getQuery("/de/dfki/sds/hephaistos/storage/DropClosure.sql"));
+            SQLiteUtility.run(connection, c -> commitForReaders(c));
+        }
+    }
+    
+    /**
+     * Fills the closure table based on the parent relation of the tree.
+     */
+    public void rebuildClosureTable() {
+        if(!closureTable) {
+            throw new RuntimeException("closure table is not enabled");
+        }
+        SQLiteUtility.run(connection, c -> {
+            PreparedStatement ps = c.prepareStatement(getQuery("/de/dfki/sds/hephaistos/storage/RebuildClosure.sql"));
+            ps.execute();
+            ps.close();
+            commitForReaders(c);
+        });
+    }
+    
+    //the parent's closure has to be inserted before
+    private void addClosureBatch(PreparedStatement ps, int id, int parent) throws SQLException {
+        ps.setInt(1, id);
+        ps.setInt(2, parent);
+        ps.setInt(3, id);
+        ps.setInt(4, id);
+        ps.addBatch();
+    }
+    
+    private void deleteClosure(Connection c, int id) throws SQLException {
+        PreparedStatement ps = c.prepareStatement(getQuery("/de/dfki/sds/hephaistos/storage/DeleteClosure.sql"));
+        ps.setInt(1, id);
+        ps.execute();
+        ps.close();
+    }
 
     private List<TypedName> getAllTypeNames() {
         List<TypedName> allTypedNames = new ArrayList<>();
@@ -341,9 +498,16 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
         ps.setInt(3, 0); //sort
         ps.setInt(4, BRANCH_TYPE); //type
         ps.execute();
+        
+        if (closureTable) {
+            PreparedStatement closure = c.prepareStatement(getQuery("/de/dfki/sds/hephaistos/storage/InsertClosure.sql"));
+            addClosureBatch(closure, ROOT_ID, 0);
+            closure.executeBatch();
+            closure.close();
+        }
     }
 
-    private String getQuery(String path) {
+    protected String getQuery(String path) {
         try {
             String query = IOUtils.toString(BranchLeafStorageSqlite.class.getResourceAsStream(path), StandardCharsets.UTF_8);
             query = query.replaceAll("\\$\\{tablename\\}", tablename);
@@ -353,11 +517,11 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
         }
     }
 
-    private PreparedStatement getChildrenPreparedStatement(Branch node, int type) {
-        return SQLiteUtility.prepare(connection, getQuery("/de/dfki/sds/hephaistos/storage/Children.sql"), ps -> {
+    private <T> ResultSetIterator<T> getChildrenIterator(Branch node, int type, Function<ResultSet, T> rs2t) {
+        return readConnectionPool.iterate(getQuery("/de/dfki/sds/hephaistos/storage/Children.sql"), ps -> {
             ps.setInt(1, getBranchMetaDataInner(node).getId());
             ps.setInt(2, type);
-        });
+        }, rs2t);
     }
 
     /**
@@ -400,24 +564,19 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
         return md;
     }
 
-    private PreparedStatement getParentsPreparedStatement(StorageItem node) {
-        MetaData md = getMetaData(node);
-        return SQLiteUtility.prepare(connection, getQuery("/de/dfki/sds/hephaistos/storage/Parents.sql"), ps -> {
-            ps.setInt(1, md.getId());
-        });
-    }
-
-    private PreparedStatement getParentPreparedStatement(StorageItem node) {
+    private <T> ResultSetIterator<T> getParentsIterator(StorageItem node, Function<ResultSet, T> rs2t) {
         MetaData md = getMetaData(node);
-        return SQLiteUtility.prepare(connection, getQuery("/de/dfki/sds/hephaistos/storage/Parent.sql"), ps -> {
+        String query = getQuery("/de/dfki/sds/hephaistos/storage/" + (closureTable ? "ParentsClosure.sql" : "Parents.sql"));
+        return readConnectionPool.iterate(query, ps -> {
             ps.setInt(1, md.getId());
-        });
+        }, rs2t);
     }
 
-    private PreparedStatement getTreePreparedStatement(Branch node) {
-        return SQLiteUtility.prepare(connection, getQuery("/de/dfki/sds/hephaistos/storage/SelectTree.sql"), ps -> {
+    private <T> ResultSetIterator<T> getTreeIterator(Branch node, Function<ResultSet, T> rs2t) {
+        String query = getQuery("/de/dfki/sds/hephaistos/storage/" + (closureTable ? "SelectTreeClosure.sql" : "SelectTree.sql"));
+        return readConnectionPool.iterate(query, ps -> {
             ps.setInt(1, getBranchMetaDataInner(node).getId());
-        });
+        }, rs2t);
     }
 
     private Branch getBranchFromResultSet(ResultSet rs) {
@@ -433,6 +592,14 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
         return l;
     }
 
+    //read connections only see committed changes,
+    //the writer is not in auto commit mode once an assertion pool uses it
+    private void commitForReaders(Connection c) throws SQLException {
+        if (!c.getAutoCommit()) {
+            c.commit();
+        }
+    }
+
     //sqlite helper 
     private String getQuestionmarks(int n) {
         StringJoiner sj = new StringJoiner(",");
@@ -506,13 +673,23 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
                 } else {
                     throw new SQLException("No ID generated");
                 }
+                
+                if (closureTable) {
+                    PreparedStatement closure = c.prepareStatement(getQuery("/de/dfki/sds/hephaistos/storage/InsertClosure.sql"));
+                    addClosureBatch(closure, md.getId(), parentId);
+                    closure.executeBatch();
+                    closure.close();
+                }
             }
             stmt.close();
+            
+            commitForReaders(c);
         });
         
         if(!nodeIsBranch) {
             insertAdditionally((Leaf) node);
         }
+        treeChanged();
     }
 
     /**
@@ -611,8 +788,58 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
             }
 
             stmt.executeBatch();
+            
+            if (closureTable) {
+                PreparedStatement closure = c.prepareStatement(getQuery("/de/dfki/sds/hephaistos/storage/InsertClosure.sql"));
+                for (MetaData md : parentsFirst(tree)) {
+                    addClosureBatch(closure, md.id, md.parent);
+                }
+                closure.executeBatch();
+                closure.close();
+            }
+            
             c.commit();
         });
+        treeChanged();
+    }
+    
+    //sorts the nodes by their depth in the collection, so a parent comes before its children
+    private List<MetaData> parentsFirst(Collection<? extends StorageItem> tree) {
+        Map<Integer, MetaData> id2md = new HashMap<>();
+        for (StorageItem node : tree) {
+            MetaData md = getMetaData(node);
+            id2md.put(md.id, md);
+        }
+        
+        Map<Integer, Integer> id2depth = new HashMap<>();
+        List<Integer> path = new ArrayList<>();
+        for (MetaData md : id2md.values()) {
+            //walk up until the depth is known or the parent is not in the collection
+            path.clear();
+            int id = md.id;
+            int depth = -1;
+            while (true) {
+                Integer known = id2depth.get(id);
+                if (known != null) {
+                    depth = known;
+                    break;
+                }
+                path.add(id);
+                MetaData current = id2md.get(id);
+                if (!id2md.containsKey(current.parent) || path.size() > id2md.size()) {
+                    break;
+                }
+                id = current.parent;
+            }
+            for (int i = path.size() - 1; i >= 0; i--) {
+                depth++;
+                id2depth.put(path.get(i), depth);
+            }
+        }
+        
+        List<MetaData> sorted = new ArrayList<>(id2md.values());
+        sorted.sort((a, b) -> Integer.compare(id2depth.get(a.id), id2depth.get(b.id)));
+        return sorted;
     }
 
     //TODO updateBranch
@@ -640,10 +867,18 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
      */
     @Override
     public void removeSingleLeaf(Leaf node) {
+        int id = getLeafMetaDataInner(node).getId();
         SQLiteUtility.executePrepared(connection, getQuery("/de/dfki/sds/hephaistos/storage/DeleteSingle.sql"), ps -> {
-            ps.setInt(1, getLeafMetaDataInner(node).getId());
+            ps.setInt(1, id);
+        });
+        SQLiteUtility.run(connection, c -> {
+            if (closureTable) {
+                deleteClosure(c, id);
+            }
+            commitForReaders(c);
         });
         removeAdditionally(node);
+        treeChanged();
     }
 
     /**
@@ -653,9 +888,18 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
      */
     @Override
     public void removeSubtree(Branch node) {
-        SQLiteUtility.executePrepared(connection, getQuery("/de/dfki/sds/hephaistos/storage/DeleteMulti.sql"), ps -> {
-            ps.setInt(1, getBranchMetaDataInner(node).getId());
+        int id = getBranchMetaDataInner(node).getId();
+        String query = getQuery("/de/dfki/sds/hephaistos/storage/" + (closureTable ? "DeleteMultiClosure.sql" : "DeleteMulti.sql"));
+        SQLiteUtility.executePrepared(connection, query, ps -> {
+            ps.setInt(1, id);
         });
+        SQLiteUtility.run(connection, c -> {
+            if (closureTable) {
+                deleteClosure(c, id);
+            }
+            commitForReaders(c);
+        });
+        treeChanged();
         //TODO for all leaf we should delete the content too with removeAddtionally
     }
 
@@ -666,7 +910,7 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
      */
     @Override
     public Branch getRoot() {
-        return SQLiteUtility.supply(connection, c -> {
+        return readConnectionPool.supply((c, cache) -> {
             PreparedStatement ps = c.prepareStatement(getRootQuery());
             ResultSet rs = ps.executeQuery();
             Branch root;
@@ -683,7 +927,7 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
     
     @Override
     public StorageItem get(int id) {
-        return SQLiteUtility.supply(connection, c -> {
+        return readConnectionPool.supply((c, cache) -> {
             PreparedStatement ps = c.prepareStatement(getSelectQuery(id));
             ResultSet rs = ps.executeQuery();
             StorageItem item = null;
@@ -713,8 +957,7 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
     @Override
     public Iterable<Branch> getBranchChildrenIter(Branch node) {
         return () -> {
-            PreparedStatement ps = getChildrenPreparedStatement(node, BRANCH_TYPE);
-            return new ResultSetIterator<>(ps, rs -> getBranchFromResultSet(rs));
+            return getChildrenIterator(node, BRANCH_TYPE, rs -> getBranchFromResultSet(rs));
         };
     }
 
@@ -727,8 +970,7 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
     @Override
     public Iterable<Leaf> getLeafChildrenIter(Branch node) {
         return () -> {
-            PreparedStatement ps = getChildrenPreparedStatement(node, LEAF_TYPE);
-            return new ResultSetIterator<>(ps, rs -> getLeafFromResultSet(rs));
+            return getChildrenIterator(node, LEAF_TYPE, rs -> getLeafFromResultSet(rs));
         };
     }
 
@@ -740,12 +982,17 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
      */
     @Override
     public Optional<Branch> getParentOf(StorageItem branchOrLeaf) {
-        PreparedStatement ps = getParentPreparedStatement(branchOrLeaf);
-
-        try {
+        MetaData md = getMetaData(branchOrLeaf);
+        String query = getQuery("/de/dfki/sds/hephaistos/storage/Parent.sql");
+        
+        return readConnectionPool.supply((c, cache) -> {
+            PreparedStatement ps = c.prepareStatement(query);
+            ps.setInt(1, md.getId());
+            
             ResultSet rs = ps.executeQuery();
             
             if (!rs.next()) {
+                ps.close();
                 return Optional.empty();
             }
 
@@ -754,10 +1001,7 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
             ps.close();
 
             return Optional.of(b);
-
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        });
     }
 
     /**
@@ -769,8 +1013,7 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
     @Override
     public Iterable<Branch> getParentsIter(StorageItem branchOrLeaf) {
         return () -> {
-            PreparedStatement ps = getParentsPreparedStatement(branchOrLeaf);
-            return new ResultSetIterator<>(ps, rs -> {
+            return getParentsIterator(branchOrLeaf, rs -> {
                 return getBranchFromResultSet(rs);
             });
         };
@@ -779,8 +1022,7 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
     @Override
     public Iterable<StorageItem> getTreeIter(Branch node) {
         return () -> {
-            PreparedStatement ps = getTreePreparedStatement(node);
-            return new ResultSetIterator<>(ps, rs -> {
+            return getTreeIterator(node, rs -> {
                 try {
                     int type = rs.getInt(COL_TYPE);
                     if (type == BRANCH_TYPE) {
@@ -803,11 +1045,20 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
     @Override
     public void clear() {
         SQLiteUtility.execute(connection, getClearQuery());
+        SQLiteUtility.run(connection, c -> {
+            if (closureTable) {
+                deleteClosure(c, ROOT_ID);
+            }
+            commitForReaders(c);
+        });
+        treeChanged();
     }
 
     @Override
     public void remove() {
         SQLiteUtility.execute(connection, getQuery("/de/dfki/sds/hephaistos/storage/Drop.sql"));
+        SQLiteUtility.execute(connection, getQuery("/de/dfki/sds/hephaistos/storage/DropClosure.sql"));
+        treeChanged();
     }
 
     //TODO search
@@ -840,7 +1091,7 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
     @Override
     public long size() {
         String query = getQuery("/de/dfki/sds/hephaistos/storage/Count.sql");
-        return SQLiteUtility.supply(connection, c -> {
+        return readConnectionPool.supply((c, cache) -> {
             PreparedStatement stmt = c.prepareStatement(query);
             ResultSet rs = stmt.executeQuery();
             long size = rs.getLong(1);
@@ -851,7 +1102,7 @@ public abstract class BranchLeafStorageSqlite<Branch extends StorageItem, Leaf e
     
     public long getCount(int type) {
         String query = getQuery("/de/dfki/sds/hephaistos/storage/CountType.sql");
-        return SQLiteUtility.supply(connection, c -> {
+        return readConnectionPool.supply((c, cache) -> {
             PreparedStatement stmt = c.prepareStatement(query);
             stmt.setInt(1, type);
             ResultSet rs = stmt.executeQuery();
@@ -0,0 +1,102 @@
+package de.dfki.sds.hephaistos.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A bounded least recently used cache of prepared statements of one connection.
+ * Statements are prepared once per key (query shape) and reused, evicted ones are closed.
+ * Use it only synchronized on the connection, e.g. in {@link SQLiteUtility#supply}.
+ *
+ */
+public class PreparedStatementCache {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private Connection connection;
+    private int capacity;
+    private LinkedHashMap<String, PreparedStatement> key2stmt;
+
+    private long hits;
+    private long misses;
+
+    public PreparedStatementCache(Connection connection) {
+        this(connection, DEFAULT_CAPACITY);
+    }
+
+    public PreparedStatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+        //access order for LRU
+        this.key2stmt = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if(size() > PreparedStatementCache.this.capacity) {
+                    close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached prepared statement for the key or prepares the query.
+     * The caller has to close the result sets, but not the statement.
+     * @param key identifies the query shape
+     * @param query only called if the statement is not cached
+     * @return
+     * @throws SQLException
+     */
+    public PreparedStatement get(String key, Supplier<String> query) throws SQLException {
+        PreparedStatement stmt = key2stmt.get(key);
+        if(stmt == null) {
+            misses++;
+            stmt = connection.prepareStatement(query.get());
+            key2stmt.put(key, stmt);
+        } else {
+            hits++;
+        }
+        return stmt;
+    }
+
+    /**
+     * Closes all cached statements.
+     */
+    public void clear() {
+        for(PreparedStatement stmt : key2stmt.values()) {
+            close(stmt);
+        }
+        key2stmt.clear();
+    }
+
+    private void close(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public int size() {
+        return key2stmt.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedStatementCache{" + "size=" + key2stmt.size() + ", capacity=" + capacity + ", hits=" + hits + ", misses=" + misses + '}';
+    }
+
+}
@@ -0,0 +1,188 @@
+package de.dfki.sds.hephaistos.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * A pool of read-only connections next to the one writer connection.
+ * A query leases an idle read connection exclusively, so reads of different
+ * threads do not wait for each other (and not for the writer in WAL mode).
+ * If all read connections are busy (or there are none) the writer connection
+ * is used synchronized like before, thus a read never blocks on the pool.
+ * Read connections only see committed data.
+ *
+ */
+public class ReadConnectionPool {
+
+    private Connection writer;
+    private List<Connection> readers;
+    private BlockingQueue<Connection> idle;
+    //statements are cached per connection
+    private Map<Connection, PreparedStatementCache> caches;
+
+    /**
+     * Without read connections: every read uses the writer.
+     * @param writer
+     */
+    public ReadConnectionPool(Connection writer) {
+        this(writer, new ArrayList<>());
+    }
+
+    public ReadConnectionPool(Connection writer, List<Connection> readers) {
+        this.writer = writer;
+        this.readers = readers;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, readers.size()), false, readers);
+        this.caches = new HashMap<>();
+        caches.put(writer, new PreparedStatementCache(writer));
+        for(Connection reader : readers) {
+            caches.put(reader, new PreparedStatementCache(reader));
+        }
+    }
+
+    /**
+     * Runs the read with a leased connection and its statement cache.
+     * Cache keys are shared by all storages, so prefix them (e.g. with the tablename).
+     * Close the result sets, otherwise the connection keeps an old snapshot.
+     * @param <T>
+     * @param reader
+     * @return
+     */
+    public <T> T supply(SQLReader<T> reader) {
+        Connection c = idle.poll();
+        if(c == null) {
+            return SQLiteUtility.supply(writer, w -> reader.read(w, caches.get(w)));
+        }
+        try {
+            return reader.read(c, caches.get(c));
+        } catch(SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            idle.offer(c);
+        }
+    }
+
+    /**
+     * Iterates the result of the query with a leased connection.
+     * The statement is not cached and the connection is returned when the iterator
+     * is consumed or closed.
+     * @param <T>
+     * @param query
+     * @param preparer
+     * @param rs2t
+     * @return
+     */
+    public <T> ResultSetIterator<T> iterate(String query, SQLiteUtility.Preparer preparer, Function<ResultSet, T> rs2t) {
+        Connection c = idle.poll();
+        if(c == null) {
+            c = writer;
+        }
+        Connection leased = c;
+        try {
+            return SQLiteUtility.supply(leased, l -> {
+                PreparedStatement stmt = l.prepareStatement(query);
+                preparer.prepare(stmt);
+                //executes the query
+                return new PooledResultSetIterator<>(leased, stmt, rs2t);
+            });
+        } catch(RuntimeException e) {
+            release(leased);
+            throw e;
+        }
+    }
+
+    private void release(Connection c) {
+        if(c != writer) {
+            idle.offer(c);
+        }
+    }
+
+    /**
+     * Closes the read connections, the writer is closed by the {@link StorageManager}.
+     */
+    public void close() {
+        SQLiteUtility.run(writer, w -> {
+            caches.get(w).clear();
+        });
+        for(Connection reader : readers) {
+            caches.get(reader).clear();
+            try {
+                reader.close();
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        idle.clear();
+    }
+
+    public Connection getWriter() {
+        return writer;
+    }
+
+    public int getReaderCount() {
+        return readers.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ReadConnectionPool{" + "readers=" + readers.size() + ", idle=" + idle.size() + ", caches=" + caches.values() + '}';
+    }
+
+    @FunctionalInterface
+    public interface SQLReader<T> {
+
+        public T read(Connection connection, PreparedStatementCache cache) throws SQLException;
+
+    }
+
+    //steps are synchronized, the writer could be used by others
+    private class PooledResultSetIterator<T> extends ResultSetIterator<T> {
+
+        private Connection connection;
+        private boolean released;
+
+        public PooledResultSetIterator(Connection connection, PreparedStatement stmt, Function<ResultSet, T> rs2t) {
+            super(stmt, rs2t);
+            this.connection = connection;
+        }
+
+        @Override
+        public boolean hasNext() {
+            synchronized(connection) {
+                return super.hasNext();
+            }
+        }
+
+        @Override
+        public T next() {
+            synchronized(connection) {
+                return super.next();
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized(connection) {
+                super.close();
+            }
+            if(!released) {
+                released = true;
+                release(connection);
+            }
+        }
+
+    }
+
+}
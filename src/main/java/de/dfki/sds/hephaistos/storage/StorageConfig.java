@@ -0,0 +1,122 @@
+package de.dfki.sds.hephaistos.storage;
+
+import org.sqlite.SQLiteConfig;
+
+/**
+ * Settings of the sqlite connections opened by {@link StorageManager}.
+ * The defaults use write-ahead logging, so that the read connections
+ * do not wait for the writer (and the other way round).
+ *
+ */
+public class StorageConfig {
+
+    //write-ahead log: readers see the last commit while the writer writes
+    private SQLiteConfig.JournalMode journalMode = SQLiteConfig.JournalMode.WAL;
+    //in WAL mode NORMAL is still consistent, only the last commits can get lost on power failure
+    private SQLiteConfig.SynchronousMode synchronous = SQLiteConfig.SynchronousMode.NORMAL;
+    //negative means kibibytes: 64 MiB page cache per connection
+    private int cacheSize = -64 * 1024;
+    //256 MiB of the database file are memory mapped
+    private long mmapSize = 256L * 1024 * 1024;
+    //temp tables (e.g. for staging) and indices are kept in memory
+    private SQLiteConfig.TempStore tempStore = SQLiteConfig.TempStore.MEMORY;
+    //in ms, a reader waits in case of a checkpoint
+    private int busyTimeout = 5000;
+
+    //number of read-only connections besides the one writer, 0 means reads use the writer
+    private int readConnections = 2;
+    
+    //tree storages materialize the ancestors of their nodes (an existing closure table is kept anyway)
+    private boolean closureTable = false;
+
+    /**
+     * The sqlite config to open a connection with.
+     * @param readOnly true for the read connections
+     * @return
+     */
+    public SQLiteConfig toSQLiteConfig(boolean readOnly) {
+        SQLiteConfig config = new SQLiteConfig();
+        if(readOnly) {
+            config.setReadOnly(true);
+        } else {
+            //the journal mode is persisted in the file, so only the writer sets it
+            config.setJournalMode(journalMode);
+            config.setSynchronous(synchronous);
+        }
+        config.setCacheSize(cacheSize);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(mmapSize));
+        config.setTempStore(tempStore);
+        config.setBusyTimeout(busyTimeout);
+        return config;
+    }
+
+    public SQLiteConfig.JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    public void setJournalMode(SQLiteConfig.JournalMode journalMode) {
+        this.journalMode = journalMode;
+    }
+
+    public SQLiteConfig.SynchronousMode getSynchronous() {
+        return synchronous;
+    }
+
+    public void setSynchronous(SQLiteConfig.SynchronousMode synchronous) {
+        this.synchronous = synchronous;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    public void setMmapSize(long mmapSize) {
+        this.mmapSize = mmapSize;
+    }
+
+    public SQLiteConfig.TempStore getTempStore() {
+        return tempStore;
+    }
+
+    public void setTempStore(SQLiteConfig.TempStore tempStore) {
+        this.tempStore = tempStore;
+    }
+
+    public int getBusyTimeout() {
+        return busyTimeout;
+    }
+
+    public void setBusyTimeout(int busyTimeout) {
+        this.busyTimeout = busyTimeout;
+    }
+
+    public int getReadConnections() {
+        return readConnections;
+    }
+
+    public void setReadConnections(int readConnections) {
+        this.readConnections = readConnections;
+    }
+
+    public boolean isClosureTable() {
+        return closureTable;
+    }
+
+    public void setClosureTable(boolean closureTable) {
+        this.closureTable = closureTable;
+    }
+
+    @Override
+    public String toString() {
+        return "StorageConfig{" + "journalMode=" + journalMode + ", synchronous=" + synchronous + ", cacheSize=" + cacheSize + ", mmapSize=" + mmapSize + ", tempStore=" + tempStore + ", busyTimeout=" + busyTimeout + ", readConnections=" + readConnections + ", closureTable=" + closureTable + '}';
+    }
+
+}
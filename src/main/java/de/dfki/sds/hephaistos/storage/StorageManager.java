@@ -25,6 +25,10 @@ public class StorageManager {
     
     /*package*/ transient File folder;
     private transient Connection connection;
+    //read-only connections next to the writer connection
+    private transient ReadConnectionPool readConnectionPool;
+    
+    private transient StorageConfig config = new StorageConfig();
     
     /**
      * States which storage ID was initialized for a certain class.
@@ -51,7 +55,14 @@ public class StorageManager {
     
     public void open() {
         try {
-            connection = DriverManager.getConnection(getSqliteConnectionString());
+            //the writer first, it sets the journal mode
+            connection = DriverManager.getConnection(getSqliteConnectionString(), config.toSQLiteConfig(false).toProperties());
+            
+            List<Connection> readers = new ArrayList<>();
+            for(int i = 0; i < config.getReadConnections(); i++) {
+                readers.add(DriverManager.getConnection(getSqliteConnectionString(), config.toSQLiteConfig(true).toProperties()));
+            }
+            readConnectionPool = new ReadConnectionPool(connection, readers);
         } catch(SQLException ex) {
             Utils.saveException(folder, ex);
             throw new RuntimeException(ex);
@@ -60,6 +71,7 @@ public class StorageManager {
     
     public void close() {
         try {
+            readConnectionPool.close();
             connection.close();
         } catch (SQLException ex) {
             Utils.saveException(folder, ex);
@@ -100,10 +112,14 @@ public class StorageManager {
         InternalStorageMetaData metadata = id2metadata.computeIfAbsent(id, ident -> new InternalStorageMetaData(ident, type.getName()));
         
         if(type == FileInfoStorage.class) {
-            return (T) new FileInfoStorage(metadata, connection, new File(folder, "cache"));
+            FileInfoStorage fileInfoStorage = new FileInfoStorage(metadata, connection, readConnectionPool, new File(folder, "cache"));
+            if(config.isClosureTable()) {
+                fileInfoStorage.setClosureTable(true);
+            }
+            return (T) fileInfoStorage;
         }
         else if(type == AssertionPool.class) {
-            return (T) new AssertionPoolSqlite(metadata, connection, folder);
+            return (T) new AssertionPoolSqlite(metadata, connection, readConnectionPool, folder);
         }
         else {
             id2metadata.remove(id);
@@ -173,6 +189,22 @@ public class StorageManager {
         }
     }
 
+    /**
+     * The config is used when the manager is opened.
+     * @return 
+     */
+    public StorageConfig getConfig() {
+        return config;
+    }
+
+    public void setConfig(StorageConfig config) {
+        this.config = config;
+    }
+
+    public ReadConnectionPool getReadConnectionPool() {
+        return readConnectionPool;
+    }
+
     public String getFilename() {
         return filename;
     }
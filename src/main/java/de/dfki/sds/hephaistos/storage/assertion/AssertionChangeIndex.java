@@ -0,0 +1,95 @@
+package de.dfki.sds.hephaistos.storage.assertion;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.rdf.model.Property;
+
+/**
+ * Indexes the changes of a notification round once by predicate and phase,
+ * so that every listener gets its slice without scanning all changes.
+ */
+public class AssertionChangeIndex {
+
+    private List<Assertion> changes;
+    //positions in changes
+    private Map<Property, List<Integer>> predicate2positions;
+    private Map<Phase, List<Integer>> phase2positions;
+
+    public AssertionChangeIndex(List<Assertion> changes) {
+        this.changes = changes;
+        this.predicate2positions = new HashMap<>();
+        this.phase2positions = new HashMap<>();
+        for (int i = 0; i < changes.size(); i++) {
+            Assertion assertion = changes.get(i);
+            predicate2positions.computeIfAbsent(assertion.getStatement().getPredicate(), p -> new ArrayList<>()).add(i);
+            phase2positions.computeIfAbsent(assertion.getPhase(), p -> new ArrayList<>()).add(i);
+        }
+    }
+
+    /**
+     * The changes matching at least one of the patterns, in the order of the changes.
+     * @param patterns null means all changes
+     * @return
+     */
+    public List<Assertion> slice(Collection<AssertionPattern> patterns) {
+        if (patterns == null) {
+            return changes;
+        }
+
+        BitSet matched = new BitSet(changes.size());
+        for (AssertionPattern pattern : patterns) {
+            List<Integer> candidates = getCandidates(pattern);
+            if (candidates == null) {
+                for (int i = 0; i < changes.size(); i++) {
+                    if (!matched.get(i) && pattern.matches(changes.get(i))) {
+                        matched.set(i);
+                    }
+                }
+            } else {
+                for (int i : candidates) {
+                    if (!matched.get(i) && pattern.matches(changes.get(i))) {
+                        matched.set(i);
+                    }
+                }
+            }
+        }
+
+        List<Assertion> slice = new ArrayList<>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            slice.add(changes.get(i));
+        }
+        return slice;
+    }
+
+    //the smaller posting list of predicate and phase, null if the pattern has neither
+    private List<Integer> getCandidates(AssertionPattern pattern) {
+        List<Integer> byPredicate = null;
+        List<Integer> byPhase = null;
+        if (pattern.getPredicate() != null) {
+            byPredicate = predicate2positions.getOrDefault(pattern.getPredicate(), new ArrayList<>());
+        }
+        if (pattern.getPhase() != null) {
+            byPhase = phase2positions.getOrDefault(pattern.getPhase(), new ArrayList<>());
+        }
+        if (byPredicate == null) {
+            return byPhase;
+        }
+        if (byPhase == null) {
+            return byPredicate;
+        }
+        return byPredicate.size() <= byPhase.size() ? byPredicate : byPhase;
+    }
+
+    public List<Assertion> getChanges() {
+        return changes;
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+}
@@ -3,13 +3,24 @@ package de.dfki.sds.hephaistos.storage.assertion;
 
 import de.dfki.sds.hephaistos.storage.file.FileInfoStorage;
 import java.util.List;
+import org.apache.jena.rdf.model.Resource;
 
 /**
  * 
  */
 public interface AssertionListener {
 
-    //the following assertions where changed
+    //the following assertions where changed (only the ones matching the patterns)
     void updateOnChanges(FileInfoStorage fileInfoStorage, AssertionPool pool, List<Assertion> changes);
     
+    //the changes the listener is interested in, null means all changes.
+    //if no change matches, the listener is not called in a round
+    default List<AssertionPattern> getPatterns() {
+        return null;
+    }
+    
+    //called after AssertionPool.removeAllAbout, which removes assertions without changes
+    default void removedAllAbout(AssertionPool pool, Resource resource) {
+    }
+    
 }
@@ -0,0 +1,51 @@
+package de.dfki.sds.hephaistos.storage.assertion;
+
+import org.apache.jena.rdf.model.Property;
+
+/**
+ * A (predicate, phase, intelligence) pattern a listener is interested in.
+ * Null matches everything, like in {@link AssertionPool#filter}.
+ */
+public class AssertionPattern {
+
+    private Property predicate;
+    private Phase phase;
+    private Intelligence intelligence;
+
+    public AssertionPattern(Property predicate, Phase phase, Intelligence intelligence) {
+        this.predicate = predicate;
+        this.phase = phase;
+        this.intelligence = intelligence;
+    }
+
+    public boolean matches(Assertion assertion) {
+        if (predicate != null && !assertion.getStatement().getPredicate().equals(predicate)) {
+            return false;
+        }
+        if (phase != null && assertion.getPhase() != phase) {
+            return false;
+        }
+        if (intelligence != null && assertion.getIntelligence() != intelligence) {
+            return false;
+        }
+        return true;
+    }
+
+    public Property getPredicate() {
+        return predicate;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public Intelligence getIntelligence() {
+        return intelligence;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + predicate + ", " + phase + ", " + intelligence + ")";
+    }
+
+}
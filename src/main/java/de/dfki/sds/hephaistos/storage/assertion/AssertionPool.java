@@ -8,6 +8,7 @@ import java.io.File;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -15,6 +16,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import java.util.function.Function;
+import java.util.stream.Stream;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Property;
@@ -37,7 +39,10 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
 
     private List<AssertionListener> listeners;
     protected List<Assertion> notificationBuffer;
-    private final int notifyRecursionThreshold = 100;
+    //max rounds in notifyListenersRecursively (changes of a round are notified in the next one)
+    private int notifyRoundLimit = 100;
+    //metrics of the last notifyListenersRecursively
+    private List<NotificationRound> notificationRounds = new ArrayList<>();
     
     protected List<Assertion> commitBuffer = new ArrayList<>();
     protected boolean bulkMode;
@@ -70,42 +75,94 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
         listeners.clear();
     }
 
+    /**
+     * Notifies the listeners about the changes in rounds until no new changes occur.
+     * The changes of a round are indexed once and every listener only gets the
+     * changes matching its {@link AssertionListener#getPatterns() patterns}.
+     * After a round the pool commits, which gives the changes of the next round.
+     * @param fileInfoStorage 
+     */
     public void notifyListenersRecursively(FileInfoStorage fileInfoStorage) {
-        notifyListenersRecursively(fileInfoStorage, 0);
-    }
+        notificationRounds = new ArrayList<>();
+        
+        int round = 0;
+        while (!notificationBuffer.isEmpty()) {
+            if (round >= notifyRoundLimit) {
+                clearNotificationBuffer();
+                throw new RuntimeException("ERROR: notifyListenersRecursively stopped after " + notifyRoundLimit + " rounds");
+            }
 
-    private void notifyListenersRecursively(FileInfoStorage fileInfoStorage, int depth) {
-        if (depth >= notifyRecursionThreshold) {
-            //System.err.println("WARNING: notifyListenersRecursively stopped because recursion is too deep");
+            List<Assertion> copy = new ArrayList<>(notificationBuffer);
             clearNotificationBuffer();
-            throw new StackOverflowError("ERROR: notifyListenersRecursively stopped because recursion is too deep");
+            
+            NotificationRound metrics = new NotificationRound(round, copy.size());
+            
+            long begin = System.currentTimeMillis();
+            AssertionChangeIndex index = new AssertionChangeIndex(copy);
+            metrics.setIndexMillis(System.currentTimeMillis() - begin);
+            
+            for (AssertionListener al : listeners) {
+                List<Assertion> slice = index.slice(al.getPatterns());
+                if (slice.isEmpty()) {
+                    continue;
+                }
+                
+                begin = System.currentTimeMillis();
+                al.updateOnChanges(fileInfoStorage, this, slice);
+                metrics.addListener(al.getClass().getSimpleName(), slice.size(), System.currentTimeMillis() - begin);
+            }
+            
+            begin = System.currentTimeMillis();
+            commit();
+            metrics.setCommitMillis(System.currentTimeMillis() - begin);
+            
+            notificationRounds.add(metrics);
+            
+            if(print) {
+                System.out.println("========================");
+                System.out.println("notifyListenersRecursively " + metrics);
+                System.out.println("========================");
+            }
+            
+            round++;
         }
+    }
 
-        if (notificationBuffer.isEmpty()) {
-            return;
-        }
+    public int getNotifyRoundLimit() {
+        return notifyRoundLimit;
+    }
 
-        if(print) {
-            System.out.println("========================");
-            System.out.println("notifyListenersRecursively depth: " + depth);
-            System.out.println("========================");
-        }
-        
-        List<Assertion> copy = new ArrayList<>(notificationBuffer);
-        clearNotificationBuffer();
-        for (AssertionListener al : listeners) {
-            al.updateOnChanges(fileInfoStorage, this, copy);
-        }
-        commit();
-        if (!notificationBuffer.isEmpty()) {
-            notifyListenersRecursively(fileInfoStorage, depth + 1);
-        }
+    public void setNotifyRoundLimit(int notifyRoundLimit) {
+        this.notifyRoundLimit = notifyRoundLimit;
+    }
+
+    /**
+     * Metrics of the rounds of the last {@link #notifyListenersRecursively(FileInfoStorage)}.
+     * @return 
+     */
+    public List<NotificationRound> getNotificationRounds() {
+        return notificationRounds;
     }
 
     public void clearNotificationBuffer() {
         notificationBuffer.clear();
     }
 
+    /**
+     * The committed changes which are notified in the next round.
+     * @return 
+     */
+    public List<Assertion> getNotificationBuffer() {
+        return Collections.unmodifiableList(notificationBuffer);
+    }
+
+    //see removeAllAbout
+    protected void notifyRemovedAllAbout(Resource resource) {
+        for (AssertionListener al : new ArrayList<>(listeners)) {
+            al.removedAllAbout(this, resource);
+        }
+    }
+
     //assert
     //here time can be set
     protected abstract void assertStatement(Statement stmt, Phase phase, Intelligence intel, String name, Rating rating, double confidence, LocalDateTime when);
@@ -157,6 +214,32 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
 
     public abstract List<Assertion> getAssertionsIn(Property predicate, List<RDFNode> object, Phase phase);
 
+    /**
+     * The assertions of many subjects at once (instead of one getAssertions per subject), grouped by subject.
+     * Per subject they are in the same order as getAssertions returns them.
+     * @param subjects
+     * @param predicate null means any
+     * @param object null means any
+     * @param phase null means any
+     * @param rating rating of the primary opinion, null means any
+     * @return subject to its assertions, subjects without assertions are missing
+     */
+    public abstract Map<Resource, List<Assertion>> getAssertionsOfSubjects(Collection<Resource> subjects, Property predicate, RDFNode object, Phase phase, Rating rating);
+
+    //streaming: like getAssertions but rows are read one by one while the stream is consumed,
+    //close the stream (try-with-resources) if it is not consumed completely
+    public abstract Stream<Assertion> streamAssertions(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold);
+
+    //projections of streamAssertions: only the needed columns are read
+    public abstract Stream<Statement> streamStatements(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold);
+
+    public abstract Stream<Resource> streamSubjects(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold);
+
+    public abstract Stream<RDFNode> streamObjects(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold);
+
+    //the primary opinion of every assertion
+    public abstract Stream<Opinion> streamOpinions(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold);
+
     //deprecated: used when owl:sameAs was used
     @Deprecated
     public List<Assertion> getAssertionsViaSubjects(List<Assertion> inputAssertions, Function<Assertion, Resource> toSubject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
@@ -187,6 +270,13 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
         Rating ratingFilter = alsoNegative ? null : Rating.Positive;
         List<Assertion> conceptAssertions = getAssertions(null, RDF.type, OWL2.NamedIndividual, Phase.ConceptDiscovery, null, null, ratingFilter, 0);
 
+        //the attributes of all concepts in one query each
+        List<Resource> subjects = getSubjects(conceptAssertions);
+        Map<Resource, List<Assertion>> prefLabelMap = getAssertionsOfSubjects(subjects, SKOS.prefLabel, null, Phase.ConceptDiscovery, null);
+        Map<Resource, List<Assertion>> hiddenLabelMap = getAssertionsOfSubjects(subjects, SKOS.hiddenLabel, null, Phase.ConceptDiscovery, null);
+        Map<Resource, List<Assertion>> typeMap = getAssertionsOfSubjects(subjects, RDF.type, null, Phase.ConceptDiscovery, null);
+        Map<Resource, List<Assertion>> isTopicOfMap = getAssertionsOfSubjects(subjects, null, FOAF.topic, Phase.ConceptDiscovery, null);
+
         for (Assertion conceptAssertion : conceptAssertions) {
 
             //apply owl:sameAs check: 
@@ -199,7 +289,13 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
             //    continue;
             //}
 
-            concepts.add(getConcept(conceptAssertion));
+            Resource subject = conceptAssertion.getSubject();
+            concepts.add(toConcept(conceptAssertion, 
+                    prefLabelMap.getOrDefault(subject, new ArrayList<>()), 
+                    hiddenLabelMap.getOrDefault(subject, new ArrayList<>()), 
+                    typeMap.getOrDefault(subject, new ArrayList<>()), 
+                    isTopicOfMap.getOrDefault(subject, new ArrayList<>())
+            ));
         }
 
         return concepts;
@@ -224,12 +320,17 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
         List<Assertion> prefLabels = getAssertions(conceptAssertion.getSubject(), SKOS.prefLabel, null, Phase.ConceptDiscovery, null, null, null, 0);
         
         List<Assertion> hiddenLabels = getAssertions(conceptAssertion.getSubject(), SKOS.hiddenLabel, null, Phase.ConceptDiscovery, null, null, null, 0);
-        hiddenLabels.sort((a, b) -> a.getStatement().getString().compareToIgnoreCase(b.getStatement().getString()));
 
         List<Assertion> types = getAssertions(conceptAssertion.getSubject(), RDF.type, null, Phase.ConceptDiscovery, null, null, null, 0);
 
         List<Assertion> isTopicOfs = getAssertions(conceptAssertion.getSubject(), null, FOAF.topic, Phase.ConceptDiscovery, null, null, null, 0);
 
+        return toConcept(conceptAssertion, prefLabels, hiddenLabels, types, isTopicOfs);
+    }
+
+    private Concept toConcept(Assertion conceptAssertion, List<Assertion> prefLabels, List<Assertion> hiddenLabels, List<Assertion> types, List<Assertion> isTopicOfs) {
+        hiddenLabels.sort((a, b) -> a.getStatement().getString().compareToIgnoreCase(b.getStatement().getString()));
+
         //List<Assertion> outgoingSameAs = getAssertions(conceptAssertion.getSubject(), OWL.sameAs, null, Phase.ConceptDiscovery, null, null, null, 0);
 
         Concept concept = new Concept();
@@ -265,10 +366,11 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
         Map<Resource, String> m = new HashMap<>();
         
         List<Assertion> typeAssertions = getAssertions(null, RDF.type, RDFS.Class, Phase.OntologyPopulation, null, null, null, 0);
+        Map<Resource, List<Assertion>> prefLabelMap = getAssertionsOfSubjects(getSubjects(typeAssertions), SKOS.prefLabel, null, Phase.OntologyPopulation, Rating.Positive);
         for(Assertion typeAssertion : typeAssertions) {
             
-            List<Assertion> prefLabels = getAssertions(typeAssertion.getSubject(), SKOS.prefLabel, null, Phase.OntologyPopulation, null, null, Rating.Positive, 0);
-            if(prefLabels.isEmpty()) {
+            List<Assertion> prefLabels = prefLabelMap.get(typeAssertion.getSubject());
+            if(prefLabels == null) {
                 continue;
             }
             
@@ -282,10 +384,11 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
         Map<Resource, String> m = new HashMap<>();
         
         List<Assertion> propertyAssertions = getAssertions(null, RDF.type, RDF.Property, Phase.OntologyPopulation, null, null, null, 0);
+        Map<Resource, List<Assertion>> prefLabelMap = getAssertionsOfSubjects(getSubjects(propertyAssertions), SKOS.prefLabel, null, Phase.OntologyPopulation, Rating.Positive);
         for(Assertion propertyAssertion : propertyAssertions) {
             
-            List<Assertion> prefLabels = getAssertions(propertyAssertion.getSubject(), SKOS.prefLabel, null, Phase.OntologyPopulation, null, null, Rating.Positive, 0);
-            if(prefLabels.isEmpty()) {
+            List<Assertion> prefLabels = prefLabelMap.get(propertyAssertion.getSubject());
+            if(prefLabels == null) {
                 continue;
             }
             
@@ -299,10 +402,11 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
         Map<Resource, String> m = new HashMap<>();
         
         List<Assertion> conceptAssertions = getAssertions(null, RDF.type, defaultType, Phase.ConceptDiscovery, null, null, rating, 0);
+        Map<Resource, List<Assertion>> prefLabelMap = getAssertionsOfSubjects(getSubjects(conceptAssertions), SKOS.prefLabel, null, Phase.ConceptDiscovery, Rating.Positive);
         for(Assertion conceptAssertion : conceptAssertions) {
             
-            List<Assertion> prefLabels = getAssertions(conceptAssertion.getSubject(), SKOS.prefLabel, null, Phase.ConceptDiscovery, null, null, Rating.Positive, 0);
-            if(prefLabels.isEmpty()) {
+            List<Assertion> prefLabels = prefLabelMap.get(conceptAssertion.getSubject());
+            if(prefLabels == null) {
                 continue;
             }
             
@@ -316,13 +420,19 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
         Map<String, List<Assertion>> m = new HashMap<>();
         
         List<Assertion> conceptAssertions = getAssertions(null, RDF.type, defaultType, Phase.ConceptDiscovery, null, null, null, 0);
+        List<Resource> subjects = getSubjects(conceptAssertions);
+        Map<Resource, List<Assertion>> prefLabelMap = getAssertionsOfSubjects(subjects, SKOS.prefLabel, null, Phase.ConceptDiscovery, Rating.Positive);
+        Map<Resource, List<Assertion>> hiddenLabelMap = getAssertionsOfSubjects(subjects, SKOS.hiddenLabel, null, Phase.ConceptDiscovery, Rating.Positive);
         for(Assertion conceptAssertion : conceptAssertions) {
             
-            List<Assertion> prefLabels = getAssertions(conceptAssertion.getSubject(), SKOS.prefLabel, null, Phase.ConceptDiscovery, null, null, Rating.Positive, 0);
-            List<Assertion> hiddenLabels = getAssertions(conceptAssertion.getSubject(), SKOS.hiddenLabel, null, Phase.ConceptDiscovery, null, null, Rating.Positive, 0);
+            List<Assertion> prefLabels = prefLabelMap.getOrDefault(conceptAssertion.getSubject(), new ArrayList<>());
+            List<Assertion> hiddenLabels = hiddenLabelMap.getOrDefault(conceptAssertion.getSubject(), new ArrayList<>());
             
             List<Assertion> assertions = new ArrayList<>();
-            assertions.add(prefLabels.get(0));
+            //a concept without positive prefLabel only has its hidden labels
+            if(!prefLabels.isEmpty()) {
+                assertions.add(prefLabels.get(0));
+            }
             assertions.addAll(hiddenLabels);
             
             for(Assertion assertion : assertions) {
@@ -345,6 +455,14 @@ public abstract class AssertionPool extends InternalStorage<Assertion, StorageSu
         return m;
     }
     
+    private static List<Resource> getSubjects(List<Assertion> assertions) {
+        List<Resource> subjects = new ArrayList<>();
+        for(Assertion assertion : assertions) {
+            subjects.add(assertion.getSubject());
+        }
+        return subjects;
+    }
+    
     public static List<Assertion> filter(Collection<Assertion> assertions, Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
         List<Assertion> result = new ArrayList<>();
         for (Assertion assertion : assertions) {
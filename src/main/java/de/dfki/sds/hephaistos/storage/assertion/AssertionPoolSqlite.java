@@ -2,6 +2,9 @@
 package de.dfki.sds.hephaistos.storage.assertion;
 
 import de.dfki.sds.hephaistos.storage.InternalStorageMetaData;
+import de.dfki.sds.hephaistos.storage.PreparedStatementCache;
+import de.dfki.sds.hephaistos.storage.ReadConnectionPool;
+import de.dfki.sds.hephaistos.storage.ResultSetIterator;
 import de.dfki.sds.hephaistos.storage.SQLiteUtility;
 import de.dfki.sds.hephaistos.storage.StorageSummary;
 import java.io.File;
@@ -12,17 +15,28 @@ import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.IOUtils;
 import org.apache.jena.graph.Node;
@@ -51,16 +65,82 @@ public class AssertionPoolSqlite extends AssertionPool {
     //private PreparedStatement preparedStatement;
     
     private PreparedStatement[] preparedStatements;
+    //true if there is something in the batch to commit
+    private boolean batchPending;
+    
+    //statements of the writer (e.g. staging), one per query shape
+    private PreparedStatementCache statementCache;
+    //the queries use read connections if there are some
+    private ReadConnectionPool readConnectionPool;
+    //sql resources are read once
+    private Map<String, String> path2query;
+    
+    //in getAssertionsIn objects are queried in chunks
+    private static final int IN_CHUNK_SIZE = 256;
+    
+    private static final String OPINION_COLUMNS = 
+            "ni_intelligence, ni_name, ni_rating, ni_confidence, ni_when, " + 
+            "ai_intelligence, ai_name, ai_rating, ai_confidence, ai_when";
     
     private File folder;
     
+    //term dictionary: every rdf node is stored once in the term table and
+    //the assertion table only refers to its integer id
+    private Map<Node, Integer> node2id;
+    private Map<Integer, RDFNode> id2node;
+    private Map<Integer, Property> id2property;
+    private int nextTermId;
+    
+    private String insertTermQuery;
+    private PreparedStatement termInsertStatement;
+    //terms that are only in the batch yet, removed again on rollback
+    private List<Node> pendingTerms;
+    
+    //not in bulk mode: the pending assertions with their statement in the order they were asserted,
+    //on commit they are compared in one query with the stored rows to find the new ones
+    private List<Entry<StagingKey, Assertion>> staging;
+    //term ids from here on are not persisted yet
+    private int committedTermIdLimit;
+    
+    //enums are stored with their ordinal
+    private static final Phase[] PHASES = Phase.values();
+    private static final Rating[] RATINGS = Rating.values();
+    private static final Intelligence[] INTELLIGENCES = Intelligence.values();
+    
     public AssertionPoolSqlite(InternalStorageMetaData metaData, Connection connection, File folder) {
+        this(metaData, connection, new ReadConnectionPool(connection), folder);
+    }
+    
+    public AssertionPoolSqlite(InternalStorageMetaData metaData, Connection connection, ReadConnectionPool readConnectionPool, File folder) {
         super(metaData, folder);
         this.connection = connection;
+        this.readConnectionPool = readConnectionPool;
         this.folder = folder;
         this.tablename = metaData.getId();
         
+        statementCache = new PreparedStatementCache(connection);
+        path2query = new HashMap<>();
+        
+        node2id = new ConcurrentHashMap<>();
+        id2node = new ConcurrentHashMap<>();
+        id2property = new ConcurrentHashMap<>();
+        pendingTerms = new ArrayList<>();
+        nextTermId = 1;
+        staging = new ArrayList<>();
+        
+        insertTermQuery = getQuery(QUERY_PATH + "InsertTerm.sql");
+        
+        //old pools stored the terms as text in the assertion table
+        //a renamed text table which is still there is from a migration that did not finish, so it is copied again
+        boolean migrate = hasTextSchema();
+        if(migrate) {
+            renameTextSchema();
+        } else {
+            migrate = hasRenamedTextSchema();
+        }
+        
         //creaSQLiteUtility.execute(connection, getQuery(QUERY_PATH + "CreateTableAssertion.sql"));te tables
+        SQLiteUtility.execute(connection, getQuery(QUERY_PATH + "CreateTableTerm.sql"));
         SQLiteUtility.execute(connection, getQuery(QUERY_PATH + "CreateTableAssertion.sql"));
         SQLiteUtility.execute(connection, getQuery(QUERY_PATH + "CreateIndexSP.sql"));
         SQLiteUtility.execute(connection, getQuery(QUERY_PATH + "CreateIndexPO.sql"));
@@ -68,6 +148,15 @@ public class AssertionPoolSqlite extends AssertionPool {
         
         upsertQuery = getQuery(QUERY_PATH + "UpsertAssertion.sql");
         
+        loadTerms();
+        
+        if(migrate) {
+            migrateTextSchema();
+        }
+        committedTermIdLimit = nextTermId;
+        
+        SQLiteUtility.execute(connection, getQuery(QUERY_PATH + "CreateTableStaging.sql"));
+        
         //because takes some time we do it here once
         SQLiteUtility.run(connection, c -> {
             c.setAutoCommit(false);
@@ -99,157 +188,50 @@ public class AssertionPoolSqlite extends AssertionPool {
 
     @Override
     public void close() {
-        //ignore
+        SQLiteUtility.run(connection, c -> {
+            statementCache.clear();
+            for(PreparedStatement pstmt : preparedStatements) {
+                if(pstmt != null) {
+                    pstmt.close();
+                }
+            }
+            if(termInsertStatement != null) {
+                termInsertStatement.close();
+            }
+        });
     }
     
     @Override
     public List<Assertion> getAssertions(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
         //SELECT
         
-        StringBuilder querySB = new StringBuilder();
-        querySB.append("SELECT * FROM \"Assertion\"\n");
-        querySB.append("WHERE\n");
-        
-        StringJoiner whereJoiner = new StringJoiner(" AND ");
-        if(subject != null) {
-            whereJoiner.add("s = ?");
-        }
-        if(predicate != null) {
-            whereJoiner.add("p = ?");
-        }
-        if(object != null) {
-            whereJoiner.add("o = ?");
-        }
-        if(phase != null) {
-            whereJoiner.add("phase = ?");
-        }
-        
-        
-        //ni_intelligence IS NOT NULL AND ...
-        //OR
-        //ni_intelligence IS NULL AND ai_intelligence IS NOT NULL AND ...
-        
-        boolean opinionPartNeed = intel != null || name != null || rating != null || confidenceThreshold > 0;
-        
-        if(opinionPartNeed) {
-            Map<String, StringJoiner> m = new LinkedHashMap<>();
-            m.put("ni_", new StringJoiner(" AND "));
-            m.put("ai_", new StringJoiner(" AND "));
-
-            List<String> prefixes = new ArrayList<>(Arrays.asList("ni_", "ai_"));
-            if(intel != null) {
-                if(intel == Intelligence.AI) {
-                    prefixes.remove("ni_");
-                    m.remove("ni_");
-                } else if(intel == Intelligence.NI) {
-                    prefixes.remove("ai_");
-                    m.remove("ai_");
-                }
-            }
-            
-            StringJoiner orJoiner = new StringJoiner(" OR ", "(", ")");
-            
-            for(Entry<String, StringJoiner> entry : m.entrySet()) {
-
-                String prefix = entry.getKey();
-                StringJoiner joiner = entry.getValue();
-
-                if(prefix.equals("ni_")) {
-                    joiner.add("ni_intelligence IS NOT NULL");
-                } else if(prefix.equals("ai_")) {
-                    joiner.add("ni_intelligence IS NULL AND ai_intelligence IS NOT NULL");
-                }
-
-                if(name != null) {
-                    joiner.add(prefix + "name = ?");
-                }
-                if(rating != null) {
-                    joiner.add(prefix + "rating = ?");
-                }
-                if(confidenceThreshold > 0) {
-                    joiner.add(prefix + "confidence >= ?");
-                }
-
-                orJoiner.add(entry.getValue().toString());
-            }
-            whereJoiner.add(orJoiner.toString());
+        //a node that is not in the dictionary can not be part of an assertion
+        int[] ids = getTermIds(subject, predicate, object);
+        if(ids == null) {
+            return new ArrayList<>();
         }
         
-        querySB.append(whereJoiner.toString());
-        
-        //System.out.println(querySB);
+        String shape = getShape(subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
         
-        return SQLiteUtility.supply(connection, c -> {
+        return readConnectionPool.supply((c, cache) -> {
         
             List<Assertion> assertions = new ArrayList<>();
             
-            //System.out.println("------------");
-            //System.out.println(querySB.toString());
-            //System.out.println("------------");
-            
-            PreparedStatement pstmt = c.prepareStatement(querySB.toString());
-        
-            int paramIndex = 1;
-            
-            if(subject != null) {
-                pstmt.setString(paramIndex++, subject.getURI());
-            }
-            if(predicate != null) {
-                pstmt.setString(paramIndex++, predicate.getURI());
-            }
-            if(object != null) {
-                pstmt.setString(paramIndex++, toString(object));
-            }
-            if(phase != null) {
-                pstmt.setString(paramIndex++, phase.toString());
-            }
-            
-            //if intel == null we have to fill both, so '2'
-            for(int i = 0; i < (intel == null ? 2 : 1); i++) {
-                if(name != null) {
-                    pstmt.setString(paramIndex++, name);
-                }
-                if(rating != null) {
-                    pstmt.setString(paramIndex++, rating.toString());
-                }
-                if(confidenceThreshold > 0) {
-                    pstmt.setDouble(paramIndex++, confidenceThreshold);
-                }
-            }
+            PreparedStatement pstmt = cache.get(tablename + "/assertions" + shape, () -> {
+                return getAssertionsQuery("SELECT *", subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+            });
             
+            setAssertionsParameters(pstmt, ids, subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
             
             //long begin = System.currentTimeMillis();
-            java.sql.ResultSet rs = pstmt.executeQuery();
-            
-            List<String> prefixes = new ArrayList<>(Arrays.asList("ni_", "ai_"));
+            ResultSet rs = pstmt.executeQuery();
             
             while(rs.next()) {
-                Assertion assertion = new Assertion();
-                Statement stmt = toStatement(new String[] { rs.getString("s"), rs.getString("p"), rs.getString("o") });
-                assertion.setStatement(stmt);
-                
-                assertion.setPhase(Phase.valueOf(rs.getString("phase")));
-                
-                for(String prefix : prefixes) {
-                    if(rs.getString(prefix + "intelligence") != null) {
-                        Opinion opinion = new Opinion();
-                        
-                        opinion.setIntelligence(prefix.equals("ni_") ? Intelligence.NI : Intelligence.AI);
-                        opinion.setName(rs.getString(prefix + "name"));
-                        opinion.setRating(Rating.valueOf(rs.getString(prefix + "rating")));
-                        opinion.setConfidence(rs.getDouble(prefix + "confidence"));
-                        opinion.setWhen(LocalDateTime.ofEpochSecond(rs.getLong(prefix + "when"), 0, ZoneOffset.ofHours(0)));
-                        
-                        assertion.setOpinion(opinion);
-                    }
-                }
-                
-                assertions.add(assertion);
+                assertions.add(toAssertion(rs));
             }
             //long end = System.currentTimeMillis();
             
             rs.close();
-            pstmt.close();
             
             /*
             System.out.println("getAssertions(" + 
@@ -262,13 +244,62 @@ public class AssertionPoolSqlite extends AssertionPool {
         });
     }
     
-    //copy of getAssertions (2021-11-16) but with count modification
+    //like getAssertions but with count modification
     public long getCount(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
         //SELECT
         
+        //a node that is not in the dictionary can not be part of an assertion
+        int[] ids = getTermIds(subject, predicate, object);
+        if(ids == null) {
+            return 0L;
+        }
+        
+        String shape = getShape(subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+        
+        return readConnectionPool.supply((c, cache) -> {
+        
+            PreparedStatement pstmt = cache.get(tablename + "/count" + shape, () -> {
+                return getAssertionsQuery("SELECT COUNT(*)", subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+            });
+            
+            setAssertionsParameters(pstmt, ids, subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+            
+            ResultSet rs = pstmt.executeQuery();
+            
+            long count = -1;
+            if(rs.next()) {
+                //count value
+                count = rs.getLong(1);
+            }
+            
+            rs.close();
+            
+            return count;
+        });
+    }
+    
+    /**
+     * The shape of a query states which filters are used.
+     * There is only a small set of shapes, so one prepared statement per shape is cached.
+     */
+    private static String getShape(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
+        StringBuilder sb = new StringBuilder("(");
+        sb.append(subject != null ? 's' : '_');
+        sb.append(predicate != null ? 'p' : '_');
+        sb.append(object != null ? 'o' : '_');
+        sb.append(phase != null ? 'f' : '_');
+        sb.append(',');
+        sb.append(intel != null ? intel.name() : "__");
+        sb.append(name != null ? 'n' : '_');
+        sb.append(rating != null ? 'r' : '_');
+        sb.append(confidenceThreshold > 0 ? 'c' : '_');
+        sb.append(')');
+        return sb.toString();
+    }
+    
+    private static String getAssertionsQuery(String select, Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
         StringBuilder querySB = new StringBuilder();
-        querySB.append("SELECT COUNT(*) FROM \"Assertion\"\n");
-        querySB.append("WHERE\n");
+        querySB.append(select + " FROM \"Assertion\"\n");
         
         StringJoiner whereJoiner = new StringJoiner(" AND ");
         if(subject != null) {
@@ -296,13 +327,10 @@ public class AssertionPoolSqlite extends AssertionPool {
             m.put("ni_", new StringJoiner(" AND "));
             m.put("ai_", new StringJoiner(" AND "));
 
-            List<String> prefixes = new ArrayList<>(Arrays.asList("ni_", "ai_"));
             if(intel != null) {
                 if(intel == Intelligence.AI) {
-                    prefixes.remove("ni_");
                     m.remove("ni_");
                 } else if(intel == Intelligence.NI) {
-                    prefixes.remove("ai_");
                     m.remove("ai_");
                 }
             }
@@ -335,166 +363,311 @@ public class AssertionPoolSqlite extends AssertionPool {
             whereJoiner.add(orJoiner.toString());
         }
         
-        querySB.append(whereJoiner.toString());
+        if(whereJoiner.length() > 0) {
+            querySB.append("WHERE\n");
+            querySB.append(whereJoiner.toString());
+        }
         
         //System.out.println(querySB);
         
-        return SQLiteUtility.supply(connection, c -> {
-        
-            //System.out.println("------------");
-            //System.out.println(querySB.toString());
-            //System.out.println("------------");
-            
-            PreparedStatement pstmt = c.prepareStatement(querySB.toString());
-        
-            int paramIndex = 1;
+        return querySB.toString();
+    }
+    
+    private static void setAssertionsParameters(PreparedStatement pstmt, int[] ids, Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) throws SQLException {
+        int paramIndex = 1;
             
-            if(subject != null) {
-                pstmt.setString(paramIndex++, subject.getURI());
+        if(subject != null) {
+            pstmt.setInt(paramIndex++, ids[0]);
+        }
+        if(predicate != null) {
+            pstmt.setInt(paramIndex++, ids[1]);
+        }
+        if(object != null) {
+            pstmt.setInt(paramIndex++, ids[2]);
+        }
+        if(phase != null) {
+            pstmt.setInt(paramIndex++, phase.ordinal());
+        }
+
+        //if intel == null we have to fill both, so '2'
+        for(int i = 0; i < (intel == null ? 2 : 1); i++) {
+            if(name != null) {
+                pstmt.setString(paramIndex++, name);
             }
-            if(predicate != null) {
-                pstmt.setString(paramIndex++, predicate.getURI());
+            if(rating != null) {
+                pstmt.setInt(paramIndex++, rating.ordinal());
             }
-            if(object != null) {
-                pstmt.setString(paramIndex++, toString(object));
+            if(confidenceThreshold > 0) {
+                pstmt.setDouble(paramIndex++, confidenceThreshold);
             }
-            if(phase != null) {
-                pstmt.setString(paramIndex++, phase.toString());
+        }
+    }
+    
+    @Override
+    public List<Assertion> getAssertionsIn(Property predicate, List<RDFNode> objects, Phase phase) {
+        //SELECT
+        
+        Integer predicateId = predicate == null ? null : node2id.get(predicate.asNode());
+        if(predicate != null && predicateId == null) {
+            return new ArrayList<>();
+        }
+        
+        //objects that are not in the dictionary can not be found
+        List<Integer> objectIds = new ArrayList<>();
+        for(RDFNode node : objects) {
+            Integer objectId = node2id.get(node.asNode());
+            if(objectId != null) {
+                objectIds.add(objectId);
             }
+        }
+        
+        List<Assertion> assertions = new ArrayList<>();
+        
+        //in chunks so that the number of shapes stays small
+        for(int from = 0; from < objectIds.size(); from += IN_CHUNK_SIZE) {
+            List<Integer> chunk = objectIds.subList(from, Math.min(objectIds.size(), from + IN_CHUNK_SIZE));
+            assertions.addAll(getAssertionsIn(predicateId, chunk, phase));
+        }
+        
+        return assertions;
+    }
+    
+    private List<Assertion> getAssertionsIn(Integer predicateId, List<Integer> objectIds, Phase phase) {
+        
+        int n = getQuestionmarks(objectIds.size());
+        
+        String shape = "(" + (predicateId != null ? 'p' : '_') + (phase != null ? 'f' : '_') + "," + n + ")";
+        
+        return readConnectionPool.supply((c, cache) -> {
+        
+            List<Assertion> assertions = new ArrayList<>();
             
-            //if intel == null we have to fill both, so '2'
-            for(int i = 0; i < (intel == null ? 2 : 1); i++) {
-                if(name != null) {
-                    pstmt.setString(paramIndex++, name);
+            PreparedStatement pstmt = cache.get(tablename + "/in" + shape, () -> {
+                StringBuilder querySB = new StringBuilder();
+                querySB.append("SELECT * FROM \"Assertion\"\n");
+                querySB.append("WHERE\n");
+
+                StringJoiner whereJoiner = new StringJoiner(" AND ");
+                if(predicateId != null) {
+                    whereJoiner.add("p = ?");
                 }
-                if(rating != null) {
-                    pstmt.setString(paramIndex++, rating.toString());
+                if(phase != null) {
+                    whereJoiner.add("phase = ?");
                 }
-                if(confidenceThreshold > 0) {
-                    pstmt.setDouble(paramIndex++, confidenceThreshold);
+                StringJoiner inJoiner = new StringJoiner(",", "(", ")");
+                for(int i = 0; i < n; i++) {
+                    inJoiner.add("?");
                 }
-            }
-            
+                whereJoiner.add("o IN " + inJoiner.toString());
+
+                querySB.append(whereJoiner.toString());
+                
+                return querySB.toString();
+            });
+        
+            int paramIndex = 1;
             
-            //long begin = System.currentTimeMillis();
-            java.sql.ResultSet rs = pstmt.executeQuery();
+            if(predicateId != null) {
+                pstmt.setInt(paramIndex++, predicateId);
+            }
+            if(phase != null) {
+                pstmt.setInt(paramIndex++, phase.ordinal());
+            }
+            for(int i = 0; i < n; i++) {
+                pstmt.setInt(paramIndex++, objectIds.get(Math.min(i, objectIds.size() - 1)));
+            }
             
-            //List<String> prefixes = new ArrayList<>(Arrays.asList("ni_", "ai_"));
+            ResultSet rs = pstmt.executeQuery();
             
-            long count = -1;
-            if(rs.next()) {
-                //count value
-                count = rs.getLong(1);
+            while(rs.next()) {
+                assertions.add(toAssertion(rs));
             }
             
-            //long end = System.currentTimeMillis();
-            
             rs.close();
-            pstmt.close();
-            
-            /*
-            System.out.println("getAssertions(" + 
-                    Arrays.asList(subject, predicate, object, phase, intel, name, rating, confidenceThreshold) + ") took " + 
-                    (end - begin) + " ms with " + assertions.size() + " entries"
-            );
-            */
             
-            return count;
+            return assertions;
         });
     }
     
+    //the number of question marks is the next power of two, the last id fills the rest
+    private static int getQuestionmarks(int size) {
+        int questionmarks = Integer.highestOneBit(size);
+        if(questionmarks < size) {
+            questionmarks <<= 1;
+        }
+        return questionmarks;
+    }
     
     @Override
-    public List<Assertion> getAssertionsIn(Property predicate, List<RDFNode> objects, Phase phase) {
+    public Map<Resource, List<Assertion>> getAssertionsOfSubjects(Collection<Resource> subjects, Property predicate, RDFNode object, Phase phase, Rating rating) {
         //SELECT
         
-        StringBuilder querySB = new StringBuilder();
-        querySB.append("SELECT * FROM \"Assertion\"\n");
-        querySB.append("WHERE\n");
+        Map<Resource, List<Assertion>> subject2assertions = new LinkedHashMap<>();
         
-        StringJoiner whereJoiner = new StringJoiner(" AND ");
-        if(predicate != null) {
-            whereJoiner.add("p = ?");
+        int[] ids = getTermIds(null, predicate, object);
+        if(ids == null) {
+            return subject2assertions;
         }
-        if(phase != null) {
-            whereJoiner.add("phase = ?");
+        Integer predicateId = predicate == null ? null : ids[1];
+        Integer objectId = object == null ? null : ids[2];
+        
+        //subjects that are not in the dictionary have no assertions
+        List<Integer> subjectIds = new ArrayList<>();
+        for(Resource subject : new LinkedHashSet<>(subjects)) {
+            Integer subjectId = node2id.get(subject.asNode());
+            if(subjectId != null) {
+                subjectIds.add(subjectId);
+            }
         }
-        StringJoiner inJoiner = new StringJoiner(",", "(", ")");
-        for(RDFNode node : objects) {
-            inJoiner.add("?");
+        
+        //in chunks so that the number of shapes stays small
+        for(int from = 0; from < subjectIds.size(); from += IN_CHUNK_SIZE) {
+            List<Integer> chunk = subjectIds.subList(from, Math.min(subjectIds.size(), from + IN_CHUNK_SIZE));
+            for(Assertion assertion : getAssertionsOfSubjects(chunk, predicateId, objectId, phase, rating)) {
+                subject2assertions.computeIfAbsent(assertion.getSubject(), sub -> new ArrayList<>()).add(assertion);
+            }
         }
-        whereJoiner.add("o IN " + inJoiner.toString());
         
-        querySB.append(whereJoiner.toString());
+        return subject2assertions;
+    }
+    
+    private List<Assertion> getAssertionsOfSubjects(List<Integer> subjectIds, Integer predicateId, Integer objectId, Phase phase, Rating rating) {
+        
+        int n = getQuestionmarks(subjectIds.size());
         
-        //System.out.println(querySB);
+        String shape = "(" + (predicateId != null ? 'p' : '_') + (objectId != null ? 'o' : '_') + (phase != null ? 'f' : '_') + (rating != null ? 'r' : '_') + "," + n + ")";
         
-        return SQLiteUtility.supply(connection, c -> {
+        return readConnectionPool.supply((c, cache) -> {
         
             List<Assertion> assertions = new ArrayList<>();
             
-            //System.out.println("------------");
-            //System.out.println(querySB.toString());
-            //System.out.println("------------");
-            
-            PreparedStatement pstmt = c.prepareStatement(querySB.toString());
+            PreparedStatement pstmt = cache.get(tablename + "/subjects" + shape, () -> {
+                StringBuilder querySB = new StringBuilder();
+                querySB.append("SELECT * FROM \"Assertion\"\n");
+                querySB.append("WHERE\n");
+
+                StringJoiner whereJoiner = new StringJoiner(" AND ");
+                StringJoiner inJoiner = new StringJoiner(",", "(", ")");
+                for(int i = 0; i < n; i++) {
+                    inJoiner.add("?");
+                }
+                whereJoiner.add("s IN " + inJoiner.toString());
+                if(predicateId != null) {
+                    whereJoiner.add("p = ?");
+                }
+                if(objectId != null) {
+                    whereJoiner.add("o = ?");
+                }
+                if(phase != null) {
+                    whereJoiner.add("phase = ?");
+                }
+                //the rating of the primary opinion, like in getAssertionsQuery
+                if(rating != null) {
+                    whereJoiner.add("((ni_intelligence IS NOT NULL AND ni_rating = ?) OR (ni_intelligence IS NULL AND ai_intelligence IS NOT NULL AND ai_rating = ?))");
+                }
+
+                querySB.append(whereJoiner.toString());
+                
+                return querySB.toString();
+            });
         
             int paramIndex = 1;
             
-            if(predicate != null) {
-                pstmt.setString(paramIndex++, predicate.getURI());
+            for(int i = 0; i < n; i++) {
+                pstmt.setInt(paramIndex++, subjectIds.get(Math.min(i, subjectIds.size() - 1)));
+            }
+            if(predicateId != null) {
+                pstmt.setInt(paramIndex++, predicateId);
+            }
+            if(objectId != null) {
+                pstmt.setInt(paramIndex++, objectId);
             }
             if(phase != null) {
-                pstmt.setString(paramIndex++, phase.toString());
+                pstmt.setInt(paramIndex++, phase.ordinal());
             }
-            for(RDFNode object : objects) {
-                pstmt.setString(paramIndex++, toString(object));
+            if(rating != null) {
+                pstmt.setInt(paramIndex++, rating.ordinal());
+                pstmt.setInt(paramIndex++, rating.ordinal());
             }
             
-            //long begin = System.currentTimeMillis();
-            java.sql.ResultSet rs = pstmt.executeQuery();
-            
-            List<String> prefixes = new ArrayList<>(Arrays.asList("ni_", "ai_"));
+            ResultSet rs = pstmt.executeQuery();
             
             while(rs.next()) {
-                Assertion assertion = new Assertion();
-                Statement stmt = toStatement(new String[] { rs.getString("s"), rs.getString("p"), rs.getString("o") });
-                assertion.setStatement(stmt);
-                
-                assertion.setPhase(Phase.valueOf(rs.getString("phase")));
-                
-                for(String prefix : prefixes) {
-                    if(rs.getString(prefix + "intelligence") != null) {
-                        Opinion opinion = new Opinion();
-                        
-                        opinion.setIntelligence(prefix.equals("ni_") ? Intelligence.NI : Intelligence.AI);
-                        opinion.setName(rs.getString(prefix + "name"));
-                        opinion.setRating(Rating.valueOf(rs.getString(prefix + "rating")));
-                        opinion.setConfidence(rs.getDouble(prefix + "confidence"));
-                        opinion.setWhen(LocalDateTime.ofEpochSecond(rs.getLong(prefix + "when"), 0, ZoneOffset.ofHours(0)));
-                        
-                        assertion.setOpinion(opinion);
-                    }
-                }
-                
-                assertions.add(assertion);
+                assertions.add(toAssertion(rs));
             }
-            //long end = System.currentTimeMillis();
             
             rs.close();
-            pstmt.close();
-            
-            /*
-            System.out.println("getAssertions(" + 
-                    Arrays.asList(subject, predicate, object, phase, intel, name, rating, confidenceThreshold) + ") took " + 
-                    (end - begin) + " ms with " + assertions.size() + " entries"
-            );
-            */
             
             return assertions;
         });
     }
     
+    @Override
+    public Stream<Assertion> streamAssertions(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
+        return stream("SELECT *", rs -> toAssertion(rs), subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+    }
+    
+    @Override
+    public Stream<Statement> streamStatements(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
+        return stream("SELECT s, p, o", rs -> toStatement(rs), subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+    }
+    
+    @Override
+    public Stream<Resource> streamSubjects(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
+        return stream("SELECT s", rs -> (Resource) id2node.get(rs.getInt("s")), subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+    }
+    
+    @Override
+    public Stream<RDFNode> streamObjects(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
+        return stream("SELECT o", rs -> id2node.get(rs.getInt("o")), subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+    }
+    
+    @Override
+    public Stream<Opinion> streamOpinions(Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
+        String select = "SELECT " + OPINION_COLUMNS;
+        return stream(select, rs -> {
+            //natural one is primary
+            Opinion opinion = toOpinion(rs, "ni_");
+            return opinion != null ? opinion : toOpinion(rs, "ai_");
+        }, subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+    }
+    
+    /**
+     * Streams the rows with a result set iterator of a read connection. The statement 
+     * is prepared for this stream only (not cached) because the cursor stays open until 
+     * the stream is consumed or closed, then the connection is returned to the pool.
+     */
+    private <T> Stream<T> stream(String select, ResultSetMapper<T> mapper, Resource subject, Property predicate, RDFNode object, Phase phase, Intelligence intel, String name, Rating rating, double confidenceThreshold) {
+        
+        //a node that is not in the dictionary can not be part of an assertion
+        int[] ids = getTermIds(subject, predicate, object);
+        if(ids == null) {
+            return Stream.empty();
+        }
+        
+        String query = getAssertionsQuery(select, subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+        
+        ResultSetIterator<T> iter = readConnectionPool.iterate(query, pstmt -> {
+            setAssertionsParameters(pstmt, ids, subject, predicate, object, phase, intel, name, rating, confidenceThreshold);
+        }, rs -> {
+            try {
+                return mapper.map(rs);
+            } catch (SQLException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        
+        Stream<T> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(iter, Spliterator.ORDERED | Spliterator.NONNULL), false);
+        
+        //closing twice (after last row and here) is fine
+        return stream.onClose(() -> iter.close());
+    }
+    
+    private interface ResultSetMapper<T> {
+        
+        public T map(ResultSet rs) throws SQLException;
+        
+    }
     
     @Override
     protected void assertStatement(Statement stmt, Phase phase, Intelligence intel, String name, Rating rating, double confidence, LocalDateTime when) {
@@ -506,35 +679,23 @@ public class AssertionPoolSqlite extends AssertionPool {
         //prepareStatement takes some time
         
         //in bulk mode do not notify
-        boolean notify = false;
+        //otherwise the assertion is staged and on commit it is decided if it is new
+        Assertion assertion = null;
         if(!bulkMode) {
-            //check if it already exists
-            List<Assertion> exists = getAssertions(stmt.getSubject(), stmt.getPredicate(), stmt.getObject(), phase, intel, name, rating, confidence);
-            //only if not exists do notify as new assertion 
-            notify = exists.isEmpty();
-        }
-        //nofiy if the statement is new
-        if(notify) {
-            //create an object for it to put it in the assertion buffer, on commit it is in notification buffer
-            Assertion assertion = new Assertion();
+            //create an object for it to stage it, on commit it is in notification buffer
+            assertion = new Assertion();
             assertion.setStatement(stmt);
             assertion.setPhase(phase);
             assertion.setOpinion(intel, name, when, rating, confidence);
-
-            //System.out.println("[ASSERT] " + assertion);
-            if(isLogging()) {
-                saveAssertion(assertion, folder);
-            }
-            
-            commitBuffer.add(assertion);
         }
+        Assertion stagedAssertion = assertion;
         
         //UPSERT
-        //if not notify still do upsert to update 'when' time 
+        //if not new still do upsert to update 'when' time 
         
         String query = upsertQuery.replace("${prefix}", intel == Intelligence.AI ? "ai_" : "ni_");
         
-        //create one for batch
+        //create one for batch, it is reused for the next batches
         if(preparedStatements[intel.ordinal()] == null) {
             preparedStatements[intel.ordinal()] = SQLiteUtility.supply(connection, c -> {
                 return c.prepareStatement(query);
@@ -543,20 +704,20 @@ public class AssertionPoolSqlite extends AssertionPool {
         
         /*
         INSERT INTO "Assertion" VALUES (
-            1 ?, -- "s" TEXT,//1
-            2 ?, -- "p" TEXT,//2
-            3 ?, -- "o" TEXT,
-            4 ?, -- "phase" TEXT,
+            1 ?, -- "s" INTEGER,//1
+            2 ?, -- "p" INTEGER,//2
+            3 ?, -- "o" INTEGER,
+            4 ?, -- "phase" INTEGER,
 
-            5 ?, -- "ai_intelligence" TEXT,
+            5 ?, -- "ai_intelligence" INTEGER,
             6 ?, -- "ai_name" TEXT,
-            7 ?, -- "ai_rating" TEXT,
+            7 ?, -- "ai_rating" INTEGER,
             8 ?, -- "ai_confidence" REAL,
             9 ?, -- "ai_when" INTEGER,
 
-            10 ?, -- "ni_intelligence" TEXT,
+            10 ?, -- "ni_intelligence" INTEGER,
             11 ?, -- "ni_name" TEXT,
-            12 ?, -- "ni_rating" TEXT,
+            12 ?, -- "ni_rating" INTEGER,
             13 ?, -- "ni_confidence" REAL,
             14 ?  -- "ni_when" INTEGER,
         )
@@ -577,30 +738,41 @@ public class AssertionPoolSqlite extends AssertionPool {
             setParametersNull(preparedStatement);
             
             //statement and phase
-            String[] array = toStringArray(stmt);
-            preparedStatement.setString(1, array[0]);
-            preparedStatement.setString(2, array[1]);
-            preparedStatement.setString(3, array[2]);
-            preparedStatement.setString(4, phase.toString());
+            StagingKey key = new StagingKey(
+                    getOrCreateTermId(c, stmt.getSubject()),
+                    getOrCreateTermId(c, stmt.getPredicate()),
+                    getOrCreateTermId(c, stmt.getObject())
+            );
+            preparedStatement.setInt(1, key.s);
+            preparedStatement.setInt(2, key.p);
+            preparedStatement.setInt(3, key.o);
+            preparedStatement.setInt(4, phase.ordinal());
             
             //insert into opinion
             int paramIndex = intel == Intelligence.AI ? 5 : 10;
-            preparedStatement.setString(paramIndex + 0, intel.toString());
+            preparedStatement.setInt   (paramIndex + 0, intel.ordinal());
             preparedStatement.setString(paramIndex + 1, name);
-            preparedStatement.setString(paramIndex + 2, rating.toString());
+            preparedStatement.setInt   (paramIndex + 2, rating.ordinal());
             preparedStatement.setDouble(paramIndex + 3, confidence);
             preparedStatement.setLong  (paramIndex + 4, when.toEpochSecond(ZoneOffset.ofHours(0)));
             
             //ON CONFLICT(s, p, o) DO UPDATE SET
-            preparedStatement.setString(15, intel.toString());
+            preparedStatement.setInt   (15, intel.ordinal());
             preparedStatement.setString(16, name);
-            preparedStatement.setString(17, rating.toString());
+            preparedStatement.setInt   (17, rating.ordinal());
             preparedStatement.setDouble(18, confidence);
             preparedStatement.setLong  (19, when.toEpochSecond(ZoneOffset.ofHours(0)));
             
             //only add to batch
             //execute and commit comes in the save() method
             preparedStatement.addBatch();
+            batchPending = true;
+            
+            //like before every assert is compared with the stored row (the batch is not executed yet),
+            //so a statement asserted several times is notified several times
+            if(stagedAssertion != null) {
+                staging.add(new SimpleEntry<>(key, stagedAssertion));
+            }
             
             //connection.setAutoCommit(true);
         });
@@ -609,19 +781,24 @@ public class AssertionPoolSqlite extends AssertionPool {
     //use this when you want to merge something
     @Override
     public void removeAllAbout(Resource resource) {
-        String query = getQuery(QUERY_PATH + "DeleteAssertion.sql");
+        //not in the dictionary means there is nothing about it
+        Integer id = node2id.get(resource.asNode());
+        if(id == null) {
+            return;
+        }
         
         SQLiteUtility.run(connection, c -> {
             
-            PreparedStatement pstmt = c.prepareStatement(query);
-            pstmt.setString(1, resource.getURI());
-            pstmt.setString(2, "<" + resource.getURI() + ">");
+            PreparedStatement pstmt = statementCache.get("removeAllAbout", () -> getQuery(QUERY_PATH + "DeleteAssertion.sql"));
+            pstmt.setInt(1, id);
+            pstmt.setInt(2, id);
             
             pstmt.executeUpdate();
-            pstmt.close();
             
             c.commit();
         });
+        
+        notifyRemovedAllAbout(resource);
     }
     
     private void setParametersNull(PreparedStatement ps) throws SQLException {
@@ -635,10 +812,20 @@ public class AssertionPoolSqlite extends AssertionPool {
     @Override
     public void commit() {
         
-        if(preparedStatements[Intelligence.AI.ordinal()] != null ||
-           preparedStatements[Intelligence.NI.ordinal()] != null) {
+        if(batchPending) {
             SQLiteUtility.run(connection, c -> {
                 //c.setAutoCommit(false);
+                
+                //has to be done before the batch changes the rows
+                commitBuffer.addAll(getChangedStaged(c));
+                
+                //new terms first
+                if(!pendingTerms.isEmpty()) {
+                    termInsertStatement.executeBatch();
+                }
+                pendingTerms.clear();
+                committedTermIdLimit = nextTermId;
+                
                 for(Intelligence intel : Intelligence.values()) {
                     if(preparedStatements[intel.ordinal()] != null) {
                         preparedStatements[intel.ordinal()].executeBatch();
@@ -646,13 +833,7 @@ public class AssertionPoolSqlite extends AssertionPool {
                 }
                 
                 c.commit();
-                
-                for(Intelligence intel : Intelligence.values()) {
-                    if(preparedStatements[intel.ordinal()] != null) {
-                        preparedStatements[intel.ordinal()].close();
-                        preparedStatements[intel.ordinal()] = null;
-                    }
-                }
+                batchPending = false;
                 
                 //c.setAutoCommit(true);
             });
@@ -664,25 +845,42 @@ public class AssertionPoolSqlite extends AssertionPool {
     
     @Override
     public void rollback() {
-        if(preparedStatements[Intelligence.AI.ordinal()] != null ||
-           preparedStatements[Intelligence.NI.ordinal()] != null) {
+        if(batchPending) {
             SQLiteUtility.run(connection, c -> {
                 for(Intelligence intel : Intelligence.values()) {
                     if(preparedStatements[intel.ordinal()] != null) {
-                        preparedStatements[intel.ordinal()].close();
-                        preparedStatements[intel.ordinal()] = null;
+                        preparedStatements[intel.ordinal()].clearBatch();
                     }
                 }
+                if(termInsertStatement != null) {
+                    termInsertStatement.clearBatch();
+                }
+                //forget the ids that were never persisted
+                for(Node node : pendingTerms) {
+                    Integer id = node2id.remove(node);
+                    id2node.remove(id);
+                    id2property.remove(id);
+                }
+                nextTermId -= pendingTerms.size();
+                pendingTerms.clear();
+                staging.clear();
+                
                 c.rollback();
+                batchPending = false;
             });
             commitBuffer.clear();
         }
     }
 
     private String getQuery(String path) {
+        String cached = path2query.get(path);
+        if(cached != null) {
+            return cached;
+        }
         try {
             String query = IOUtils.toString(getClass().getResourceAsStream(path), StandardCharsets.UTF_8);
             query = query.replace("${tablename}", tablename);
+            path2query.put(path, query);
             return query;
         } catch (IOException ex) {
             throw new RuntimeException(ex);
@@ -693,12 +891,114 @@ public class AssertionPoolSqlite extends AssertionPool {
         return new File(folder, "data.sqlite");
     }
     
-    private static String[] toStringArray(Statement stmt) {
-        return new String[] {
-            stmt.getSubject().getURI(),
-            stmt.getPredicate().getURI(),
-            toString(stmt.getObject())
-        };
+    //term dictionary
+    
+    private void loadTerms() {
+        String query = getQuery(QUERY_PATH + "SelectTerms.sql");
+        
+        SQLiteUtility.run(connection, c -> {
+            PreparedStatement pstmt = c.prepareStatement(query);
+            ResultSet rs = pstmt.executeQuery();
+            while(rs.next()) {
+                int id = rs.getInt(1);
+                putTerm(id, toRDFNode(NodeFactoryExtra.parseNode(rs.getString(2))));
+                nextTermId = Math.max(nextTermId, id + 1);
+            }
+            rs.close();
+            pstmt.close();
+        });
+    }
+    
+    private void putTerm(int id, RDFNode rdfNode) {
+        id2node.put(id, rdfNode);
+        node2id.put(rdfNode.asNode(), id);
+    }
+    
+    //returns null if one of the given nodes is not in the dictionary
+    private int[] getTermIds(Resource subject, Property predicate, RDFNode object) {
+        int[] ids = new int[3];
+        RDFNode[] nodes = new RDFNode[] { subject, predicate, object };
+        for(int i = 0; i < nodes.length; i++) {
+            if(nodes[i] == null) {
+                continue;
+            }
+            Integer id = node2id.get(nodes[i].asNode());
+            if(id == null) {
+                return null;
+            }
+            ids[i] = id;
+        }
+        return ids;
+    }
+    
+    //call it only synchronized on connection, the term is persisted on commit
+    private int getOrCreateTermId(Connection c, RDFNode rdfNode) throws SQLException {
+        Integer id = node2id.get(rdfNode.asNode());
+        if(id != null) {
+            return id;
+        }
+        
+        id = nextTermId++;
+        
+        if(termInsertStatement == null) {
+            termInsertStatement = c.prepareStatement(insertTermQuery);
+        }
+        termInsertStatement.setInt(1, id);
+        termInsertStatement.setString(2, toString(rdfNode));
+        termInsertStatement.addBatch();
+        
+        //without model like the parsed ones
+        putTerm(id, toRDFNode(rdfNode.asNode()));
+        pendingTerms.add(rdfNode.asNode());
+        
+        return id;
+    }
+    
+    private Property getProperty(int id) {
+        return id2property.computeIfAbsent(id, i -> ResourceFactory.createProperty(((Resource) id2node.get(i)).getURI()));
+    }
+    
+    private Statement toStatement(ResultSet rs) throws SQLException {
+        return ResourceFactory.createStatement(
+                (Resource) id2node.get(rs.getInt("s")), 
+                getProperty(rs.getInt("p")), 
+                id2node.get(rs.getInt("o"))
+        );
+    }
+    
+    private Assertion toAssertion(ResultSet rs) throws SQLException {
+        Assertion assertion = new Assertion();
+        
+        assertion.setStatement(toStatement(rs));
+        
+        assertion.setPhase(PHASES[rs.getInt("phase")]);
+        
+        for(String prefix : Arrays.asList("ni_", "ai_")) {
+            Opinion opinion = toOpinion(rs, prefix);
+            if(opinion != null) {
+                assertion.setOpinion(opinion);
+            }
+        }
+        
+        return assertion;
+    }
+    
+    //returns null if there is no opinion with this prefix
+    private static Opinion toOpinion(ResultSet rs, String prefix) throws SQLException {
+        int intelligence = rs.getInt(prefix + "intelligence");
+        if(rs.wasNull()) {
+            return null;
+        }
+
+        Opinion opinion = new Opinion();
+
+        opinion.setIntelligence(INTELLIGENCES[intelligence]);
+        opinion.setName(rs.getString(prefix + "name"));
+        opinion.setRating(RATINGS[rs.getInt(prefix + "rating")]);
+        opinion.setConfidence(rs.getDouble(prefix + "confidence"));
+        opinion.setWhen(LocalDateTime.ofEpochSecond(rs.getLong(prefix + "when"), 0, ZoneOffset.ofHours(0)));
+        
+        return opinion;
     }
     
     private static String toString(RDFNode rdfNode) {
@@ -706,6 +1006,249 @@ public class AssertionPoolSqlite extends AssertionPool {
         return (r?"<":"") + rdfNode.asNode().toString(true) + (r?">":"");
     }
     
+    private static RDFNode toRDFNode(Node node) {
+        if(node.isLiteral()) {
+            return new LiteralImpl(node, null);
+        }
+        return new ResourceImpl(node, null);
+    }
+    
+    //staging
+    
+    /**
+     * Compares the staged assertions with the stored rows and returns the ones 
+     * that are new. All stored rows are fetched with one join on a temporary 
+     * table of the staged statements. Clears the staged assertions.
+     */
+    private List<Assertion> getChangedStaged(Connection c) throws SQLException {
+        List<Assertion> changed = new ArrayList<>();
+        if(staging.isEmpty()) {
+            return changed;
+        }
+        
+        Map<StagingKey, Assertion> stored = new HashMap<>();
+        
+        PreparedStatement delete = statementCache.get("deleteStaging", () -> getQuery(QUERY_PATH + "DeleteStaging.sql"));
+        delete.executeUpdate();
+        
+        boolean lookup = false;
+        PreparedStatement insert = statementCache.get("insertStaging", () -> getQuery(QUERY_PATH + "InsertStaging.sql"));
+        Set<StagingKey> keys = new LinkedHashSet<>();
+        for(Entry<StagingKey, Assertion> entry : staging) {
+            keys.add(entry.getKey());
+        }
+        for(StagingKey key : keys) {
+            //a statement with a term of this batch can not be stored already
+            if(key.s >= committedTermIdLimit || key.p >= committedTermIdLimit || key.o >= committedTermIdLimit) {
+                continue;
+            }
+            insert.setInt(1, key.s);
+            insert.setInt(2, key.p);
+            insert.setInt(3, key.o);
+            insert.addBatch();
+            lookup = true;
+        }
+        if(lookup) {
+            insert.executeBatch();
+        }
+        
+        if(lookup) {
+            PreparedStatement select = statementCache.get("selectStaged", () -> getQuery(QUERY_PATH + "SelectStaged.sql"));
+            ResultSet rs = select.executeQuery();
+            while(rs.next()) {
+                stored.put(new StagingKey(rs.getInt("s"), rs.getInt("p"), rs.getInt("o")), toAssertion(rs));
+            }
+            rs.close();
+        }
+        
+        for(Entry<StagingKey, Assertion> entry : staging) {
+            Assertion assertion = entry.getValue();
+            if(isStored(assertion, stored.get(entry.getKey()))) {
+                continue;
+            }
+            
+            //System.out.println("[ASSERT] " + assertion);
+            if(isLogging()) {
+                saveAssertion(assertion, folder);
+            }
+            
+            changed.add(assertion);
+        }
+        
+        staging.clear();
+        
+        return changed;
+    }
+    
+    //same condition as the getAssertions query that was used before to check existence
+    private static boolean isStored(Assertion staged, Assertion stored) {
+        if(stored == null || stored.getPhase() != staged.getPhase()) {
+            return false;
+        }
+        
+        Intelligence intel = staged.getIntelligence();
+        
+        //an artifical opinion only counts when there is no natural one
+        if(intel == Intelligence.AI && stored.hasNaturalOpinion()) {
+            return false;
+        }
+        
+        Opinion storedOpinion = stored.getOpinion(intel);
+        if(storedOpinion == null) {
+            return false;
+        }
+        
+        Opinion stagedOpinion = staged.getOpinion(intel);
+        return storedOpinion.getName().equals(stagedOpinion.getName()) &&
+               storedOpinion.getRating() == stagedOpinion.getRating() &&
+               (stagedOpinion.getConfidence() <= 0 || storedOpinion.getConfidence() >= stagedOpinion.getConfidence());
+    }
+    
+    private static class StagingKey {
+        
+        private final int s;
+        private final int p;
+        private final int o;
+
+        public StagingKey(int s, int p, int o) {
+            this.s = s;
+            this.p = p;
+            this.o = o;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 31 * hash + s;
+            hash = 31 * hash + p;
+            hash = 31 * hash + o;
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final StagingKey other = (StagingKey) obj;
+            return s == other.s && p == other.p && o == other.o;
+        }
+        
+    }
+    
+    //migration of pools where s, p, o, phase and the opinions are stored as text
+    
+    private boolean hasTextSchema() {
+        return SQLiteUtility.supply(connection, c -> {
+            boolean text = false;
+            PreparedStatement pstmt = c.prepareStatement("PRAGMA table_info(\"" + tablename + "\")");
+            ResultSet rs = pstmt.executeQuery();
+            while(rs.next()) {
+                if(rs.getString("name").equals("s")) {
+                    text = rs.getString("type").equalsIgnoreCase("TEXT");
+                }
+            }
+            rs.close();
+            pstmt.close();
+            return text;
+        });
+    }
+    
+    private boolean hasRenamedTextSchema() {
+        return SQLiteUtility.supply(connection, c -> {
+            PreparedStatement pstmt = c.prepareStatement("SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?");
+            pstmt.setString(1, tablename + "_text");
+            ResultSet rs = pstmt.executeQuery();
+            boolean exists = rs.next();
+            rs.close();
+            pstmt.close();
+            return exists;
+        });
+    }
+    
+    //the copy and the drop of the text table are in one transaction (with INSERT OR IGNORE), so it can be resumed
+    private void renameTextSchema() {
+        //index names are global, so they are dropped to be created again for the new table
+        for(String index : Arrays.asList("sp", "po", "p")) {
+            SQLiteUtility.execute(connection, "DROP INDEX IF EXISTS \"" + index + "\"");
+        }
+        SQLiteUtility.execute(connection, "ALTER TABLE \"" + tablename + "\" RENAME TO \"" + tablename + "_text\"");
+    }
+    
+    private void migrateTextSchema() {
+        StringJoiner questionmarks = new StringJoiner(",");
+        for(int i = 0; i < 14; i++) {
+            questionmarks.add("?");
+        }
+        String insertQuery = "INSERT OR IGNORE INTO \"" + tablename + "\" VALUES (" + questionmarks + ")";
+        
+        SQLiteUtility.run(connection, c -> {
+            c.setAutoCommit(false);
+            
+            PreparedStatement select = c.prepareStatement("SELECT * FROM \"" + tablename + "_text\"");
+            PreparedStatement insert = c.prepareStatement(insertQuery);
+            
+            ResultSet rs = select.executeQuery();
+            int count = 0;
+            while(rs.next()) {
+                Statement stmt = toStatement(new String[] { rs.getString("s"), rs.getString("p"), rs.getString("o") });
+                
+                insert.setInt(1, getOrCreateTermId(c, stmt.getSubject()));
+                insert.setInt(2, getOrCreateTermId(c, stmt.getPredicate()));
+                insert.setInt(3, getOrCreateTermId(c, stmt.getObject()));
+                insert.setInt(4, Phase.valueOf(rs.getString("phase")).ordinal());
+                
+                int paramIndex = 5;
+                for(String prefix : Arrays.asList("ai_", "ni_")) {
+                    String intelligence = rs.getString(prefix + "intelligence");
+                    if(intelligence == null) {
+                        for(int i = 0; i < 5; i++) {
+                            insert.setNull(paramIndex + i, Types.INTEGER);
+                        }
+                    } else {
+                        insert.setInt   (paramIndex + 0, Intelligence.valueOf(intelligence).ordinal());
+                        insert.setString(paramIndex + 1, rs.getString(prefix + "name"));
+                        insert.setInt   (paramIndex + 2, Rating.valueOf(rs.getString(prefix + "rating")).ordinal());
+                        insert.setDouble(paramIndex + 3, rs.getDouble(prefix + "confidence"));
+                        insert.setLong  (paramIndex + 4, rs.getLong(prefix + "when"));
+                    }
+                    paramIndex += 5;
+                }
+                insert.addBatch();
+                
+                //keep the batch small
+                if(++count % 100000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            rs.close();
+            select.close();
+            
+            insert.executeBatch();
+            insert.close();
+            
+            if(!pendingTerms.isEmpty()) {
+                termInsertStatement.executeBatch();
+            }
+            pendingTerms.clear();
+            
+            PreparedStatement drop = c.prepareStatement("DROP TABLE \"" + tablename + "_text\"");
+            drop.execute();
+            drop.close();
+            
+            c.commit();
+            
+            //give the space of the text table back
+            c.setAutoCommit(true);
+            PreparedStatement vacuum = c.prepareStatement("VACUUM");
+            vacuum.execute();
+            vacuum.close();
+        });
+    }
+    
     private static Statement toStatement(String[] array) {
         Node obj = NodeFactoryExtra.parseNode(array[2]);
 
@@ -718,13 +1261,6 @@ public class AssertionPoolSqlite extends AssertionPool {
         return stmt;
     }
     
-    private static RDFNode toRDFNode(Node node) {
-        if(node.isLiteral()) {
-            return new LiteralImpl(node, null);
-        }
-        return new ResourceImpl(node, null);
-    }
-    
     private static final Object syncPoint = new Object();
     
     private void saveAssertion(Assertion assertion, File folder) {
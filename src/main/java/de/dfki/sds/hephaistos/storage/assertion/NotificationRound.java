@@ -0,0 +1,78 @@
+package de.dfki.sds.hephaistos.storage.assertion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metrics of one round in {@link AssertionPool#notifyListenersRecursively}:
+ * how many changes were dispatched, the slice size and time per listener and the commit time.
+ */
+public class NotificationRound {
+
+    private int round;
+    private int changes;
+    private long indexMillis;
+    private long commitMillis;
+
+    //listener class name to its slice size and time
+    private Map<String, Integer> listener2slice;
+    private Map<String, Long> listener2millis;
+
+    public NotificationRound(int round, int changes) {
+        this.round = round;
+        this.changes = changes;
+        this.listener2slice = new LinkedHashMap<>();
+        this.listener2millis = new LinkedHashMap<>();
+    }
+
+    public void addListener(String listener, int slice, long millis) {
+        listener2slice.merge(listener, slice, Integer::sum);
+        listener2millis.merge(listener, millis, Long::sum);
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getChanges() {
+        return changes;
+    }
+
+    public long getIndexMillis() {
+        return indexMillis;
+    }
+
+    public void setIndexMillis(long indexMillis) {
+        this.indexMillis = indexMillis;
+    }
+
+    public long getCommitMillis() {
+        return commitMillis;
+    }
+
+    public void setCommitMillis(long commitMillis) {
+        this.commitMillis = commitMillis;
+    }
+
+    public Map<String, Integer> getListenerSlices() {
+        return listener2slice;
+    }
+
+    public Map<String, Long> getListenerMillis() {
+        return listener2millis;
+    }
+
+    public long getTotalMillis() {
+        long sum = indexMillis + commitMillis;
+        for (long ms : listener2millis.values()) {
+            sum += ms;
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationRound{" + "round=" + round + ", changes=" + changes + ", indexMillis=" + indexMillis + ", commitMillis=" + commitMillis + ", slices=" + listener2slice + ", millis=" + listener2millis + '}';
+    }
+
+}
@@ -18,6 +18,11 @@ public class FileInfo implements StorageItem {
     
     private String name;
     private String path;
+    //e.g. urn:file:42
+    private String uri;
+    //name without extension (for files)
+    private String basename;
+    //optional extras as json
     private String meta;
     
     private FileTime lastModifiedTime; 	
@@ -147,6 +152,22 @@ public class FileInfo implements StorageItem {
         this.content = content;
     }
 
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public String getBasename() {
+        return basename;
+    }
+
+    public void setBasename(String basename) {
+        this.basename = basename;
+    }
+
     public String getMeta() {
         return meta;
     }
@@ -0,0 +1,312 @@
+package de.dfki.sds.hephaistos.storage.file;
+
+import de.dfki.sds.hephaistos.storage.StorageItem;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only, columnar copy of a {@link FileInfoStorage} tree in memory.
+ * Every node is a row, the columns are arrays. The children of a row are stored
+ * compressed (CSR): children[childOffsets[row] .. childOffsets[row + 1]) holds
+ * first the branch children and from leafOffsets[row] on the leaf children, both ordered by sort.
+ * Names and basenames are interned because many files share them.
+ * The snapshot does not see changes of the storage, so build a new one after changes.
+ *
+ */
+public class FileInfoSnapshot {
+
+    private static final int ROOT_ID = 1;
+    private static final byte BRANCH_TYPE = 0;
+
+    //id to row, -1 if the id is not in the snapshot
+    private int[] id2row;
+
+    private int[] ids;
+    private int[] parentRows;
+    private int[] parents;
+    private int[] sorts;
+    private byte[] types;
+
+    private String[] names;
+    private String[] basenames;
+    private String[] uris;
+    private String[] paths;
+    private String[] metas;
+
+    private long[] lastModifiedTimes;
+    private long[] lastAccessTimes;
+    private long[] creationTimes;
+    private long[] sizes;
+    private BitSet symbolicLinks;
+
+    private int[] childOffsets;
+    private int[] leafOffsets;
+    private int[] children;
+
+    /**
+     * Reads the whole tree (root first) from the storage.
+     * @param storage
+     * @return
+     */
+    public static FileInfoSnapshot create(FileInfoStorage storage) {
+        List<FileInfo> rows = new ArrayList<>();
+        rows.add(storage.getRoot());
+        for (StorageItem item : storage.getTreeIter(storage.getRoot())) {
+            rows.add((FileInfo) item);
+        }
+        //rows in id order
+        rows.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        return new FileInfoSnapshot(rows);
+    }
+
+    public FileInfoSnapshot(List<FileInfo> rows) {
+        int n = rows.size();
+
+        ids = new int[n];
+        parents = new int[n];
+        parentRows = new int[n];
+        sorts = new int[n];
+        types = new byte[n];
+        names = new String[n];
+        basenames = new String[n];
+        uris = new String[n];
+        paths = new String[n];
+        metas = new String[n];
+        lastModifiedTimes = new long[n];
+        lastAccessTimes = new long[n];
+        creationTimes = new long[n];
+        sizes = new long[n];
+        symbolicLinks = new BitSet(n);
+
+        Map<String, String> interner = new HashMap<>();
+
+        int maxId = 0;
+        for (int row = 0; row < n; row++) {
+            FileInfo fi = rows.get(row);
+            ids[row] = fi.getId();
+            parents[row] = fi.getParent();
+            sorts[row] = fi.getSort();
+            types[row] = (byte) (fi.isDirectory() ? BRANCH_TYPE : 1);
+            names[row] = intern(interner, fi.getName());
+            paths[row] = fi.getPath();
+            metas[row] = fi.getMeta();
+            uris[row] = fi.getUri();
+            basenames[row] = intern(interner, fi.getBasename());
+            lastModifiedTimes[row] = fi.getLastModifiedTimeMillis();
+            lastAccessTimes[row] = fi.getLastAccessTimeMillis();
+            creationTimes[row] = fi.getCreationTimeMillis();
+            sizes[row] = fi.getSize();
+            symbolicLinks.set(row, fi.isSymbolicLink());
+
+            maxId = Math.max(maxId, fi.getId());
+        }
+
+        id2row = new int[maxId + 1];
+        Arrays.fill(id2row, -1);
+        for (int row = 0; row < n; row++) {
+            id2row[ids[row]] = row;
+        }
+
+        //CSR: count, prefix sum, fill
+        childOffsets = new int[n + 1];
+        for (int row = 0; row < n; row++) {
+            parentRows[row] = getRow(parents[row]);
+            if (parentRows[row] >= 0) {
+                childOffsets[parentRows[row] + 1]++;
+            }
+        }
+        for (int row = 0; row < n; row++) {
+            childOffsets[row + 1] += childOffsets[row];
+        }
+        children = new int[childOffsets[n]];
+        int[] fill = Arrays.copyOf(childOffsets, n);
+        for (int row = 0; row < n; row++) {
+            if (parentRows[row] >= 0) {
+                children[fill[parentRows[row]]++] = row;
+            }
+        }
+
+        //branches first, then leaves, each by sort (like Children.sql)
+        leafOffsets = new int[n];
+        for (int row = 0; row < n; row++) {
+            int from = childOffsets[row];
+            int to = childOffsets[row + 1];
+            if (to - from > 1) {
+                Integer[] segment = new Integer[to - from];
+                for (int i = 0; i < segment.length; i++) {
+                    segment[i] = children[from + i];
+                }
+                Arrays.sort(segment, (a, b) -> {
+                    int cmp = Byte.compare(types[a], types[b]);
+                    return cmp != 0 ? cmp : Integer.compare(sorts[a], sorts[b]);
+                });
+                for (int i = 0; i < segment.length; i++) {
+                    children[from + i] = segment[i];
+                }
+            }
+            int leafOffset = from;
+            while (leafOffset < to && types[children[leafOffset]] == BRANCH_TYPE) {
+                leafOffset++;
+            }
+            leafOffsets[row] = leafOffset;
+        }
+    }
+
+    private static String intern(Map<String, String> interner, String str) {
+        if (str == null) {
+            return null;
+        }
+        return interner.computeIfAbsent(str, s -> s);
+    }
+
+    /**
+     * The row of the id or -1.
+     * @param id
+     * @return
+     */
+    public int getRow(int id) {
+        if (id < 0 || id >= id2row.length) {
+            return -1;
+        }
+        return id2row[id];
+    }
+
+    public boolean contains(int id) {
+        return getRow(id) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public int getParentRow(int row) {
+        return parentRows[row];
+    }
+
+    public boolean isBranch(int row) {
+        return types[row] == BRANCH_TYPE;
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public String getBasename(int row) {
+        return basenames[row];
+    }
+
+    public String getUri(int row) {
+        return uris[row];
+    }
+
+    public String getPath(int row) {
+        return paths[row];
+    }
+
+    public String getMeta(int row) {
+        return metas[row];
+    }
+
+    /**
+     * Creates a new object of the row, a {@link FolderInfo} for branches.
+     * @param row
+     * @return
+     */
+    public FileInfo get(int row) {
+        FileInfo fi = isBranch(row) ? new FolderInfo() : new FileInfo();
+        fi.setId(ids[row]);
+        fi.setParent(parents[row]);
+        fi.setSort(sorts[row]);
+        fi.setDirectory(isBranch(row));
+        fi.setName(names[row]);
+        fi.setPath(paths[row]);
+        fi.setUri(uris[row]);
+        fi.setBasename(basenames[row]);
+        fi.setMeta(metas[row]);
+        fi.setLastModifiedTime(FileTime.fromMillis(lastModifiedTimes[row]));
+        fi.setLastAccessTime(FileTime.fromMillis(lastAccessTimes[row]));
+        fi.setCreationTime(FileTime.fromMillis(creationTimes[row]));
+        fi.setSize(sizes[row]);
+        fi.setSymbolicLink(symbolicLinks.get(row));
+        return fi;
+    }
+
+    //rows of the branch children in sort order
+    public int[] getBranchChildRows(int row) {
+        return Arrays.copyOfRange(children, childOffsets[row], leafOffsets[row]);
+    }
+
+    //rows of the leaf children in sort order
+    public int[] getLeafChildRows(int row) {
+        return Arrays.copyOfRange(children, leafOffsets[row], childOffsets[row + 1]);
+    }
+
+    /**
+     * The rows from the parent of the row to root.
+     * @param row
+     * @return
+     */
+    public int[] getParentRows(int row) {
+        int count = 0;
+        for (int p = parentRows[row]; p >= 0 && count <= ids.length; p = parentRows[p]) {
+            count++;
+        }
+        int[] result = new int[count];
+        int i = 0;
+        for (int p = parentRows[row]; i < count; p = parentRows[p]) {
+            result[i++] = p;
+        }
+        return result;
+    }
+
+    /**
+     * The row and its descendants without root, ordered by id like SelectTree.sql.
+     * @param row
+     * @return
+     */
+    public int[] getTreeRows(int row) {
+        //most subtrees are small, so the queue grows (at most all rows, also for cycles)
+        int[] queue = new int[Math.min(16, ids.length)];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = row;
+        while (head < tail) {
+            int current = queue[head++];
+            int end = childOffsets[current + 1];
+            if (tail + end - childOffsets[current] > queue.length && queue.length < ids.length) {
+                int capacity = Math.max(queue.length * 2, tail + end - childOffsets[current]);
+                queue = Arrays.copyOf(queue, Math.min(capacity, ids.length));
+            }
+            for (int i = childOffsets[current]; i < end && tail < queue.length; i++) {
+                queue[tail++] = children[i];
+            }
+        }
+        //root is never returned
+        int[] result = new int[tail];
+        int size = 0;
+        for (int i = 0; i < tail; i++) {
+            if (ids[queue[i]] != ROOT_ID) {
+                result[size++] = queue[i];
+            }
+        }
+        result = Arrays.copyOf(result, size);
+        //rows are in id order if created with create(storage)
+        Arrays.sort(result);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "FileInfoSnapshot{" + "rows=" + ids.length + ", children=" + children.length + '}';
+    }
+
+}
@@ -3,14 +3,23 @@ package de.dfki.sds.hephaistos.storage.file;
 import de.dfki.sds.hephaistos.storage.BranchLeafStorageSqlite;
 import de.dfki.sds.hephaistos.storage.BranchLeafStorageSummary;
 import de.dfki.sds.hephaistos.storage.InternalStorageMetaData;
+import de.dfki.sds.hephaistos.storage.ReadConnectionPool;
+import de.dfki.sds.hephaistos.storage.StorageItem;
 import de.dfki.sds.hephaistos.storage.TypedName;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.attribute.FileTime;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
 import org.apache.commons.io.FileUtils;
 
 /**
@@ -22,11 +31,18 @@ public class FileInfoStorage extends BranchLeafStorageSqlite<FolderInfo, FileInf
     private File cacheFolder;
     private File contentFolder;
     private boolean considerFileContent;
+    //read-mostly: if loaded, the tree is read from memory until it changes
+    private volatile FileInfoSnapshot snapshot;
     
     public FileInfoStorage(InternalStorageMetaData metaData, Connection connection, File cacheFolder) {
         super(metaData, connection);
         this.cacheFolder = cacheFolder;
     }
+    
+    public FileInfoStorage(InternalStorageMetaData metaData, Connection connection, ReadConnectionPool readConnectionPool, File cacheFolder) {
+        super(metaData, connection, readConnectionPool);
+        this.cacheFolder = cacheFolder;
+    }
 
     public boolean isConsiderFileContent() {
         return considerFileContent;
@@ -88,6 +104,156 @@ public class FileInfoStorage extends BranchLeafStorageSqlite<FolderInfo, FileInf
         f.delete();
     }
     
+    /**
+     * Loads the whole tree in a columnar in-memory snapshot.
+     * Tree reads (get, children, parents, tree) are served from it
+     * until the next insert or remove.
+     * @return the snapshot
+     */
+    public FileInfoSnapshot loadSnapshot() {
+        //read from the database, not from an old snapshot
+        snapshot = null;
+        snapshot = FileInfoSnapshot.create(this);
+        return snapshot;
+    }
+
+    /**
+     * The loaded snapshot or null.
+     * @return
+     */
+    public FileInfoSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    protected void treeChanged() {
+        snapshot = null;
+    }
+
+    //the snapshot's row of the item or -1
+    private int getRow(FileInfoSnapshot s, StorageItem item) {
+        if(s == null || !(item instanceof FileInfo))
+            return -1;
+        return s.getRow(((FileInfo) item).getId());
+    }
+    
+    private FileInfo getFromSnapshot(FileInfoSnapshot s, int row) {
+        FileInfo fi = s.get(row);
+        if(!s.isBranch(row)) {
+            retrieveAdditionally(fi);
+        }
+        return fi;
+    }
+
+    @Override
+    public FolderInfo getRoot() {
+        FileInfoSnapshot s = snapshot;
+        int row = s == null ? -1 : s.getRow(ROOT_ID);
+        if(row < 0)
+            return super.getRoot();
+        return (FolderInfo) s.get(row);
+    }
+
+    @Override
+    public StorageItem get(int id) {
+        FileInfoSnapshot s = snapshot;
+        int row = s == null ? -1 : s.getRow(id);
+        if(row < 0)
+            return super.get(id);
+        return getFromSnapshot(s, row);
+    }
+
+    @Override
+    public Iterable<FolderInfo> getBranchChildrenIter(FolderInfo node) {
+        FileInfoSnapshot s = snapshot;
+        int row = getRow(s, node);
+        if(row < 0)
+            return super.getBranchChildrenIter(node);
+        List<FolderInfo> result = new ArrayList<>();
+        for(int child : s.getBranchChildRows(row)) {
+            result.add((FolderInfo) s.get(child));
+        }
+        return result;
+    }
+
+    @Override
+    public Iterable<FileInfo> getLeafChildrenIter(FolderInfo node) {
+        FileInfoSnapshot s = snapshot;
+        int row = getRow(s, node);
+        if(row < 0)
+            return super.getLeafChildrenIter(node);
+        List<FileInfo> result = new ArrayList<>();
+        for(int child : s.getLeafChildRows(row)) {
+            result.add(getFromSnapshot(s, child));
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<FolderInfo> getParentOf(StorageItem branchOrLeaf) {
+        FileInfoSnapshot s = snapshot;
+        int row = getRow(s, branchOrLeaf);
+        if(row < 0)
+            return super.getParentOf(branchOrLeaf);
+        int parent = s.getParentRow(row);
+        //like Parent.sql root is not returned
+        if(parent < 0 || s.getId(parent) == ROOT_ID)
+            return Optional.empty();
+        return Optional.of((FolderInfo) s.get(parent));
+    }
+
+    @Override
+    public Iterable<FolderInfo> getParentsIter(StorageItem branchOrLeaf) {
+        FileInfoSnapshot s = snapshot;
+        int row = getRow(s, branchOrLeaf);
+        if(row < 0)
+            return super.getParentsIter(branchOrLeaf);
+        List<FolderInfo> result = new ArrayList<>();
+        for(int parent : s.getParentRows(row)) {
+            result.add((FolderInfo) s.get(parent));
+        }
+        return result;
+    }
+
+    @Override
+    public Iterable<StorageItem> getTreeIter(FolderInfo node) {
+        FileInfoSnapshot s = snapshot;
+        int row = getRow(s, node);
+        if(row < 0)
+            return super.getTreeIter(node);
+        int[] rows = s.getTreeRows(row);
+        //lazy like the result set iterator, objects are created while iterating
+        return () -> new Iterator<StorageItem>() {
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < rows.length;
+            }
+
+            @Override
+            public StorageItem next() {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                return getFromSnapshot(s, rows[i++]);
+            }
+        };
+    }
+    
+    //uri and basename were stored in the json meta before
+    @Override
+    protected void migrated(Connection c, Set<String> addedColumns) throws SQLException {
+        for(String prefix : Arrays.asList("branch_", "leaf_")) {
+            if(!addedColumns.contains(prefix + "uri") || !addedColumns.contains(prefix + "basename"))
+                continue;
+            
+            String query = getQuery("/de/dfki/sds/hephaistos/storage/file/MigrateMeta.sql").replaceAll("\\$\\{prefix\\}", prefix);
+            PreparedStatement ps = c.prepareStatement(query);
+            ps.execute();
+            ps.close();
+        }
+    }
+    
     @Override
     protected List<TypedName> getBranchSchema() {
         return getSchema();
@@ -107,7 +273,9 @@ public class FileInfoStorage extends BranchLeafStorageSqlite<FolderInfo, FileInf
                 new TypedName("lastAccessTime", Integer.class),
                 new TypedName("creationTime", Integer.class),
                 new TypedName("size", Integer.class),
-                new TypedName("symbolicLink", Boolean.class)
+                new TypedName("symbolicLink", Boolean.class),
+                new TypedName("uri", String.class),
+                new TypedName("basename", String.class)
         );
     }
     
@@ -120,7 +288,9 @@ public class FileInfoStorage extends BranchLeafStorageSqlite<FolderInfo, FileInf
             file.getLastAccessTimeMillis(), 
             file.getCreationTimeMillis(), 
             file.getSize(), 
-            file.isSymbolicLink()
+            file.isSymbolicLink(),
+            file.getUri(),
+            file.getBasename()
         };
     }
     
@@ -164,6 +334,8 @@ public class FileInfoStorage extends BranchLeafStorageSqlite<FolderInfo, FileInf
         fi.setCreationTime(FileTime.fromMillis(rs.getLong(6)));
         fi.setSize(rs.getLong(7));
         fi.setSymbolicLink(rs.getBoolean(8));
+        fi.setUri(rs.getString(9));
+        fi.setBasename(rs.getString(10));
         return fi;
     }
     
@@ -177,6 +349,8 @@ public class FileInfoStorage extends BranchLeafStorageSqlite<FolderInfo, FileInf
         fi.setCreationTime(FileTime.fromMillis(rs.getLong(6)));
         fi.setSize(rs.getLong(7));
         fi.setSymbolicLink(rs.getBoolean(8));
+        fi.setUri(rs.getString(9));
+        fi.setBasename(rs.getString(10));
         return fi;
     }
     
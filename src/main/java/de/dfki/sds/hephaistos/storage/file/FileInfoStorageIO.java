@@ -30,7 +30,6 @@ import java.util.StringJoiner;
 import java.util.zip.GZIPInputStream;
 import javax.swing.tree.TreeModel;
 import org.apache.commons.io.FilenameUtils;
-import org.json.JSONObject;
 
 /**
  *
@@ -177,16 +176,13 @@ public class FileInfoStorageIO extends DataIO<FileInfoStorage, TreeModel> {
                 fi.setName(childNode.name);
                 fi.setSort(sortIndex++);
                 
-                //basename stored in meta
                 String basename = childNode.name;
                 if(childNode.isFile) {
                     basename = FilenameUtils.getBaseName(childNode.name);
                 }
                 
-                JSONObject meta = new JSONObject();
-                meta.put("uri", "urn:file:" + id);
-                meta.put("basename", basename);
-                fi.setMeta(meta.toString());
+                fi.setUri("urn:file:" + id);
+                fi.setBasename(basename);
                 
                 childNode.fileInfo = fi;
                 
@@ -297,10 +293,8 @@ public class FileInfoStorageIO extends DataIO<FileInfoStorage, TreeModel> {
                 basename = FilenameUtils.getBaseName(childName);
             }
             
-            JSONObject meta = new JSONObject();
-            meta.put("uri", "urn:file:" + id);
-            meta.put("basename", basename);
-            child.setMeta(meta.toString());
+            child.setUri("urn:file:" + id);
+            child.setBasename(basename);
 
             id++;
 
@@ -461,10 +455,8 @@ public class FileInfoStorageIO extends DataIO<FileInfoStorage, TreeModel> {
             basename = FilenameUtils.getBaseName(file.getName());
         }
 
-        JSONObject meta = new JSONObject();
-        meta.put("uri", "urn:file:" + id);
-        meta.put("basename", file == root ? "" : basename);//do this to avoid putting terms on root folder
-        fi.setMeta(meta.toString());
+        fi.setUri("urn:file:" + id);
+        fi.setBasename(file == root ? "" : basename);//do this to avoid putting terms on root folder
         
         //tika
         if(tika) {
@@ -0,0 +1,185 @@
+package de.dfki.sds.kecs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs bootstrap tasks (loading resources, init and bootstrap of modules) as a dependency DAG.
+ * Independent tasks run concurrently in a thread pool. Writer tasks (the ones asserting
+ * into the assertion pool) are funneled through one single thread, so that there is
+ * always only one writer.
+ * A task starts when all its dependencies are done, if one fails its dependents are not run
+ * and {@link #run()} throws the exception.
+ */
+public class BootstrapScheduler {
+
+    private int threads;
+    private Map<String, Task> name2task;
+    private Map<String, Long> name2millis;
+
+    public BootstrapScheduler() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public BootstrapScheduler(int threads) {
+        this.threads = Math.max(1, threads);
+        this.name2task = new LinkedHashMap<>();
+        this.name2millis = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds a task which does not write into the assertion pool.
+     * @param name unique
+     * @param runnable
+     * @param dependencies names of tasks which have to be done before
+     * @return
+     */
+    public BootstrapScheduler add(String name, Runnable runnable, String... dependencies) {
+        return add(name, false, runnable, Arrays.asList(dependencies));
+    }
+
+    /**
+     * Adds a task which writes into the assertion pool, it runs in the writer thread.
+     * @param name unique
+     * @param runnable
+     * @param dependencies names of tasks which have to be done before
+     * @return
+     */
+    public BootstrapScheduler addWriter(String name, Runnable runnable, String... dependencies) {
+        return add(name, true, runnable, Arrays.asList(dependencies));
+    }
+
+    public BootstrapScheduler add(String name, boolean writer, Runnable runnable, List<String> dependencies) {
+        if (name2task.containsKey(name)) {
+            throw new RuntimeException("task " + name + " already added");
+        }
+        name2task.put(name, new Task(name, writer, runnable, new ArrayList<>(dependencies)));
+        return this;
+    }
+
+    /**
+     * Runs all tasks and waits until they are done.
+     */
+    public void run() {
+        List<Task> order = getTopologicalOrder();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+
+        long begin = System.currentTimeMillis();
+        try {
+            Map<String, CompletableFuture<Void>> name2future = new HashMap<>();
+            for (Task task : order) {
+                CompletableFuture<?>[] dependencies = new CompletableFuture<?>[task.dependencies.size()];
+                for (int i = 0; i < dependencies.length; i++) {
+                    dependencies[i] = name2future.get(task.dependencies.get(i));
+                }
+                CompletableFuture<Void> future = CompletableFuture.allOf(dependencies)
+                        .thenRunAsync(() -> run(task), task.writer ? writer : pool);
+                name2future.put(task.name, future);
+            }
+
+            //waits for all, also if one fails
+            CompletableFuture.allOf(name2future.values().toArray(new CompletableFuture<?>[0])).join();
+
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            pool.shutdown();
+            writer.shutdown();
+        }
+        long end = System.currentTimeMillis();
+
+        System.out.println("bootstrap scheduler: " + order.size() + " tasks with " + threads + " threads took " + (end - begin) + " ms");
+    }
+
+    private void run(Task task) {
+        long begin = System.currentTimeMillis();
+        task.runnable.run();
+        long end = System.currentTimeMillis();
+        synchronized (name2millis) {
+            name2millis.put(task.name, end - begin);
+        }
+        System.out.println(task.name + " took " + (end - begin) + " ms" + (task.writer ? " (writer)" : ""));
+    }
+
+    //Kahn's algorithm, tasks without order stay in the order they were added
+    private List<Task> getTopologicalOrder() {
+        Map<String, Integer> name2indegree = new HashMap<>();
+        Map<String, List<Task>> name2dependents = new HashMap<>();
+        for (Task task : name2task.values()) {
+            name2indegree.put(task.name, task.dependencies.size());
+            for (String dependency : task.dependencies) {
+                if (!name2task.containsKey(dependency)) {
+                    throw new RuntimeException("task " + task.name + " depends on unknown task " + dependency);
+                }
+                name2dependents.computeIfAbsent(dependency, d -> new ArrayList<>()).add(task);
+            }
+        }
+
+        List<Task> order = new ArrayList<>();
+        Deque<Task> ready = new ArrayDeque<>();
+        for (Task task : name2task.values()) {
+            if (task.dependencies.isEmpty()) {
+                ready.add(task);
+            }
+        }
+        while (!ready.isEmpty()) {
+            Task task = ready.poll();
+            order.add(task);
+            for (Task dependent : name2dependents.getOrDefault(task.name, new ArrayList<>())) {
+                int indegree = name2indegree.merge(dependent.name, -1, Integer::sum);
+                if (indegree == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (order.size() != name2task.size()) {
+            throw new RuntimeException("bootstrap tasks have a cyclic dependency");
+        }
+        return order;
+    }
+
+    /**
+     * Duration of the tasks of the last run.
+     * @return
+     */
+    public Map<String, Long> getDurations() {
+        return name2millis;
+    }
+
+    private class Task {
+
+        private String name;
+        private boolean writer;
+        private Runnable runnable;
+        private List<String> dependencies;
+
+        public Task(String name, boolean writer, Runnable runnable, List<String> dependencies) {
+            this.name = name;
+            this.writer = writer;
+            this.runnable = runnable;
+            this.dependencies = dependencies;
+        }
+
+    }
+
+}
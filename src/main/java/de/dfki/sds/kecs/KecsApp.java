@@ -42,13 +42,9 @@ public class KecsApp {
         manager.setModule(Phase.ConceptHierarchyDerivation, new ConceptHierarchyDerivation());
         manager.setModule(Phase.NonTaxonomicRelationLearning, new NonTaxonomicRelationLearning());
         
+        //loaded concurrently to the bootstrap, modules wait for them
         if(settings.isRunServer()) {
-            if(settings.isLoadEmbedding()) {
-                manager.loadEmbedding();
-            }
-            if(settings.isLoadLanguageResource()) {
-                manager.loadLanguageResource();
-            }
+            manager.loadResourcesInBackground(settings.isLoadEmbedding(), settings.isLoadLanguageResource());
         }
         
         switch(settings.getMode()) {
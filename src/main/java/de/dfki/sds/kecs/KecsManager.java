@@ -15,9 +15,12 @@ import de.dfki.sds.kecs.ml.StatusManager;
 import de.dfki.sds.kecs.ml.VisualManager;
 import de.dfki.sds.kecs.modules.DomainTerminologyExtraction;
 import de.dfki.sds.kecs.modules.Module;
+import de.dfki.sds.kecs.modules.ModuleResource;
+import de.dfki.sds.kecs.modules.ModuleUtils;
 import de.dfki.sds.kecs.server.KecsHumlServer;
 import de.dfki.sds.kecs.util.ColumnMemoryExcelStorage;
 import de.dfki.sds.kecs.util.ExceptionUtility;
+import de.dfki.sds.kecs.util.KecsUtils;
 import de.dfki.sds.mschroeder.commons.lang.swing.EmptyLoadingListener;
 import de.dfki.sds.stringanalyzer.helper.GermaNet;
 import java.io.File;
@@ -26,7 +29,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.CompletableFuture;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
@@ -45,6 +48,12 @@ public class KecsManager {
     private VisualManager visualManager;
     
     private KecsSettings settings;
+    
+    //resources loaded in the background, see loadResourcesInBackground
+    private CompletableFuture<Void> embeddingLoading = CompletableFuture.completedFuture(null);
+    private CompletableFuture<Void> languageResourceLoading = CompletableFuture.completedFuture(null);
+    
+    private static final String TASK_SNAPSHOT = "Load file info snapshot";
 
     public KecsManager(KecsSettings settings) {
         this.settings = settings;
@@ -65,24 +74,74 @@ public class KecsManager {
     public void loadLanguageResource() {
         long begin = System.currentTimeMillis();
         //we reuse the germanet class also for wordnet
-        GermaNet germaNet;
-        try {
-            String filename;
-            if(settings.getLanguage() == Language.de) {
-                filename = "germanet.json.gz";
-            } else {
-                filename = "wordnet.json.gz";
-            }
-            germaNet = new GermaNet(new GZIPInputStream(KecsManager.class.getResourceAsStream("/de/dfki/sds/kecs/auxiliary/" + filename)));
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+        String filename;
+        if(settings.getLanguage() == Language.de) {
+            filename = "germanet";
+        } else {
+            filename = "wordnet";
         }
+        //the json is only parsed the first time, then the snapshot in the cache folder is memory-mapped
+        GermaNet germaNet = GermaNet.loadOrCreateSnapshot("/de/dfki/sds/kecs/auxiliary/" + filename + ".json.gz", 
+                new File(KecsUtils.getCacheFolder(), filename + ".snapshot"));
         long end = System.currentTimeMillis();
         
         phase2module.values().forEach(m -> m.setGermaNet(germaNet));
         System.out.println("Language Resource for "+ settings.getLanguage() +" init took " + (end - begin) + " ms " + germaNet.getStatusLine());
     }
     
+    /**
+     * Starts loading the resources in the background, e.g. while the storage is imported.
+     * The module bootstrap waits for them.
+     * @param embedding
+     * @param languageResource 
+     */
+    public void loadResourcesInBackground(boolean embedding, boolean languageResource) {
+        if(embedding) {
+            embeddingLoading = CompletableFuture.runAsync(this::loadEmbedding);
+        }
+        if(languageResource) {
+            languageResourceLoading = CompletableFuture.runAsync(this::loadLanguageResource);
+        }
+    }
+    
+    private void addResourceTasks(BootstrapScheduler scheduler) {
+        scheduler.add(getTaskName(ModuleResource.Embedding), () -> {
+            embeddingLoading.join();
+        });
+        scheduler.add(getTaskName(ModuleResource.LanguageResource), () -> {
+            languageResourceLoading.join();
+        });
+        scheduler.add(getTaskName(ModuleResource.LemmaTable), () -> {
+            ModuleUtils.init();
+        });
+    }
+    
+    private String getTaskName(ModuleResource resource) {
+        return "Load resource " + resource;
+    }
+    
+    //returns the task name
+    //previousTasks are the tasks of the modules before (in phase order), a writing init waits for them like in the sequential order
+    private String addInitTask(BootstrapScheduler scheduler, Module module, List<String> previousTasks) {
+        List<String> dependencies = new ArrayList<>();
+        dependencies.add(TASK_SNAPSHOT);
+        for (ModuleResource resource : module.getRequiredResources()) {
+            //the lemma table is only used by the bootstrap, so the init runs concurrently to loading it
+            if (resource != ModuleResource.LemmaTable) {
+                dependencies.add(getTaskName(resource));
+            }
+        }
+        boolean writing = module.isWritingInit(settings);
+        if (writing) {
+            dependencies.addAll(previousTasks);
+        }
+        String name = "Init module " + module.getClass().getSimpleName();
+        scheduler.add(name, writing, () -> {
+            module.init(fileInfoStorage, assertionPool, settings);
+        }, dependencies);
+        return name;
+    }
+    
     public void bootstrapFromFilesystemDump(File filesystemDumpFile, File assertionPoolFolder, String charset, boolean filePathList, String fileSeparator) {
         if (assertionPoolFolder.exists()) {
             throw new RuntimeException("There is already a folder at " + assertionPoolFolder + ". Use load or replay method");
@@ -176,6 +235,7 @@ public class KecsManager {
         
         printLoading("Open storage", () -> {
             storageManager = new StorageManager(assertionPoolFolder);
+            storageManager.getConfig().setClosureTable(settings.isClosureTable());
             storageManager.open();
 
             fileInfoStorage = storageManager.getFileInfoStorage("classificationSchema");
@@ -187,15 +247,40 @@ public class KecsManager {
     }
     
     private void modulesBootstrap() {
+        BootstrapScheduler scheduler = new BootstrapScheduler();
+        addResourceTasks(scheduler);
+        
+        //the file tree does not change anymore, modules read it from memory
+        scheduler.add(TASK_SNAPSHOT, () -> {
+            fileInfoStorage.loadSnapshot();
+        });
+        
         //bootstrap already calls commit
         //we go in bulk mode so notification is disabled
         assertionPool.setBulkMode(true);
+        //the inits are independent (except writing ones), the bootstraps build on each other in phase order
+        String previousBootstrap = null;
+        List<String> previousTasks = new ArrayList<>();
         for (Module module : getModules()) {
-            printLoading("Init and bootstrap module " + module.getClass().getSimpleName(), () -> {
-                module.init(fileInfoStorage, assertionPool, settings);
+            String init = addInitTask(scheduler, module, previousTasks);
+            
+            String bootstrap = "Bootstrap module " + module.getClass().getSimpleName();
+            List<String> dependencies = new ArrayList<>();
+            dependencies.add(init);
+            if (previousBootstrap != null) {
+                dependencies.add(previousBootstrap);
+            }
+            for (ModuleResource resource : module.getRequiredResources()) {
+                dependencies.add(getTaskName(resource));
+            }
+            scheduler.add(bootstrap, true, () -> {
                 module.bootstrap(fileInfoStorage, assertionPool, settings);
-            });
+            }, dependencies);
+            previousBootstrap = bootstrap;
+            previousTasks.add(init);
+            previousTasks.add(bootstrap);
         }
+        scheduler.run();
         assertionPool.setBulkMode(false);
 
         for (Module module : getModules()) {
@@ -279,19 +364,28 @@ public class KecsManager {
     public void loadAssertionPool(File assertionPoolFolder) {
         printLoading("Open storage", () -> {
             storageManager = new StorageManager(assertionPoolFolder);
+            storageManager.getConfig().setClosureTable(settings.isClosureTable());
             storageManager.open();
 
             fileInfoStorage = storageManager.getFileInfoStorage("classificationSchema");
             assertionPool = storageManager.getAssertionPool("Assertion");
         });
-
+        
         //should be empty anyway
         assertionPool.clearNotificationBuffer();
 
+        BootstrapScheduler scheduler = new BootstrapScheduler();
+        addResourceTasks(scheduler);
+        scheduler.add(TASK_SNAPSHOT, () -> {
+            fileInfoStorage.loadSnapshot();
+        });
+        List<String> previousTasks = new ArrayList<>();
+        for (Module module : getModules()) {
+            previousTasks.add(addInitTask(scheduler, module, previousTasks));
+        }
+        scheduler.run();
+        
         for (Module module : getModules()) {
-            printLoading("Init module " + module.getClass().getSimpleName(), () -> {
-                module.init(fileInfoStorage, assertionPool, settings);
-            });
             assertionPool.addListener(module);
         }
         
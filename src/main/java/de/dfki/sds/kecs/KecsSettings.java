@@ -72,6 +72,8 @@ public class KecsSettings {
     private int nonTaxonomicTimeout;
     private int nonTaxonomicDepthThreshold;
     
+    private boolean closureTable;
+    
     private Language language;
     
     //what to do with it ---------
@@ -140,6 +142,7 @@ public class KecsSettings {
         
         options.addOption("ntt", "non-taxonomic-timeout", true, "Sets timeout for init module NonTaxonomicRelationLearning.");
         options.addOption("ntdt", "non-taxonomic-depth-threshold", true, "Sets depth threshold for init module NonTaxonomicRelationLearning.");
+        options.addOption("ct", "closure-table", false, "Materializes the ancestors of every file for faster tree queries on large folder trees.");
         
         options.addOption("lang", "language", true, "Sets language (en or de). Default: en");
         
@@ -235,6 +238,7 @@ public class KecsSettings {
         settings.loadEmbedding = !cmd.hasOption("E");
         settings.loadLanguageResource = !cmd.hasOption("G");
         settings.loadDefaultOntology = !cmd.hasOption("D");
+        settings.closureTable = cmd.hasOption("ct");
         
         settings.saveStatusThreshold = DEFAULT_SAVE_STATUS_THRESHOLD;
         settings.excelCharacterSumThreshold = DEFAULT_EXCEL_CHARACTER_SUM_THRESHOLD;
@@ -367,6 +371,10 @@ public class KecsSettings {
         return nonTaxonomicDepthThreshold;
     }
 
+    public boolean isClosureTable() {
+        return closureTable;
+    }
+
     public Language getLanguage() {
         return language;
     }
@@ -0,0 +1,247 @@
+package de.dfki.sds.kecs.ml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.jena.rdf.model.Resource;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+/**
+ * The topic graph of {@link GraphManager#getTopicGraphV2(Graph)} which is kept up to date when topics of files change,
+ * instead of building it again from all file nodes.
+ * Per topic pair it counts the files having both topics (weight 2) and the adjacent files having one topic each (weight 1),
+ * so adding or removing a topic of a file only touches the topics of this file and its adjacent files.
+ * The topics of the file nodes are changed by this class.
+ * It is not thread-safe, {@link GraphManager} synchronizes the access.
+ */
+public class DynamicTopicGraph {
+
+    private Graph<FileNode, DefaultEdge> fileNodeGraph;
+    private Map<Resource, List<FileNode>> file2nodes;
+    private Map<Resource, Set<FileNode>> topic2nodes;
+
+    private Map<Resource, Integer> topic2id;
+    private List<Resource> topics;
+
+    //an edge without counts is not in the graph, it is removed by compact()
+    private LongIntMap pair2edge;
+    private int edgeCount;
+    private int[] edgeSource;
+    private int[] edgeTarget;
+    private int[] sameFileCount;
+    private int[] adjacentFileCount;
+
+    //frozen graph, null if changed
+    private TopicGraph topicGraph;
+
+    /**
+     * Builds the graph from the current topics of the file nodes.
+     * @param fileNodeGraph
+     */
+    public DynamicTopicGraph(Graph<FileNode, DefaultEdge> fileNodeGraph) {
+        this.fileNodeGraph = fileNodeGraph;
+        this.file2nodes = new HashMap<>();
+        this.topic2nodes = new HashMap<>();
+        this.topic2id = new HashMap<>();
+        this.topics = new ArrayList<>();
+        this.pair2edge = new LongIntMap(64);
+        this.edgeSource = new int[64];
+        this.edgeTarget = new int[64];
+        this.sameFileCount = new int[64];
+        this.adjacentFileCount = new int[64];
+
+        //all topics are removed first and then added again one by one
+        Map<FileNode, List<Resource>> node2topics = new HashMap<>();
+        for (FileNode node : fileNodeGraph.vertexSet()) {
+            if (node.getFile() != null) {
+                file2nodes.computeIfAbsent(node.getFile(), f -> new ArrayList<>()).add(node);
+            }
+            node2topics.put(node, new ArrayList<>(node.getTopics()));
+            node.getTopics().clear();
+        }
+        for (FileNode node : fileNodeGraph.vertexSet()) {
+            for (Resource topic : node2topics.get(node)) {
+                addTopic(node, topic);
+            }
+        }
+    }
+
+    /**
+     * Sets the topics of a file: only the missing ones are added and the others removed.
+     * @param file
+     * @param fileTopics
+     * @return false if the file is not in the file node graph
+     */
+    public boolean setTopics(Resource file, Collection<Resource> fileTopics) {
+        List<FileNode> nodes = file2nodes.get(file);
+        if (nodes == null) {
+            return false;
+        }
+        for (FileNode node : nodes) {
+            for (Resource topic : new ArrayList<>(node.getTopics())) {
+                if (!fileTopics.contains(topic)) {
+                    removeTopic(node, topic);
+                }
+            }
+            for (Resource topic : fileTopics) {
+                addTopic(node, topic);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the topic from all files, e.g. after it was merged into another one.
+     * @param topic
+     */
+    public void removeTopic(Resource topic) {
+        for (FileNode node : new ArrayList<>(topic2nodes.getOrDefault(topic, Collections.emptySet()))) {
+            removeTopic(node, topic);
+        }
+    }
+
+    public void addTopic(FileNode node, Resource topic) {
+        if (node.getTopics().contains(topic)) {
+            return;
+        }
+        count(node, topic, 1);
+        node.getTopics().add(topic);
+        topic2nodes.computeIfAbsent(topic, t -> new HashSet<>()).add(node);
+    }
+
+    public void removeTopic(FileNode node, Resource topic) {
+        if (!node.getTopics().remove(topic)) {
+            return;
+        }
+        count(node, topic, -1);
+        Set<FileNode> nodes = topic2nodes.get(topic);
+        nodes.remove(node);
+        if (nodes.isEmpty()) {
+            topic2nodes.remove(topic);
+        }
+    }
+
+    //the topic is not (yet or anymore) in the topics of the node
+    private void count(FileNode node, Resource topic, int delta) {
+        int t = getId(topic);
+
+        for (Resource other : node.getTopics()) {
+            int e = getEdge(t, getId(other));
+            sameFileCount[e] += delta;
+        }
+
+        for (DefaultEdge fileEdge : fileNodeGraph.edgesOf(node)) {
+            FileNode adjacent = fileNodeGraph.getEdgeSource(fileEdge);
+            if (adjacent == node) {
+                adjacent = fileNodeGraph.getEdgeTarget(fileEdge);
+            }
+            for (Resource other : adjacent.getTopics()) {
+                //no self-ref
+                if (other.equals(topic)) {
+                    continue;
+                }
+                int e = getEdge(t, getId(other));
+                adjacentFileCount[e] += delta;
+            }
+        }
+
+        topicGraph = null;
+    }
+
+    private int getId(Resource topic) {
+        Integer id = topic2id.get(topic);
+        if (id == null) {
+            id = topics.size();
+            topics.add(topic);
+            topic2id.put(topic, id);
+        }
+        return id;
+    }
+
+    private int getEdge(int u, int v) {
+        long key = TopicGraph.pair(u, v);
+        int edge = pair2edge.get(key);
+        if (edge != -1) {
+            return edge;
+        }
+
+        if (edgeCount == edgeSource.length) {
+            edgeSource = Arrays.copyOf(edgeSource, edgeCount * 2);
+            edgeTarget = Arrays.copyOf(edgeTarget, edgeCount * 2);
+            sameFileCount = Arrays.copyOf(sameFileCount, edgeCount * 2);
+            adjacentFileCount = Arrays.copyOf(adjacentFileCount, edgeCount * 2);
+        }
+        edgeSource[edgeCount] = u;
+        edgeTarget[edgeCount] = v;
+        pair2edge.put(key, edgeCount);
+        return edgeCount++;
+    }
+
+    /**
+     * The current topic graph, only vertices with edges are in it (like in getTopicGraphV2).
+     * It is frozen again after a change.
+     * @return
+     */
+    public TopicGraph getTopicGraph() {
+        if (topicGraph == null) {
+            compact();
+            
+            TopicGraph.Builder builder = new TopicGraph.Builder();
+            for (int e = 0; e < edgeCount; e++) {
+                if (sameFileCount[e] > 0) {
+                    builder.addEdge(topics.get(edgeSource[e]), topics.get(edgeTarget[e]), 2.0);
+                } else if (adjacentFileCount[e] > 0) {
+                    builder.addEdge(topics.get(edgeSource[e]), topics.get(edgeTarget[e]), 1.0);
+                }
+            }
+            topicGraph = builder.build();
+        }
+        return topicGraph;
+    }
+    
+    //drops the edges without counts, so the arrays do not grow with every removed topic
+    private void compact() {
+        int live = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            if (sameFileCount[e] > 0 || adjacentFileCount[e] > 0) {
+                live++;
+            }
+        }
+        if (live == edgeCount) {
+            return;
+        }
+        
+        int capacity = Math.max(64, live * 2);
+        int[] source = new int[capacity];
+        int[] target = new int[capacity];
+        int[] same = new int[capacity];
+        int[] adjacent = new int[capacity];
+        pair2edge = new LongIntMap(capacity);
+        
+        int n = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            if (sameFileCount[e] > 0 || adjacentFileCount[e] > 0) {
+                source[n] = edgeSource[e];
+                target[n] = edgeTarget[e];
+                same[n] = sameFileCount[e];
+                adjacent[n] = adjacentFileCount[e];
+                pair2edge.put(TopicGraph.pair(source[n], target[n]), n);
+                n++;
+            }
+        }
+        
+        edgeSource = source;
+        edgeTarget = target;
+        sameFileCount = same;
+        adjacentFileCount = adjacent;
+        edgeCount = n;
+    }
+
+}
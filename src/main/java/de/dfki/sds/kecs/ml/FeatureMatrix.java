@@ -0,0 +1,94 @@
+package de.dfki.sds.kecs.ml;
+
+import java.util.Arrays;
+import org.apache.jena.rdf.model.Statement;
+
+/**
+ * Feature vectors of statements in one row-major double array, with the statement and class label of each row.
+ * It is allocated for a maximum number of rows: rows can be written in parallel (each by one thread)
+ * and unused rows (without statement) are removed afterwards with {@link #compact()}.
+ */
+public class FeatureMatrix {
+
+    private int columns;
+    private int rows;
+    private double[] values;
+    private Statement[] statements;
+    private String[] classLabels;
+
+    /**
+     * @param capacity maximum number of rows, all are used until {@link #compact()}
+     * @param columns number of features
+     */
+    public FeatureMatrix(int capacity, int columns) {
+        this.columns = columns;
+        this.rows = capacity;
+        this.values = new double[capacity * columns];
+        this.statements = new Statement[capacity];
+        this.classLabels = new String[capacity];
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public double get(int row, int column) {
+        return values[row * columns + column];
+    }
+
+    public void set(int row, int column, double value) {
+        values[row * columns + column] = value;
+    }
+
+    /**
+     * The row-major values, row i starts at {@code i * getColumns()}.
+     * @return not a copy
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    public double[] getRow(int row) {
+        return Arrays.copyOfRange(values, row * columns, (row + 1) * columns);
+    }
+
+    public Statement getStatement(int row) {
+        return statements[row];
+    }
+
+    public String getClassLabel(int row) {
+        return classLabels[row];
+    }
+
+    public void setRow(int row, Statement statement, String classLabel) {
+        statements[row] = statement;
+        classLabels[row] = classLabel;
+    }
+
+    /**
+     * Removes the rows without statement, the others keep their order.
+     */
+    public void compact() {
+        int size = 0;
+        for (int row = 0; row < rows; row++) {
+            if (statements[row] == null) {
+                continue;
+            }
+            if (size != row) {
+                System.arraycopy(values, row * columns, values, size * columns, columns);
+                statements[size] = statements[row];
+                classLabels[size] = classLabels[row];
+            }
+            size++;
+        }
+        rows = size;
+        values = Arrays.copyOf(values, size * columns);
+        statements = Arrays.copyOf(statements, size);
+        classLabels = Arrays.copyOf(classLabels, size);
+    }
+
+}
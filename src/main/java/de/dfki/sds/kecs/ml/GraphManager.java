@@ -18,6 +18,7 @@ import de.dfki.sds.mschroeder.commons.lang.math.MinAvgMaxSdDouble;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -25,10 +26,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
 import org.apache.commons.math3.ml.distance.*;
+import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.ResourceFactory;
 import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.sparql.vocabulary.FOAF;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.SKOS;
 import org.jgrapht.Graph;
@@ -61,7 +67,13 @@ public class GraphManager {
     public static final Resource NEGATIVE_CLASS = ResourceFactory.createResource("urn:ml:negative");
     public static final Resource MISSING_CLASS = ResourceFactory.createResource("urn:ml:missing");
 
+    //candidate statements per parallel task in linkPrediction
+    private static final int LINK_PREDICTION_CHUNK_SIZE = 4096;
+
     private DefaultUndirectedGraph<FileNode, DefaultEdge> cachedFileNodeGraph;
+    //topic graph of the cached file node graph, see updateCachedTopics
+    //the server removes merged topics while the modules update it, so the access is synchronized
+    private DynamicTopicGraph cachedTopicGraph;
 
     //this is the parent-child version
     public DefaultUndirectedGraph<FileNode, DefaultEdge> loadCachedFileNodeGraph(FileInfoStorage fileInfoStorage) {
@@ -85,7 +97,7 @@ public class GraphManager {
             FileNode node = new FileNode();
             node.setName(fi.getName());
 
-            if (fi.getMeta() != null) {
+            if (fi.getUri() != null) {
                 node.setFile(KecsUtils.getResource(fi));
             }
 
@@ -144,7 +156,7 @@ public class GraphManager {
             FileNode node = new FileNode();
             node.setName(fi.getName());
 
-            if (fi.getMeta() != null) {
+            if (fi.getUri() != null) {
                 node.setFile(KecsUtils.getResource(fi));
             }
 
@@ -234,18 +246,25 @@ public class GraphManager {
     }
 
     public void updateCachedFileNodeGraph(List<Assertion> assertions) {
+        updateCachedFileNodeGraph(assertions.stream().map(a -> a.getStatement()));
+    }
+    
+    //returns the number of topic statements
+    public synchronized int updateCachedFileNodeGraph(Stream<Statement> topicStatements) {
 
         if (cachedFileNodeGraph == null) {
-            return;
+            return (int) topicStatements.count();
         }
 
         //faster access
         Map<Resource, Set<Resource>> file2topics = new HashMap<>();
-        for (Assertion assertion : assertions) {
+        int[] count = new int[1];
+        topicStatements.forEach(stmt -> {
             file2topics
-                    .computeIfAbsent(assertion.getSubject(), f -> new HashSet<>())
-                    .add(assertion.getObject());
-        }
+                    .computeIfAbsent(stmt.getSubject(), f -> new HashSet<>())
+                    .add(stmt.getResource());
+            count[0]++;
+        });
 
         //just update every node with topics in the file node graph 
         for (FileNode fn : cachedFileNodeGraph.vertexSet()) {
@@ -256,6 +275,50 @@ public class GraphManager {
                 fn.getTopics().addAll(topics);
             }
         }
+        
+        //afterwards it is updated incrementally
+        cachedTopicGraph = new DynamicTopicGraph(cachedFileNodeGraph);
+        
+        return count[0];
+    }
+    
+    /**
+     * Reads the positive topics of the given files again and updates the file nodes and the topic graph
+     * (only the neighborhood of these files). Does nothing before {@link #updateCachedFileNodeGraph(Stream)}.
+     * @param pool
+     * @param files subjects of changed foaf:topic assertions
+     */
+    public synchronized void updateCachedTopics(AssertionPool pool, Collection<Resource> files) {
+        if (cachedTopicGraph == null || files.isEmpty()) {
+            return;
+        }
+        
+        Map<Resource, List<Assertion>> file2topics = pool.getAssertionsOfSubjects(files, FOAF.topic, null, Phase.ConceptDiscovery, Rating.Positive);
+        for (Resource file : files) {
+            Set<Resource> topics = new HashSet<>();
+            for (Assertion topicAssertion : file2topics.getOrDefault(file, Arrays.asList())) {
+                topics.add(topicAssertion.getObject());
+            }
+            cachedTopicGraph.setTopics(file, topics);
+        }
+    }
+    
+    /**
+     * Removes the topic from all file nodes, e.g. after {@link AssertionPool#removeAllAbout(Resource)}.
+     * @param topic
+     */
+    public synchronized void removeCachedTopic(Resource topic) {
+        if (cachedTopicGraph != null) {
+            cachedTopicGraph.removeTopic(topic);
+        }
+    }
+    
+    /**
+     * The topic graph of the cached file node graph, the same as getTopicGraphV2 of it.
+     * @return null before {@link #updateCachedFileNodeGraph(Stream)}
+     */
+    public synchronized TopicGraph getCachedTopicGraph() {
+        return cachedTopicGraph == null ? null : cachedTopicGraph.getTopicGraph();
     }
 
     //takes long in mirjam case
@@ -334,11 +397,11 @@ public class GraphManager {
     }
 
     //maxDepth is always 1
-    public DefaultUndirectedWeightedGraph<Resource, DefaultWeightedEdge> getTopicGraphV2(Graph<FileNode, DefaultEdge> fileNodeGraph) {
+    public TopicGraph getTopicGraphV2(Graph<FileNode, DefaultEdge> fileNodeGraph) {
 
         long begin = System.currentTimeMillis();
 
-        DefaultUndirectedWeightedGraph<Resource, DefaultWeightedEdge> topicGraph = new DefaultUndirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        TopicGraph.Builder builder = new TopicGraph.Builder();
 
         for (FileNode vertex : fileNodeGraph.vertexSet()) {
 
@@ -371,41 +434,16 @@ public class GraphManager {
                 for (int i = 0; i < leftList.size(); i++) {
                     for (int j = 0; j < rightList.size(); j++) {
 
-                        Resource left = leftList.get(i);
-                        Resource right = rightList.get(j);
-                        
-                        //no self-ref
-                        if(left.equals(right)) {
-                            continue;
-                        }
-                        
-                        //System.out.println(left + " -> " + right);
-
-                        topicGraph.addVertex(left);
-                        topicGraph.addVertex(right);
-
-                        DefaultWeightedEdge edge = topicGraph.getEdge(left, right);
-                        if (edge != null) {
-                            //if edge exists check if the distance is smaller
-                            double edgeWeight = topicGraph.getEdgeWeight(edge);
-
-                            //if higher weight (= distance low), update it
-                            if (weight > edgeWeight) {
-                                topicGraph.setEdgeWeight(edge, weight);
-                            }
-
-                        } else {
-                            DefaultWeightedEdge newEdge = topicGraph.addEdge(left, right);
-                            topicGraph.setEdgeWeight(newEdge, weight);
-                        }
-
+                        //no self-ref, keeps the higher weight (= distance low) if edge exists
+                        builder.addEdge(leftList.get(i), rightList.get(j), weight);
                     }
                 }
             }
         }
+        TopicGraph topicGraph = builder.build();
         long end = System.currentTimeMillis();
 
-        //System.out.println("\tTopicGraphV2 " + topicGraph.vertexSet().size() + " vertices and " + topicGraph.edgeSet().size() + " edges took " + (end - begin) + " ms");
+        //System.out.println("\tTopicGraphV2 " + topicGraph.getVertexCount() + " vertices and " + topicGraph.getEdgeCount() + " edges took " + (end - begin) + " ms");
 
         return topicGraph;
     }
@@ -482,13 +520,17 @@ public class GraphManager {
     }
     
     public Datasets linkPrediction(
-            DefaultUndirectedWeightedGraph<Resource, DefaultWeightedEdge> topicGraph,
-            List<LinkPredictionAlgorithm<Resource, DefaultWeightedEdge>> algorithms,
+            TopicGraph topicGraph,
+            List<LinkPredictionScorer.Index> indices,
             List<Assertion> assertions,
             List<Statement> toTest) {
 
         Datasets datasets = new Datasets();
 
+        //all indices of a pair are computed at once
+        LinkPredictionScorer scorer = new LinkPredictionScorer(topicGraph);
+        int[] columns = indices.stream().mapToInt(index -> index.ordinal()).toArray();
+
         //we store what assertions are from human so that it will not be in testset
         Map<Statement, Assertion> stmtAssertionMap = new HashMap<>();
         for (Assertion assertion : assertions) {
@@ -505,111 +547,63 @@ public class GraphManager {
         Set<String> classes = new HashSet<>();
 
         //train set consists of the given assertions
-        for (Assertion assertion : assertions) {
-
-            Object[] record = new Object[algorithms.size() + 1];
-
-            int index = 0;
-
-            //features
-            for (LinkPredictionAlgorithm<Resource, DefaultWeightedEdge> algo : algorithms) {
-
-                double score = 0;
-                try {
-                    score = algo.predict(assertion.getSubject(), assertion.getObject());
-                } catch (Exception e) {
-                    //AdamicAdarIndexLinkPrediction
-                    //LinkPredictionIndexNotWellDefinedException: 
-                    //Vertex has less than 2 degree
+        FeatureMatrix trainMatrix = new FeatureMatrix(assertions.size(), columns.length);
+        double[] scores = new double[LinkPredictionScorer.Index.values().length];
+        for (int row = 0; row < assertions.size(); row++) {
+            Assertion assertion = assertions.get(row);
 
-                    //ignore: score is then 0 (no signal)
-                }
-
-                record[index] = score;
-                index++;
-            }
-            
             //a record where every score is 0 has no signal
             //do not add to dataset
-            if(isZero(record)) {
+            if (!features(topicGraph, scorer, assertion.getSubject(), assertion.getObject(), columns, scores, trainMatrix, row)) {
                 continue;
             }
 
+            String classLabel = null;
             switch (assertion.getRating()) {
                 case Positive:
-                    record[record.length - 1] = assertion.getStatement().getPredicate().getURI();
+                    classLabel = assertion.getStatement().getPredicate().getURI();
                     numPos++;
                     break;
                 case Negative:
-                    record[record.length - 1] = NEGATIVE_CLASS.getURI();
+                    classLabel = NEGATIVE_CLASS.getURI();
                     numNeg++;
                     break;
                 case Undecided:
-                    record[record.length - 1] = NEGATIVE_CLASS.getURI();
+                    classLabel = NEGATIVE_CLASS.getURI();
                     numUnd++;
                     break;
             }
 
-            classes.add((String) record[record.length - 1]);
+            classes.add(classLabel);
 
-            //to know what the resources are for a given record java object
-            datasets.getRecord2stmt().put(record, assertion.getStatement());
-            
-            datasets.getTrainSet().add(record);
+            trainMatrix.setRow(row, assertion.getStatement(), classLabel);
         }
+        trainMatrix.compact();
+        datasets.setTrainMatrix(trainMatrix);
 
         //test set consists of all non-asserted edges
-        //all edges we have (some are positive, some are negative)
-        //for (DefaultWeightedEdge edge : topicGraph.edgeSet()) {
-        //Resource src = topicGraph.getEdgeSource(edge);
-        //Resource trg = topicGraph.getEdgeTarget(edge);
-        for (Statement testStmt : toTest) {
-            Resource src = testStmt.getSubject();
-            Resource trg = testStmt.getResource();
-
-            //Set<Resource> unorderedPair = new HashSet<>(Arrays.asList(src, trg));
-
-            //already in train set (so NI said something to it)
-            if (stmtAssertionMap.containsKey(testStmt)) {
-                continue;
-            }
-
-            Object[] record = new Object[algorithms.size() + 1];
-
-            //features
-            int index = 0;
-            for (LinkPredictionAlgorithm<Resource, DefaultWeightedEdge> algo : algorithms) {
-
-                double score = 0;
-                try {
-                    score = algo.predict(src, trg);
-                } catch (Exception e) {
-                    //AdamicAdarIndexLinkPrediction
-                    //LinkPredictionIndexNotWellDefinedException: 
-                    //Vertex has less than 2 degree
-
-                    //ignore: score is then 0 (no signal)
-                }
-
-                record[index] = score;
-                index++;
+        //the candidates are scored in chunks in parallel, each chunk writes its own rows
+        FeatureMatrix testMatrix = new FeatureMatrix(toTest.size(), columns.length);
+        if (toTest.size() <= LINK_PREDICTION_CHUNK_SIZE) {
+            testFeatures(topicGraph, scorer, columns, stmtAssertionMap, toTest, testMatrix, 0, toTest.size());
+        } else {
+            //the common pool is shared, so every prediction round does not start its own threads
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int begin = 0; begin < toTest.size(); begin += LINK_PREDICTION_CHUNK_SIZE) {
+                int chunkBegin = begin;
+                int chunkEnd = Math.min(begin + LINK_PREDICTION_CHUNK_SIZE, toTest.size());
+                tasks.add(ForkJoinPool.commonPool().submit(() -> testFeatures(topicGraph, scorer, columns, stmtAssertionMap, toTest, testMatrix, chunkBegin, chunkEnd)));
             }
-
-            //a record where every score is 0 has no signal
-            //do not add to dataset
-            if(isZero(record)) {
-                continue;
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
             }
-            
-            //to know what the resources are for a given record java object
-            datasets.getRecord2stmt().put(record, testStmt);
-
-            //missing because it is test set
-            record[record.length - 1] = MISSING_CLASS.getURI();
-
-            classes.add((String) record[record.length - 1]);
+        }
+        testMatrix.compact();
+        datasets.setTestMatrix(testMatrix);
 
-            datasets.getTestSet().add(record);
+        //missing because it is test set
+        if (testMatrix.size() > 0) {
+            classes.add(MISSING_CLASS.getURI());
         }
 
         //System.out.println(numAssertions + " cases / " + topicGraph.edgeSet().size() + " all edges");
@@ -618,8 +612,8 @@ public class GraphManager {
         //System.out.println(numNeg + " negative");
         //System.out.println(numUnd + " undecided");
 
-        //System.out.println(datasets.getTrainSet().size() + " trainset size");
-        //System.out.println(datasets.getTestSet().size() + " testset size vs " + toTest.size() + " all potential");
+        //System.out.println(trainMatrix.size() + " trainset size");
+        //System.out.println(testMatrix.size() + " testset size vs " + toTest.size() + " all potential");
         
         List<String> classLabels = new ArrayList<>(classes);
         classLabels.sort((a, b) -> a.compareTo(b));
@@ -627,6 +621,29 @@ public class GraphManager {
 
         return datasets;
     }
+
+    //the graph, scorer and map are only read, so the chunks can run in parallel
+    private void testFeatures(TopicGraph topicGraph, LinkPredictionScorer scorer, int[] columns, 
+            Map<Statement, Assertion> stmtAssertionMap, List<Statement> toTest, FeatureMatrix testMatrix, int begin, int end) {
+        
+        double[] scores = new double[LinkPredictionScorer.Index.values().length];
+        for (int row = begin; row < end; row++) {
+            Statement testStmt = toTest.get(row);
+
+            //already in train set (so NI said something to it)
+            if (stmtAssertionMap.containsKey(testStmt)) {
+                continue;
+            }
+
+            //a record where every score is 0 has no signal
+            //do not add to dataset
+            if (!features(topicGraph, scorer, testStmt.getSubject(), testStmt.getResource(), columns, scores, testMatrix, row)) {
+                continue;
+            }
+
+            testMatrix.setRow(row, testStmt, MISSING_CLASS.getURI());
+        }
+    }
     
     public List<Prediction> distanceBasedPrediction(Datasets datasets, DistanceMeasure distMeasure, double distanceThreshold, AssertionPool pool) {
         
@@ -641,49 +658,48 @@ public class GraphManager {
         measures.add(new ManhattanDistance());
         */
         
-        Map<Statement, Double> stmt2dist = new HashMap<>();
-        
-        for(Object[] trainRecord : datasets.getTrainSet()) {
+        //positive train vectors per predicate
+        FeatureMatrix trainMatrix = datasets.getTrainMatrix();
+        Map<Property, List<double[]>> predicate2vectors = new HashMap<>();
+        for(int row = 0; row < trainMatrix.size(); row++) {
             
             //we do not use negative examples here
-            String clazz = (String) trainRecord[trainRecord.length - 1];
+            String clazz = trainMatrix.getClassLabel(row);
             if(clazz.equals(NEGATIVE_CLASS.getURI())) {
                 continue;
             }
             
-            Statement trainStmt = datasets.getRecord2stmt().get(trainRecord);
-            double[] trainVector =  Datasets.toDoubleArray(trainRecord);
+            Statement trainStmt = trainMatrix.getStatement(row);
+            predicate2vectors.computeIfAbsent(trainStmt.getPredicate(), p -> new ArrayList<>()).add(trainMatrix.getRow(row));
+        }
+        
+        Map<Property, VectorIndex> predicate2index = new HashMap<>();
+        for(Entry<Property, List<double[]>> e : predicate2vectors.entrySet()) {
+            predicate2index.put(e.getKey(), new VectorIndex(e.getValue(), distMeasure));
+        }
+        
+        Map<Statement, Double> stmt2dist = new HashMap<>();
+        
+        FeatureMatrix testMatrix = datasets.getTestMatrix();
+        for(int row = 0; row < testMatrix.size(); row++) {
             
-            //System.out.println("[train] " + toString(trainStmt, toPrefLabelMap, propertyPrefLblMap) + " " + Arrays.toString(trainRecord));
-            //System.out.println(Arrays.toString(trainRecord));
-            //System.out.println(Arrays.toString(trainVector));
+            Statement testStmt = testMatrix.getStatement(row);
             
-            for(Object[] testRecord : datasets.getTestSet()) {
-                
-                Statement testStmt = datasets.getRecord2stmt().get(testRecord);
-                
-                //System.out.println("\t[test] " + toString(testStmt, toPrefLabelMap, propertyPrefLblMap) + " " + Arrays.toString(testRecord));
-                
-                //predicate must match
-                if(!trainStmt.getPredicate().equals(testStmt.getPredicate())) {
-                    continue;
-                }
-                
-                double[] testVector = Datasets.toDoubleArray(testRecord);
-                
-                //Preferential Attachment seems to help if nodes do not share any neighbors
-                double dist = distMeasure.compute(trainVector, testVector);
-                
-                //get the shortest dist of one statement
-                Double existingDist = stmt2dist.get(testStmt);
-                if(existingDist != null) {
-                    if(dist < existingDist) {
-                        stmt2dist.put(testStmt, dist);
-                    }
-                } else {
-                    stmt2dist.put(testStmt, dist);
-                }
+            //predicate must match
+            VectorIndex index = predicate2index.get(testStmt.getPredicate());
+            if(index == null) {
+                continue;
             }
+            
+            //Preferential Attachment seems to help if nodes do not share any neighbors
+            //only the ones within the threshold are predicted anyway
+            double dist = index.nearest(testMatrix.getValues(), row * testMatrix.getColumns(), distanceThreshold);
+            if(dist == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            
+            //get the shortest dist of one statement
+            stmt2dist.merge(testStmt, dist, Math::min);
         }
         
         //System.out.println(stmt2dist.size() + " predictions");
@@ -713,14 +729,33 @@ public class GraphManager {
         return predictions;
     }
     
-    private boolean isZero(Object[] record) {
-        //a test vector that has too much zero values is not appropriate to use in prediction
-        for(int i = 0; i < record.length; i++) {
-            if(record[i] != null && record[i] instanceof Double && (double) record[i] != 0) {
-                return false;
+    //writes the features of the pair into the row, false if the pair has no signal (every score is 0)
+    private boolean features(TopicGraph topicGraph, LinkPredictionScorer scorer, Resource src, Resource trg, 
+            int[] columns, double[] scores, FeatureMatrix matrix, int row) {
+        
+        //a pair not in the topic graph has no signal
+        int u = topicGraph.getId(src);
+        int v = topicGraph.getId(trg);
+        if (u < 0 || v < 0) {
+            return false;
+        }
+
+        scorer.score(u, v, scores);
+        
+        boolean signal = false;
+        for (int i = 0; i < columns.length; i++) {
+            double score = scores[columns[i]];
+
+            //e.g. AdamicAdar is not well defined if a common neighbor has less than 2 degree
+            //ignore: score is then 0 (no signal)
+            if (Double.isNaN(score)) {
+                score = 0;
             }
+
+            matrix.set(row, i, score);
+            signal |= score != 0;
         }
-        return true;
+        return signal;
     }
     
     private String toString(Statement stmt, Map<Resource, String> toPrefLabelMap, Map<Resource, String> propertyPrefLblMap) {
@@ -731,8 +766,8 @@ public class GraphManager {
         ).toString();
     }
     
-    public void exportTopicGraph(DefaultUndirectedWeightedGraph<Resource, DefaultWeightedEdge> topicGraph, AssertionPool pool, File graphmlFile) {
-        GraphMLExporter<Resource, DefaultWeightedEdge> exporter = new GraphMLExporter();
+    public void exportTopicGraph(TopicGraph topicGraph, AssertionPool pool, File graphmlFile) {
+        GraphMLExporter<Resource, Integer> exporter = new GraphMLExporter();
         //exporter.setExportVertexLabels(true);
         exporter.registerAttribute("uri", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
         exporter.registerAttribute("label", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
@@ -764,22 +799,31 @@ public class GraphManager {
         //    return m;
         //});
         //System.out.println("export...");
-        exporter.exportGraph(topicGraph, graphmlFile);
+        exporter.exportGraph(topicGraph.asGraph(), graphmlFile);
         //System.out.println("done");
     }
 
-    public static List<LinkPredictionAlgorithm<Resource, DefaultWeightedEdge>> allLinkPredictionAlgorithms(DefaultUndirectedWeightedGraph<Resource, DefaultWeightedEdge> topicGraph) {
-        List<LinkPredictionAlgorithm<Resource, DefaultWeightedEdge>> algorithms = new ArrayList<>();
-        algorithms.add(new AdamicAdarIndexLinkPrediction<>(topicGraph));
-        algorithms.add(new CommonNeighborsLinkPrediction<>(topicGraph));
-        algorithms.add(new HubDepressedIndexLinkPrediction<>(topicGraph));
-        algorithms.add(new HubPromotedIndexLinkPrediction<>(topicGraph));
-        algorithms.add(new JaccardCoefficientLinkPrediction<>(topicGraph));
-        algorithms.add(new LeichtHolmeNewmanIndexLinkPrediction<>(topicGraph));
-        algorithms.add(new PreferentialAttachmentLinkPrediction<>(topicGraph));
-        algorithms.add(new ResourceAllocationIndexLinkPrediction<>(topicGraph));
-        algorithms.add(new SaltonIndexLinkPrediction<>(topicGraph));
-        algorithms.add(new SørensenIndexLinkPrediction<>(topicGraph));
+    /**
+     * The indices computed by the {@link LinkPredictionScorer}, same order as {@link #allLinkPredictionAlgorithms(TopicGraph)}.
+     * @return a modifiable list
+     */
+    public static List<LinkPredictionScorer.Index> allLinkPredictionIndices() {
+        return new ArrayList<>(Arrays.asList(LinkPredictionScorer.Index.values()));
+    }
+
+    public static List<LinkPredictionAlgorithm<Resource, Integer>> allLinkPredictionAlgorithms(TopicGraph topicGraph) {
+        Graph<Resource, Integer> graph = topicGraph.asGraph();
+        List<LinkPredictionAlgorithm<Resource, Integer>> algorithms = new ArrayList<>();
+        algorithms.add(new AdamicAdarIndexLinkPrediction<>(graph));
+        algorithms.add(new CommonNeighborsLinkPrediction<>(graph));
+        algorithms.add(new HubDepressedIndexLinkPrediction<>(graph));
+        algorithms.add(new HubPromotedIndexLinkPrediction<>(graph));
+        algorithms.add(new JaccardCoefficientLinkPrediction<>(graph));
+        algorithms.add(new LeichtHolmeNewmanIndexLinkPrediction<>(graph));
+        algorithms.add(new PreferentialAttachmentLinkPrediction<>(graph));
+        algorithms.add(new ResourceAllocationIndexLinkPrediction<>(graph));
+        algorithms.add(new SaltonIndexLinkPrediction<>(graph));
+        algorithms.add(new SørensenIndexLinkPrediction<>(graph));
         return algorithms;
     }
 
@@ -0,0 +1,112 @@
+package de.dfki.sds.kecs.ml;
+
+/**
+ * Computes all neighborhood-based link prediction indices of a vertex pair in one pass:
+ * the common neighbors are found by a merge intersection of the sorted neighbor ids in the {@link TopicGraph}.
+ * The results are the same as the ones of the org.jgrapht.alg.linkprediction algorithms, but nothing is allocated
+ * and an index which is not well defined is {@link #UNDEFINED} instead of a LinkPredictionIndexNotWellDefinedException.
+ * The scorer does not change the graph, so it can be used by several threads.
+ */
+public class LinkPredictionScorer {
+
+    /**
+     * The indices in the order of {@link GraphManager#allLinkPredictionAlgorithms(TopicGraph)}.
+     */
+    public enum Index {
+        AdamicAdar,
+        CommonNeighbors,
+        HubDepressed,
+        HubPromoted,
+        JaccardCoefficient,
+        LeichtHolmeNewman,
+        PreferentialAttachment,
+        ResourceAllocation,
+        Salton,
+        Sørensen
+    }
+
+    /**
+     * Flag value of an index which is not well defined for the pair.
+     */
+    public static final double UNDEFINED = Double.NaN;
+
+    private TopicGraph graph;
+    private int[] start;
+    private int[] sorted;
+
+    public LinkPredictionScorer(TopicGraph graph) {
+        this.graph = graph;
+        this.start = graph.adjacencyStart();
+        this.sorted = graph.sortedNeighbors();
+    }
+
+    public TopicGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Writes all indices of the pair into scores.
+     * @param u vertex id
+     * @param v vertex id
+     * @param scores at least {@code Index.values().length} long, indexed by {@link Index#ordinal()}
+     */
+    public void score(int u, int v, double[] scores) {
+        int du = start[u + 1] - start[u];
+        int dv = start[v + 1] - start[v];
+
+        //merge intersection of the sorted neighbors
+        int common = 0;
+        double adamicAdar = 0;
+        boolean adamicAdarDefined = true;
+        double resourceAllocation = 0;
+        boolean resourceAllocationDefined = true;
+
+        int i = start[u];
+        int iEnd = start[u + 1];
+        int j = start[v];
+        int jEnd = start[v + 1];
+        while (i < iEnd && j < jEnd) {
+            int a = sorted[i];
+            int b = sorted[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                common++;
+                int dz = start[a + 1] - start[a];
+                if (dz < 2) {
+                    adamicAdarDefined = false;
+                } else {
+                    adamicAdar += 1d / Math.log(dz);
+                }
+                if (dz == 0) {
+                    resourceAllocationDefined = false;
+                } else {
+                    resourceAllocation += 1d / dz;
+                }
+                i++;
+                j++;
+            }
+        }
+
+        //no self loops and multiple edges, so the neighbor lists are sets
+        int union = du + dv - common;
+
+        scores[Index.AdamicAdar.ordinal()] = adamicAdarDefined ? adamicAdar : UNDEFINED;
+        scores[Index.CommonNeighbors.ordinal()] = common;
+        scores[Index.HubDepressed.ordinal()] = du == 0 && dv == 0 ? UNDEFINED : (double) common / Math.max(du, dv);
+        scores[Index.HubPromoted.ordinal()] = du == 0 || dv == 0 ? UNDEFINED : (double) common / Math.min(du, dv);
+        if (u == v) {
+            scores[Index.JaccardCoefficient.ordinal()] = 1.0;
+        } else {
+            scores[Index.JaccardCoefficient.ordinal()] = union == 0 ? UNDEFINED : (double) common / union;
+        }
+        scores[Index.LeichtHolmeNewman.ordinal()] = du == 0 || dv == 0 ? UNDEFINED : (double) common / du * dv;
+        scores[Index.PreferentialAttachment.ordinal()] = du * dv;
+        scores[Index.ResourceAllocation.ordinal()] = resourceAllocationDefined ? resourceAllocation : UNDEFINED;
+        scores[Index.Salton.ordinal()] = du == 0 || dv == 0 ? UNDEFINED : (double) common / Math.sqrt(du * dv);
+        scores[Index.Sørensen.ordinal()] = du + dv == 0 ? UNDEFINED : 2d * common / (du + dv);
+    }
+
+}
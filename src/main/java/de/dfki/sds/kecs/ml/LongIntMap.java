@@ -0,0 +1,72 @@
+package de.dfki.sds.kecs.ml;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing (linear probing) map from long key to int value, the value must not be negative.
+ * Keys can not be removed.
+ */
+class LongIntMap {
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntMap(int capacity) {
+        int n = Integer.highestOneBit(Math.max(4, capacity) * 2 - 1);
+        keys = new long[n];
+        values = new int[n];
+        Arrays.fill(values, -1);
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (values[i] == -1) {
+                return -1;
+            }
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash();
+        }
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (values[i] == -1) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return;
+            }
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, -1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != -1) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+}
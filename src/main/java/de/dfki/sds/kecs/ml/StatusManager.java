@@ -34,6 +34,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.OptionalDouble;
 import java.util.Set;
+import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
@@ -180,25 +181,34 @@ public class StatusManager {
             
         } else {
             //takes some time on large datasets
-            List<Assertion> termAssertions = assertionPool.getAssertions(null, KECS.containsDomainTerm, null, 
-                Phase.DomainTerminologyExtraction, null, null, Rating.Positive, 0);
-            List<Assertion> topicAssertions = assertionPool.getAssertions(null, FOAF.topic, null, 
-                    Phase.ConceptDiscovery, null, null, Rating.Positive, 0);
+            //only the subjects are streamed, so the assertions are not materialized
             
             //necessary to show next filename
             Map<Resource, Integer[]> file2counts = new HashMap<>();
-            for(Assertion a : termAssertions) {
-                Integer[] counts = file2counts.computeIfAbsent(a.getSubject(), s -> new Integer[]{0,0});
-                counts[0]++;
+            try(Stream<Resource> termSubjects = assertionPool.streamSubjects(null, KECS.containsDomainTerm, null, 
+                Phase.DomainTerminologyExtraction, null, null, Rating.Positive, 0)) {
+                termSubjects.forEach(subject -> {
+                    Integer[] counts = file2counts.computeIfAbsent(subject, s -> new Integer[]{0,0});
+                    counts[0]++;
+                });
             }
-            for(Assertion a : topicAssertions) {
-                Integer[] counts = file2counts.computeIfAbsent(a.getSubject(), s -> new Integer[]{0,0});
-                counts[1]++;
+            try(Stream<Resource> topicSubjects = assertionPool.streamSubjects(null, FOAF.topic, null, 
+                    Phase.ConceptDiscovery, null, null, Rating.Positive, 0)) {
+                topicSubjects.forEach(subject -> {
+                    Integer[] counts = file2counts.computeIfAbsent(subject, s -> new Integer[]{0,0});
+                    counts[1]++;
+                });
             }
 
+            long termCount = 0;
+            long topicCount = 0;
+            
             conceptDiscoveryNextFileResource = null;
             int worstDiff = 0;
             for(Entry<Resource, Integer[]> entry : file2counts.entrySet()) {
+                termCount += entry.getValue()[0];
+                topicCount += entry.getValue()[1];
+                
                 //if more terms then topics are attached
                 //because more topics is fine
                 if(entry.getValue()[0] > entry.getValue()[1]) {
@@ -211,8 +221,8 @@ public class StatusManager {
                 }
             }
             
-            termAssertionCount = termAssertions.size();
-            topicAssertionCount = topicAssertions.size();
+            termAssertionCount = termCount;
+            topicAssertionCount = topicCount;
         }
         
         conceptDiscoveryNextFile = null;
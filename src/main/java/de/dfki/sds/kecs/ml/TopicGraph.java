@@ -0,0 +1,485 @@
+package de.dfki.sds.kecs.ml;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import org.apache.jena.rdf.model.Resource;
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+/**
+ * Undirected weighted graph of topics with primitive arrays: topics are interned to int ids (in the order they were added),
+ * edges are numbered in the order they were added and the adjacency is in CSR form
+ * (per vertex a range in one array of neighbors and edges, in edge order, and one of the neighbors sorted by id).
+ * Use the {@link Builder} to create it, {@link #asGraph()} is a read-only JGraphT view with the edge ids as edges
+ * which has the same vertex and edge order as the DefaultUndirectedWeightedGraph built the same way.
+ */
+public class TopicGraph {
+
+    private List<Resource> vertices;
+    private Map<Resource, Integer> vertex2id;
+
+    private int edgeCount;
+    private int[] edgeSource;
+    private int[] edgeTarget;
+    private double[] edgeWeight;
+    private LongIntMap pair2edge;
+
+    private int[] adjStart;
+    private int[] adjVertex;
+    private int[] adjEdge;
+    private int[] adjSorted;
+
+    private View view;
+
+    private TopicGraph() {
+    }
+
+    public int getVertexCount() {
+        return vertices.size();
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @param topic
+     * @return -1 if the topic is not in the graph
+     */
+    public int getId(Resource topic) {
+        Integer id = vertex2id.get(topic);
+        return id == null ? -1 : id;
+    }
+
+    public Resource getVertex(int id) {
+        return vertices.get(id);
+    }
+
+    public List<Resource> getVertices() {
+        return Collections.unmodifiableList(vertices);
+    }
+
+    public int getDegree(int vertex) {
+        return adjStart[vertex + 1] - adjStart[vertex];
+    }
+
+    /**
+     * The neighbors of a vertex are adjacentVertex(i) for i in [adjacentBegin(vertex), adjacentEnd(vertex)).
+     * @param vertex
+     * @return
+     */
+    public int adjacentBegin(int vertex) {
+        return adjStart[vertex];
+    }
+
+    public int adjacentEnd(int vertex) {
+        return adjStart[vertex + 1];
+    }
+
+    public int adjacentVertex(int i) {
+        return adjVertex[i];
+    }
+
+    public int adjacentEdge(int i) {
+        return adjEdge[i];
+    }
+
+    //used by LinkPredictionScorer for merge intersections
+    int[] adjacencyStart() {
+        return adjStart;
+    }
+
+    int[] sortedNeighbors() {
+        return adjSorted;
+    }
+
+    /**
+     * @param u
+     * @param v
+     * @return -1 if there is no edge
+     */
+    public int getEdge(int u, int v) {
+        return pair2edge.get(pair(u, v));
+    }
+
+    public int getEdgeSource(int edge) {
+        return edgeSource[edge];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    public double getEdgeWeight(int edge) {
+        return edgeWeight[edge];
+    }
+
+    /**
+     * Read-only JGraphT view, e.g. for the link prediction algorithms or the GraphML export.
+     * @return
+     */
+    public Graph<Resource, Integer> asGraph() {
+        if (view == null) {
+            view = new View();
+        }
+        return view;
+    }
+
+    //key of an undirected pair
+    static long pair(int u, int v) {
+        return u < v ? ((long) u << 32) | v : ((long) v << 32) | u;
+    }
+
+    /**
+     * Collects edges, an existing edge keeps the maximum weight. Self loops are ignored.
+     */
+    public static class Builder {
+
+        private List<Resource> vertices = new ArrayList<>();
+        private Map<Resource, Integer> vertex2id = new HashMap<>();
+
+        private int edgeCount;
+        private int[] edgeSource = new int[64];
+        private int[] edgeTarget = new int[64];
+        private double[] edgeWeight = new double[64];
+        private LongIntMap pair2edge = new LongIntMap(64);
+
+        public int addVertex(Resource topic) {
+            Integer id = vertex2id.get(topic);
+            if (id == null) {
+                id = vertices.size();
+                vertices.add(topic);
+                vertex2id.put(topic, id);
+            }
+            return id;
+        }
+
+        public void addEdge(Resource left, Resource right, double weight) {
+            if (left.equals(right)) {
+                return;
+            }
+            addEdge(addVertex(left), addVertex(right), weight);
+        }
+
+        public void addEdge(int left, int right, double weight) {
+            if (left == right) {
+                return;
+            }
+            long key = pair(left, right);
+            int edge = pair2edge.get(key);
+            if (edge != -1) {
+                //if higher weight (= distance low), update it
+                if (weight > edgeWeight[edge]) {
+                    edgeWeight[edge] = weight;
+                }
+                return;
+            }
+
+            if (edgeCount == edgeSource.length) {
+                edgeSource = Arrays.copyOf(edgeSource, edgeCount * 2);
+                edgeTarget = Arrays.copyOf(edgeTarget, edgeCount * 2);
+                edgeWeight = Arrays.copyOf(edgeWeight, edgeCount * 2);
+            }
+            edgeSource[edgeCount] = left;
+            edgeTarget[edgeCount] = right;
+            edgeWeight[edgeCount] = weight;
+            pair2edge.put(key, edgeCount);
+            edgeCount++;
+        }
+
+        public TopicGraph build() {
+            TopicGraph graph = new TopicGraph();
+            graph.vertices = vertices;
+            graph.vertex2id = vertex2id;
+            graph.edgeCount = edgeCount;
+            graph.edgeSource = Arrays.copyOf(edgeSource, edgeCount);
+            graph.edgeTarget = Arrays.copyOf(edgeTarget, edgeCount);
+            graph.edgeWeight = Arrays.copyOf(edgeWeight, edgeCount);
+            graph.pair2edge = pair2edge;
+
+            int n = vertices.size();
+            graph.adjStart = new int[n + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                graph.adjStart[edgeSource[e] + 1]++;
+                graph.adjStart[edgeTarget[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                graph.adjStart[v + 1] += graph.adjStart[v];
+            }
+
+            //in edge order, like the edge sets of the JGraphT graphs
+            int[] fill = Arrays.copyOf(graph.adjStart, n);
+            graph.adjVertex = new int[2 * edgeCount];
+            graph.adjEdge = new int[2 * edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                int s = edgeSource[e];
+                int t = edgeTarget[e];
+                graph.adjVertex[fill[s]] = t;
+                graph.adjEdge[fill[s]++] = e;
+                graph.adjVertex[fill[t]] = s;
+                graph.adjEdge[fill[t]++] = e;
+            }
+            graph.adjSorted = graph.adjVertex.clone();
+            for (int v = 0; v < n; v++) {
+                Arrays.sort(graph.adjSorted, graph.adjStart[v], graph.adjStart[v + 1]);
+            }
+
+            //the builder can not be used anymore
+            vertices = null;
+            vertex2id = null;
+            pair2edge = null;
+            return graph;
+        }
+    }
+
+    private class View extends AbstractGraph<Resource, Integer> {
+
+        private final GraphType type = new DefaultGraphType.Builder()
+                .undirected().allowSelfLoops(false).allowMultipleEdges(false).weighted(true).modifiable(false)
+                .build();
+
+        private final Set<Resource> vertexSet = new AbstractSet<Resource>() {
+            @Override
+            public Iterator<Resource> iterator() {
+                return Collections.unmodifiableList(vertices).iterator();
+            }
+
+            @Override
+            public int size() {
+                return vertices.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return vertex2id.containsKey(o);
+            }
+        };
+
+        private final Set<Integer> edgeSet = new AbstractSet<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new RangeIterator(0, edgeCount, i -> i);
+            }
+
+            @Override
+            public int size() {
+                return edgeCount;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer && (Integer) o >= 0 && (Integer) o < edgeCount;
+            }
+        };
+
+        private int id(Resource vertex) {
+            Integer id = vertex2id.get(vertex);
+            if (id == null) {
+                throw new IllegalArgumentException("no such vertex in graph: " + vertex);
+            }
+            return id;
+        }
+
+        private int edge(Integer edge) {
+            if (!edgeSet.contains(edge)) {
+                throw new IllegalArgumentException("no such edge in graph: " + edge);
+            }
+            return edge;
+        }
+
+        @Override
+        public Set<Integer> getAllEdges(Resource sourceVertex, Resource targetVertex) {
+            if (!vertex2id.containsKey(sourceVertex) || !vertex2id.containsKey(targetVertex)) {
+                return null;
+            }
+            Integer edge = getEdge(sourceVertex, targetVertex);
+            return edge == null ? Collections.emptySet() : Collections.singleton(edge);
+        }
+
+        @Override
+        public Integer getEdge(Resource sourceVertex, Resource targetVertex) {
+            Integer u = vertex2id.get(sourceVertex);
+            Integer v = vertex2id.get(targetVertex);
+            if (u == null || v == null) {
+                return null;
+            }
+            int edge = TopicGraph.this.getEdge(u, v);
+            return edge == -1 ? null : edge;
+        }
+
+        @Override
+        public Supplier<Resource> getVertexSupplier() {
+            return null;
+        }
+
+        @Override
+        public Supplier<Integer> getEdgeSupplier() {
+            return null;
+        }
+
+        @Override
+        public Integer addEdge(Resource sourceVertex, Resource targetVertex) {
+            throw new UnsupportedOperationException("read-only topic graph");
+        }
+
+        @Override
+        public boolean addEdge(Resource sourceVertex, Resource targetVertex, Integer e) {
+            throw new UnsupportedOperationException("read-only topic graph");
+        }
+
+        @Override
+        public Resource addVertex() {
+            throw new UnsupportedOperationException("read-only topic graph");
+        }
+
+        @Override
+        public boolean addVertex(Resource v) {
+            throw new UnsupportedOperationException("read-only topic graph");
+        }
+
+        @Override
+        public boolean containsEdge(Integer e) {
+            return edgeSet.contains(e);
+        }
+
+        @Override
+        public boolean containsVertex(Resource v) {
+            return vertex2id.containsKey(v);
+        }
+
+        @Override
+        public Set<Integer> edgeSet() {
+            return edgeSet;
+        }
+
+        @Override
+        public int degreeOf(Resource vertex) {
+            return getDegree(id(vertex));
+        }
+
+        @Override
+        public Set<Integer> edgesOf(Resource vertex) {
+            int v = id(vertex);
+            return new AbstractSet<Integer>() {
+                @Override
+                public Iterator<Integer> iterator() {
+                    return new RangeIterator(adjStart[v], adjStart[v + 1], i -> adjEdge[i]);
+                }
+
+                @Override
+                public int size() {
+                    return getDegree(v);
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return edgeSet.contains(o) && (edgeSource[(Integer) o] == v || edgeTarget[(Integer) o] == v);
+                }
+            };
+        }
+
+        @Override
+        public int inDegreeOf(Resource vertex) {
+            return degreeOf(vertex);
+        }
+
+        @Override
+        public Set<Integer> incomingEdgesOf(Resource vertex) {
+            return edgesOf(vertex);
+        }
+
+        @Override
+        public int outDegreeOf(Resource vertex) {
+            return degreeOf(vertex);
+        }
+
+        @Override
+        public Set<Integer> outgoingEdgesOf(Resource vertex) {
+            return edgesOf(vertex);
+        }
+
+        @Override
+        public Integer removeEdge(Resource sourceVertex, Resource targetVertex) {
+            throw new UnsupportedOperationException("read-only topic graph");
+        }
+
+        @Override
+        public boolean removeEdge(Integer e) {
+            throw new UnsupportedOperationException("read-only topic graph");
+        }
+
+        @Override
+        public boolean removeVertex(Resource v) {
+            throw new UnsupportedOperationException("read-only topic graph");
+        }
+
+        @Override
+        public Set<Resource> vertexSet() {
+            return vertexSet;
+        }
+
+        @Override
+        public Resource getEdgeSource(Integer e) {
+            return vertices.get(edgeSource[edge(e)]);
+        }
+
+        @Override
+        public Resource getEdgeTarget(Integer e) {
+            return vertices.get(edgeTarget[edge(e)]);
+        }
+
+        @Override
+        public GraphType getType() {
+            return type;
+        }
+
+        @Override
+        public double getEdgeWeight(Integer e) {
+            return edgeWeight[edge(e)];
+        }
+
+        @Override
+        public void setEdgeWeight(Integer e, double weight) {
+            throw new UnsupportedOperationException("read-only topic graph");
+        }
+    }
+
+    private static class RangeIterator implements Iterator<Integer> {
+
+        private int i;
+        private int end;
+        private IntUnaryOperator value;
+
+        private RangeIterator(int begin, int end, IntUnaryOperator value) {
+            this.i = begin;
+            this.end = end;
+            this.value = value;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return i < end;
+        }
+
+        @Override
+        public Integer next() {
+            if (i >= end) {
+                throw new NoSuchElementException();
+            }
+            return value.applyAsInt(i++);
+        }
+    }
+
+}
@@ -0,0 +1,298 @@
+package de.dfki.sds.kecs.ml;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.math3.ml.distance.ChebyshevDistance;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.ml.distance.ManhattanDistance;
+
+/**
+ * Nearest neighbor index of feature vectors which are stored in one contiguous array.
+ * For the Euclidean, Manhattan and Chebyshev distance it is a KD-tree: a subtree is skipped
+ * if the distance to its bounding box is larger than the best distance so far.
+ * Other distance measures scan all vectors.
+ * The distances are computed like the commons math measures, so they are exactly the same.
+ */
+public class VectorIndex {
+
+    private static final int LEAF_SIZE = 8;
+
+    private enum Metric {
+        Euclidean,
+        Manhattan,
+        Chebyshev,
+        Other
+    }
+
+    private DistanceMeasure measure;
+    private Metric metric;
+
+    private int size;
+    private int dim;
+    //size * dim, reordered by the tree
+    private double[] vectors;
+
+    //tree nodes: vector range, children (-1 for leafs) and bounding box (dim values each)
+    private int nodeCount;
+    private int[] nodeBegin;
+    private int[] nodeEnd;
+    private int[] nodeLeft;
+    private int[] nodeRight;
+    private double[] nodeMin;
+    private double[] nodeMax;
+
+    //only for other measures
+    private double[][] rows;
+
+    /**
+     * @param vectors all of the same length
+     * @param measure
+     */
+    public VectorIndex(List<double[]> vectors, DistanceMeasure measure) {
+        this.measure = measure;
+        this.size = vectors.size();
+        this.dim = vectors.isEmpty() ? 0 : vectors.get(0).length;
+        this.vectors = new double[size * dim];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(vectors.get(i), 0, this.vectors, i * dim, dim);
+        }
+
+        //the exact class, a subclass may compute something else
+        Class<?> type = measure.getClass();
+        if (type == EuclideanDistance.class) {
+            metric = Metric.Euclidean;
+        } else if (type == ManhattanDistance.class) {
+            metric = Metric.Manhattan;
+        } else if (type == ChebyshevDistance.class) {
+            metric = Metric.Chebyshev;
+        } else {
+            metric = Metric.Other;
+        }
+
+        if (metric == Metric.Other) {
+            rows = vectors.toArray(new double[0][]);
+        } else if (size > 0) {
+            //a leaf has at least one vector
+            int maxNodes = 2 * size - 1;
+            nodeBegin = new int[maxNodes];
+            nodeEnd = new int[maxNodes];
+            nodeLeft = new int[maxNodes];
+            nodeRight = new int[maxNodes];
+            nodeMin = new double[maxNodes * dim];
+            nodeMax = new double[maxNodes * dim];
+            build(0, size);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The distance to the nearest vector if it is not larger than maxDistance.
+     * @param query same length as the indexed vectors
+     * @param maxDistance
+     * @return {@link Double#POSITIVE_INFINITY} if no vector is within maxDistance
+     */
+    public double nearest(double[] query, double maxDistance) {
+        return nearest(query, 0, maxDistance);
+    }
+
+    /**
+     * Same as {@link #nearest(double[], double)} for a query vector which starts at offset, e.g. a row of a {@link FeatureMatrix}.
+     * @param values
+     * @param offset
+     * @param maxDistance
+     * @return {@link Double#POSITIVE_INFINITY} if no vector is within maxDistance
+     */
+    public double nearest(double[] values, int offset, double maxDistance) {
+        double[] best = new double[] { maxDistance };
+        boolean found;
+        if (size == 0) {
+            found = false;
+        } else if (metric == Metric.Other) {
+            found = false;
+            double[] query = Arrays.copyOfRange(values, offset, offset + dim);
+            for (double[] row : rows) {
+                double dist = measure.compute(row, query);
+                if (dist <= best[0]) {
+                    best[0] = dist;
+                    found = true;
+                }
+            }
+        } else {
+            found = search(0, values, offset, best);
+        }
+        return found ? best[0] : Double.POSITIVE_INFINITY;
+    }
+
+    private int build(int begin, int end) {
+        int node = nodeCount++;
+        nodeBegin[node] = begin;
+        nodeEnd[node] = end;
+        nodeLeft[node] = -1;
+        nodeRight[node] = -1;
+
+        //bounding box
+        int box = node * dim;
+        for (int d = 0; d < dim; d++) {
+            nodeMin[box + d] = Double.POSITIVE_INFINITY;
+            nodeMax[box + d] = Double.NEGATIVE_INFINITY;
+        }
+        for (int i = begin; i < end; i++) {
+            for (int d = 0; d < dim; d++) {
+                double x = vectors[i * dim + d];
+                nodeMin[box + d] = Math.min(nodeMin[box + d], x);
+                nodeMax[box + d] = Math.max(nodeMax[box + d], x);
+            }
+        }
+
+        if (end - begin <= LEAF_SIZE) {
+            return node;
+        }
+
+        //split the widest dimension at the median
+        int splitDim = 0;
+        double widest = -1;
+        for (int d = 0; d < dim; d++) {
+            double width = nodeMax[box + d] - nodeMin[box + d];
+            if (width > widest) {
+                widest = width;
+                splitDim = d;
+            }
+        }
+        if (widest <= 0) {
+            //all vectors are the same
+            return node;
+        }
+        int mid = (begin + end) >>> 1;
+        select(begin, end - 1, mid, splitDim);
+
+        nodeLeft[node] = build(begin, mid);
+        nodeRight[node] = build(mid, end);
+        return node;
+    }
+
+    //quickselect: the k-th smallest in dimension d is at k afterwards, smaller ones before and larger ones after it
+    private void select(int low, int high, int k, int d) {
+        while (high > low) {
+            double pivot = vectors[((low + high) >>> 1) * dim + d];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (vectors[i * dim + d] < pivot) {
+                    i++;
+                }
+                while (vectors[j * dim + d] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        for (int d = 0; d < dim; d++) {
+            double tmp = vectors[a * dim + d];
+            vectors[a * dim + d] = vectors[b * dim + d];
+            vectors[b * dim + d] = tmp;
+        }
+    }
+
+    private boolean search(int node, double[] query, int queryOffset, double[] best) {
+        if (boxDistance(node, query, queryOffset) > best[0]) {
+            return false;
+        }
+
+        boolean found = false;
+        if (nodeLeft[node] == -1) {
+            for (int i = nodeBegin[node]; i < nodeEnd[node]; i++) {
+                double dist = distance(i, query, queryOffset);
+                if (dist <= best[0]) {
+                    best[0] = dist;
+                    found = true;
+                }
+            }
+            return found;
+        }
+
+        //the closer child first, so that the other one is more likely skipped
+        int first = nodeLeft[node];
+        int second = nodeRight[node];
+        if (boxDistance(second, query, queryOffset) < boxDistance(first, query, queryOffset)) {
+            first = nodeRight[node];
+            second = nodeLeft[node];
+        }
+        found |= search(first, query, queryOffset, best);
+        found |= search(second, query, queryOffset, best);
+        return found;
+    }
+
+    //same arithmetic as MathArrays.distance, distance1 and distanceInf
+    private double distance(int i, double[] query, int queryOffset) {
+        int offset = i * dim;
+        switch (metric) {
+            case Euclidean: {
+                double sum = 0;
+                for (int d = 0; d < dim; d++) {
+                    double dp = vectors[offset + d] - query[queryOffset + d];
+                    sum += dp * dp;
+                }
+                return Math.sqrt(sum);
+            }
+            case Manhattan: {
+                double sum = 0;
+                for (int d = 0; d < dim; d++) {
+                    sum += Math.abs(vectors[offset + d] - query[queryOffset + d]);
+                }
+                return sum;
+            }
+            default: {
+                double max = 0;
+                for (int d = 0; d < dim; d++) {
+                    max = Math.max(max, Math.abs(vectors[offset + d] - query[queryOffset + d]));
+                }
+                return max;
+            }
+        }
+    }
+
+    //a lower bound of the distance to every vector in the box (rounding is monotonic, so it is never larger)
+    private double boxDistance(int node, double[] query, int queryOffset) {
+        int box = node * dim;
+        double sum = 0;
+        for (int d = 0; d < dim; d++) {
+            double diff = 0;
+            if (query[queryOffset + d] < nodeMin[box + d]) {
+                diff = nodeMin[box + d] - query[queryOffset + d];
+            } else if (query[queryOffset + d] > nodeMax[box + d]) {
+                diff = query[queryOffset + d] - nodeMax[box + d];
+            }
+            switch (metric) {
+                case Euclidean:
+                    sum += diff * diff;
+                    break;
+                case Manhattan:
+                    sum += diff;
+                    break;
+                default:
+                    sum = Math.max(sum, diff);
+                    break;
+            }
+        }
+        return metric == Metric.Euclidean ? Math.sqrt(sum) : sum;
+    }
+
+}
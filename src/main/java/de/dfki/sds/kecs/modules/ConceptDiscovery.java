@@ -1,6 +1,7 @@
 package de.dfki.sds.kecs.modules;
 
 import de.dfki.sds.hephaistos.storage.assertion.Assertion;
+import de.dfki.sds.hephaistos.storage.assertion.AssertionPattern;
 import de.dfki.sds.hephaistos.storage.assertion.AssertionPool;
 import de.dfki.sds.hephaistos.storage.assertion.Concept;
 import de.dfki.sds.hephaistos.storage.assertion.Intelligence;
@@ -13,15 +14,20 @@ import de.dfki.sds.kecs.vocab.KECS;
 import de.dfki.sds.mschroeder.commons.lang.SetUtility;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.sparql.vocabulary.FOAF;
 import org.apache.jena.vocabulary.OWL;
 import org.apache.jena.vocabulary.OWL2;
@@ -57,6 +63,17 @@ public class ConceptDiscovery extends Module {
         this.settings = settings;
     }
     
+    //the changes filtered in updateOnChanges
+    @Override
+    public List<AssertionPattern> getPatterns() {
+        return Arrays.asList(
+                new AssertionPattern(KECS.containsDomainTerm, Phase.DomainTerminologyExtraction, null),
+                new AssertionPattern(RDF.type, aiPhase, null),
+                new AssertionPattern(SKOS.prefLabel, aiPhase, null),
+                new AssertionPattern(SKOS.hiddenLabel, aiPhase, Intelligence.NI)
+        );
+    }
+
     @Override
     public void updateOnChanges(FileInfoStorage fileInfoStorage, AssertionPool pool, List<Assertion> changes) {
 
@@ -131,48 +148,57 @@ public class ConceptDiscovery extends Module {
     private void conceptRatingEffectsVariousRelationsRating(AssertionPool pool, List<Assertion> changes) {
         double conf = 0.75;
         
-        //a rating in concept (positive or negative), changes also a rating in foaf:topic relations
-        for (Assertion assertion : AssertionPool.filter(changes, null, RDF.type, ConceptDiscovery.DEFAULT_TYPE, aiPhase, null, null, null, 0)) {
-
-            for (Assertion topicAssertion : pool.getAssertions(null, FOAF.topic, assertion.getSubject(), aiPhase, null, null, null, 0)) {
-                
-                //change it if nesessary (this if avoids the notification recursion)
-                if(topicAssertion.getRating() != assertion.getRating()) {
-                    pool.assertStatement(topicAssertion.getStatement(), topicAssertion.getPhase(), 
-                            Intelligence.AI, aiName, assertion.getRating(), conf); //topicAssertion.getIntelligence(), topicAssertion.getName()
-                }
-            }
-            
-            for (Assertion sameAsAssertion : pool.getAssertions(null, OWL.sameAs, null, aiPhase, null, null, null, 0)) {
-                
-                //if sameAs is about the changed concept
-                if((sameAsAssertion.getSubject().equals(assertion.getSubject()) || sameAsAssertion.getObject().equals(assertion.getSubject())) &&
-                   sameAsAssertion.getRating() != assertion.getRating()) {
-                    pool.assertStatement(sameAsAssertion.getStatement(), sameAsAssertion.getPhase(), 
-                            Intelligence.AI, aiName, assertion.getRating(), conf); //sameAsAssertion.getIntelligence(), sameAsAssertion.getName()
-                }
+        //a rating in concept (positive or negative), changes also a rating in foaf:topic, sameAs, broader and non-taxonomic relations
+        List<Assertion> conceptAssertions = AssertionPool.filter(changes, null, RDF.type, ConceptDiscovery.DEFAULT_TYPE, aiPhase, null, null, null, 0);
+        if(conceptAssertions.isEmpty()) {
+            return;
+        }
+        
+        Set<Resource> concepts = new LinkedHashSet<>();
+        for (Assertion assertion : conceptAssertions) {
+            concepts.add(assertion.getSubject());
+        }
+        List<RDFNode> objects = new ArrayList<>(concepts);
+        
+        //the relations of all changed concepts at once (instead of reading the whole relation tables per concept)
+        List<Assertion> relations = new ArrayList<>();
+        relations.addAll(pool.getAssertionsIn(FOAF.topic, objects, aiPhase));
+        for (Property predicate : Arrays.asList(OWL.sameAs, SKOS.broader, null)) {
+            Phase phase = predicate == null ? Phase.NonTaxonomicRelationLearning : predicate.equals(OWL.sameAs) ? aiPhase : Phase.ConceptHierarchyDerivation;
+            for (List<Assertion> list : pool.getAssertionsOfSubjects(concepts, predicate, null, phase, null).values()) {
+                relations.addAll(list);
             }
-            
-            for (Assertion broaderAssertion : pool.getAssertions(null, SKOS.broader, null, Phase.ConceptHierarchyDerivation, null, null, null, 0)) {
-                
-                //if broader is about the changed concept
-                if((broaderAssertion.getSubject().equals(assertion.getSubject()) || broaderAssertion.getObject().equals(assertion.getSubject())) &&
-                   broaderAssertion.getRating() != assertion.getRating()) {
-                    pool.assertStatement(broaderAssertion.getStatement(), broaderAssertion.getPhase(), 
-                            Intelligence.AI, aiName, assertion.getRating(), conf); //broaderAssertion.getIntelligence(), broaderAssertion.getName(),
+            relations.addAll(pool.getAssertionsIn(predicate, objects, phase));
+        }
+        
+        //relations which are about the concept (as subject or object)
+        Map<Resource, Map<Statement, Assertion>> concept2relations = new HashMap<>();
+        for (Assertion relation : relations) {
+            for (RDFNode node : Arrays.asList(relation.getSubject(), relation.getStatement().getObject())) {
+                if (concepts.contains(node)) {
+                    concept2relations.computeIfAbsent(node.asResource(), c -> new LinkedHashMap<>()).put(relation.getStatement(), relation);
                 }
             }
-            
-            for (Assertion nonTaxAssertion : pool.getAssertions(null, null, null, Phase.NonTaxonomicRelationLearning, null, null, null, 0)) {
+        }
+        
+        //in the order of the changes, so the last change of a relation wins like before
+        Map<Statement, Assertion> stmt2relation = new LinkedHashMap<>();
+        Map<Statement, Rating> stmt2rating = new HashMap<>();
+        for (Assertion assertion : conceptAssertions) {
+            for (Assertion relation : concept2relations.getOrDefault(assertion.getSubject(), new HashMap<>()).values()) {
                 
-                //if broader is about the changed concept
-                if((nonTaxAssertion.getSubject().equals(assertion.getSubject()) || nonTaxAssertion.getObject().equals(assertion.getSubject())) &&
-                   nonTaxAssertion.getRating() != assertion.getRating()) {
-                    pool.assertStatement(nonTaxAssertion.getStatement(), nonTaxAssertion.getPhase(), 
-                            Intelligence.AI, aiName, assertion.getRating(), conf); //nonTaxAssertion.getIntelligence(), nonTaxAssertion.getName()
+                //change it if nesessary (this if avoids the notification recursion)
+                if(relation.getRating() != assertion.getRating()) {
+                    stmt2relation.put(relation.getStatement(), relation);
+                    stmt2rating.put(relation.getStatement(), assertion.getRating());
                 }
             }
         }
+        
+        for (Assertion relation : stmt2relation.values()) {
+            pool.assertStatement(relation.getStatement(), relation.getPhase(), 
+                    Intelligence.AI, aiName, stmt2rating.get(relation.getStatement()), conf); //relation.getIntelligence(), relation.getName()
+        }
     }
 
     private void prefLabelEffectsTechLabel(AssertionPool pool, List<Assertion> changes) {
@@ -335,28 +361,36 @@ public class ConceptDiscovery extends Module {
             }
         });
         
+        //hidden labels are loaded once for all concepts
+        Map<Resource, Set<String>> concept2hiddenLabels = new HashMap<>();
+        pool.getAssertions(null, SKOS.hiddenLabel, null, aiPhase, null, null, Rating.Positive, 0).forEach(a -> {
+            concept2hiddenLabels.computeIfAbsent(a.getSubject(), r -> new HashSet<>()).add(a.getStatement().getString());
+        });
+        
+        //to only check the concepts that can match
+        ConceptLabelIndex labelIndex = new ConceptLabelIndex(prefLabelMap, concept2hiddenLabels, levenshteinThreshold, levenshteinLengthThreshold);
+        
         for(Resource src : concepts) {
             
             String prefLblSrc = ownPrefLabelMap.get(src);
             
-            Set<String> srcHiddenLabels = new HashSet<>();
-            pool.getAssertions(src, SKOS.hiddenLabel, null, aiPhase, null, null, Rating.Positive, 0).forEach(a -> {
-                srcHiddenLabels.add(a.getStatement().getString());
-            });
+            if(prefLblSrc == null) {
+                continue;
+            }
+            
+            Set<String> srcHiddenLabels = concept2hiddenLabels.getOrDefault(src, new HashSet<>());
             
-            for(Entry<Resource, String> entry : prefLabelMap.entrySet()) {
-                Resource dst = entry.getKey();
+            BitSet candidates = labelIndex.getCandidates(prefLblSrc, srcHiddenLabels);
+            
+            for(int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+                Resource dst = labelIndex.getConcept(ordinal);
                 
                 //skip the ones that are marked negative
                 if(alreadyNegative.contains(src.getURI() + dst.getURI())) {
                     continue;
                 }
                 
-                String prefLblDst = prefLabelMap.get(dst);
-                
-                if(prefLblSrc == null || prefLblDst == null) {
-                    continue;
-                }
+                String prefLblDst = labelIndex.getPrefLabel(ordinal);
                 
                 //System.out.println(prefLblSrc + " check " + prefLblDst);
                 
@@ -404,9 +438,8 @@ public class ConceptDiscovery extends Module {
                 //"Peter Parker" vs "Parker Peter"
                 //"ABC-123" vs "123-ABC"
                 if(!match) {
-                    String regex = "[ \\-_]+";
-                    Set<String> srcSet = new HashSet<>(Arrays.asList(prefLblSrc.split(regex)));
-                    Set<String> dstSet = new HashSet<>(Arrays.asList(prefLblDst.split(regex)));
+                    Set<String> srcSet = ConceptLabelIndex.getTokenSet(prefLblSrc);
+                    Set<String> dstSet = ConceptLabelIndex.getTokenSet(prefLblDst);
                     
                     match = srcSet.equals(dstSet);
                     if(match) {
@@ -416,10 +449,7 @@ public class ConceptDiscovery extends Module {
                 
                 //check hidden labels overlap
                 if(!match) {
-                    Set<String> dstHiddenLabels = new HashSet<>();
-                    pool.getAssertions(dst, SKOS.hiddenLabel, null, aiPhase, null, null, Rating.Positive, 0).forEach(a -> {
-                        dstHiddenLabels.add(a.getStatement().getString());
-                    });
+                    Set<String> dstHiddenLabels = concept2hiddenLabels.getOrDefault(dst, new HashSet<>());
                     
                     Set<String> intersection = SetUtility.intersection(srcHiddenLabels, dstHiddenLabels);
                     
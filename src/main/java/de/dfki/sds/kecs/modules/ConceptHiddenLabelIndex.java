@@ -0,0 +1,236 @@
+package de.dfki.sds.kecs.modules;
+
+import de.dfki.sds.hephaistos.storage.assertion.Assertion;
+import de.dfki.sds.hephaistos.storage.assertion.AssertionListener;
+import de.dfki.sds.hephaistos.storage.assertion.AssertionPattern;
+import de.dfki.sds.hephaistos.storage.assertion.AssertionPool;
+import de.dfki.sds.hephaistos.storage.assertion.Intelligence;
+import de.dfki.sds.hephaistos.storage.assertion.Phase;
+import de.dfki.sds.hephaistos.storage.assertion.Rating;
+import de.dfki.sds.hephaistos.storage.file.FileInfoStorage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.OWL2;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.SKOS;
+
+/**
+ * Hidden label to concept postings of the positive concepts, to find the concept with the best
+ * Jaccard overlap of hidden labels without loading all concepts, used in {@link DomainTerminologyExtraction}.
+ * It is loaded on first use and kept up to date as a listener of the pool: concepts
+ * with changed type or hidden label assertions are marked dirty and read again before the next lookup.
+ * The hidden labels are the ones of {@link AssertionPool#getConcept(Assertion)}, so of any rating.
+ */
+public class ConceptHiddenLabelIndex implements AssertionListener {
+
+    private AssertionPool pool;
+
+    private boolean loaded;
+
+    //concepts (of any rating) with their order in getConcepts(), which decides on equal overlap
+    private Map<Resource, Integer> concept2order;
+    private int nextOrder;
+    private Set<Resource> positiveConcepts;
+
+    private Map<Resource, Set<String>> concept2hiddenLabels;
+    private Map<String, Set<Resource>> hiddenLabel2concepts;
+
+    //dirty concept to its rank: a new concept asserted by AI is stored before one by NI
+    //(the batches are executed in this order), the rest keeps the order of the changes
+    private Map<Resource, Integer> dirty;
+
+    public ConceptHiddenLabelIndex(AssertionPool pool) {
+        this.pool = pool;
+        this.concept2order = new HashMap<>();
+        this.positiveConcepts = new HashSet<>();
+        this.concept2hiddenLabels = new HashMap<>();
+        this.hiddenLabel2concepts = new HashMap<>();
+        this.dirty = new LinkedHashMap<>();
+    }
+
+    @Override
+    public List<AssertionPattern> getPatterns() {
+        return Arrays.asList(
+                new AssertionPattern(RDF.type, Phase.ConceptDiscovery, null),
+                new AssertionPattern(SKOS.hiddenLabel, Phase.ConceptDiscovery, null)
+        );
+    }
+
+    @Override
+    public synchronized void updateOnChanges(FileInfoStorage fileInfoStorage, AssertionPool pool, List<Assertion> changes) {
+        markDirty(changes);
+    }
+
+    /**
+     * Called after {@link AssertionPool#removeAllAbout(Resource)}, which removes the assertions without changes.
+     * If the concept is asserted again it is stored as a new one.
+     * @param pool
+     * @param concept
+     */
+    @Override
+    public synchronized void removedAllAbout(AssertionPool pool, Resource concept) {
+        if (loaded) {
+            concept2order.remove(concept);
+            positiveConcepts.remove(concept);
+            dirty.merge(concept, Intelligence.values().length, Math::min);
+        }
+    }
+
+    /**
+     * The positive concept whose hidden labels have the highest Jaccard similarity with the labels.
+     * On equal similarity the first one in {@link AssertionPool#getConcepts()} order wins.
+     * @param labels
+     * @return null if no concept shares a label
+     */
+    public synchronized Match getBestMatch(Set<String> labels) {
+        update();
+
+        //intersection size per concept
+        Map<Resource, Integer> concept2shared = new HashMap<>();
+        for (String label : labels) {
+            for (Resource concept : hiddenLabel2concepts.getOrDefault(label, new HashSet<>())) {
+                if (positiveConcepts.contains(concept)) {
+                    concept2shared.merge(concept, 1, Integer::sum);
+                }
+            }
+        }
+
+        Match best = null;
+        for (Entry<Resource, Integer> entry : concept2shared.entrySet()) {
+            Resource concept = entry.getKey();
+            int shared = entry.getValue();
+            double jaccard = shared / (double) (labels.size() + concept2hiddenLabels.get(concept).size() - shared);
+
+            int order = concept2order.get(concept);
+            if (best == null || jaccard > best.jaccard || (jaccard == best.jaccard && order < best.order)) {
+                best = new Match(concept, jaccard, order);
+            }
+        }
+        return best;
+    }
+
+    private void update() {
+        if (!loaded) {
+            load();
+            return;
+        }
+
+        //committed but not yet notified changes
+        markDirty(pool.getNotificationBuffer());
+
+        List<Resource> concepts = new ArrayList<>(dirty.keySet());
+        concepts.sort((a, b) -> Integer.compare(dirty.get(a), dirty.get(b)));
+        for (Resource concept : concepts) {
+            reload(concept);
+        }
+        dirty.clear();
+    }
+
+    private void markDirty(Collection<Assertion> changes) {
+        if (!loaded) {
+            return;
+        }
+        for (Assertion change : changes) {
+            if (change.getPhase() != Phase.ConceptDiscovery) {
+                continue;
+            }
+            if (change.getStatement().getPredicate().equals(RDF.type)) {
+                dirty.merge(change.getSubject(), change.getIntelligence().ordinal(), Math::min);
+            } else if (change.getStatement().getPredicate().equals(SKOS.hiddenLabel)) {
+                dirty.merge(change.getSubject(), Intelligence.values().length, Math::min);
+            }
+        }
+    }
+
+    private void load() {
+        long begin = System.currentTimeMillis();
+
+        for (Assertion conceptAssertion : pool.getAssertions(null, RDF.type, OWL2.NamedIndividual, Phase.ConceptDiscovery, null, null, null, 0)) {
+            concept2order.putIfAbsent(conceptAssertion.getSubject(), nextOrder++);
+            if (conceptAssertion.getRating() == Rating.Positive) {
+                positiveConcepts.add(conceptAssertion.getSubject());
+            }
+        }
+
+        for (Assertion hiddenLabel : pool.getAssertions(null, SKOS.hiddenLabel, null, Phase.ConceptDiscovery, null, null, null, 0)) {
+            add(hiddenLabel.getSubject(), hiddenLabel.getStatement().getString());
+        }
+
+        loaded = true;
+        dirty.clear();
+
+        long end = System.currentTimeMillis();
+        System.out.println("ConceptHiddenLabelIndex loaded " + positiveConcepts.size() + " positive concepts and " + hiddenLabel2concepts.size() + " hidden labels took " + (end - begin) + " ms");
+    }
+
+    private void reload(Resource concept) {
+        List<Assertion> conceptAssertions = pool.getAssertions(concept, RDF.type, OWL2.NamedIndividual, Phase.ConceptDiscovery, null, null, null, 0);
+        if (conceptAssertions.isEmpty()) {
+            //removed
+            concept2order.remove(concept);
+            positiveConcepts.remove(concept);
+        } else {
+            //a concept keeps its place when its rating changes
+            concept2order.putIfAbsent(concept, nextOrder++);
+            if (conceptAssertions.get(0).getRating() == Rating.Positive) {
+                positiveConcepts.add(concept);
+            } else {
+                positiveConcepts.remove(concept);
+            }
+        }
+
+        for (String label : concept2hiddenLabels.getOrDefault(concept, new HashSet<>())) {
+            Set<Resource> concepts = hiddenLabel2concepts.get(label);
+            concepts.remove(concept);
+            if (concepts.isEmpty()) {
+                hiddenLabel2concepts.remove(label);
+            }
+        }
+        concept2hiddenLabels.remove(concept);
+
+        for (Assertion hiddenLabel : pool.getAssertions(concept, SKOS.hiddenLabel, null, Phase.ConceptDiscovery, null, null, null, 0)) {
+            add(concept, hiddenLabel.getStatement().getString());
+        }
+    }
+
+    private void add(Resource concept, String label) {
+        concept2hiddenLabels.computeIfAbsent(concept, c -> new LinkedHashSet<>()).add(label);
+        hiddenLabel2concepts.computeIfAbsent(label, l -> new HashSet<>()).add(concept);
+    }
+
+    /**
+     * A concept and its Jaccard similarity.
+     */
+    public static class Match {
+
+        private Resource concept;
+        private double jaccard;
+        private int order;
+
+        public Match(Resource concept, double jaccard, int order) {
+            this.concept = concept;
+            this.jaccard = jaccard;
+            this.order = order;
+        }
+
+        public Resource getConcept() {
+            return concept;
+        }
+
+        public double getJaccard() {
+            return jaccard;
+        }
+
+    }
+
+}
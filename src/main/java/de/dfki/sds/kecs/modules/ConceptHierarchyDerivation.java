@@ -2,6 +2,7 @@
 package de.dfki.sds.kecs.modules;
 
 import de.dfki.sds.hephaistos.storage.assertion.Assertion;
+import de.dfki.sds.hephaistos.storage.assertion.AssertionPattern;
 import de.dfki.sds.hephaistos.storage.assertion.AssertionPool;
 import de.dfki.sds.hephaistos.storage.assertion.Intelligence;
 import de.dfki.sds.hephaistos.storage.assertion.Phase;
@@ -13,6 +14,7 @@ import de.dfki.sds.stringanalyzer.helper.GermaNet;
 import de.dfki.sds.stringanalyzer.helper.GermaNet.SynSet;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -41,11 +43,26 @@ public class ConceptHierarchyDerivation extends Module {
         
     }
 
+    @Override
+    public Set<ModuleResource> getRequiredResources() {
+        return EnumSet.of(ModuleResource.LanguageResource);
+    }
+
     @Override
     public void init(FileInfoStorage fileInfoStorage, AssertionPool pool, KecsSettings settings) {
         this.settings = settings;
     }
     
+    //the changes filtered in updateOnChanges
+    @Override
+    public List<AssertionPattern> getPatterns() {
+        return Arrays.asList(
+                new AssertionPattern(RDF.type, Phase.OntologyPopulation, Intelligence.NI),
+                new AssertionPattern(SKOS.prefLabel, Phase.ConceptDiscovery, Intelligence.NI),
+                new AssertionPattern(SKOS.broader, Phase.ConceptHierarchyDerivation, Intelligence.NI)
+        );
+    }
+
     @Override
     public void updateOnChanges(FileInfoStorage fileInfoStorage, AssertionPool pool, List<Assertion> changes) {
         timeStat("ConceptHierarchyDerivation", () -> {
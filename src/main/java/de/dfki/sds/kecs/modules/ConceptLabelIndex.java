@@ -0,0 +1,228 @@
+package de.dfki.sds.kecs.modules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.apache.jena.rdf.model.Resource;
+
+/**
+ * In-memory index over concept pref labels (and hidden labels) to find the concepts which could be
+ * the same as a given one, used in {@link ConceptDiscovery}.
+ * It returns candidates for the checks in labelsLeadToSameAsSuggestions:
+ * prefix/suffix/equal labels, labels within the Levenshtein threshold (BK-tree),
+ * labels with the same token set and concepts sharing a hidden label.
+ * Candidates are ordinals in the iteration order of the pref label map.
+ */
+public class ConceptLabelIndex {
+
+    //same as in ConceptDiscovery
+    public static final String TOKEN_SPLIT_REGEX = "[ \\-_]+";
+
+    private List<Resource> concepts;
+    private List<String> prefLabels;
+
+    private NavigableMap<String, List<Integer>> label2ordinals;
+    private NavigableMap<String, List<Integer>> reversed2ordinals;
+    private Map<Set<String>, List<Integer>> tokenSet2ordinals;
+    private Map<String, List<Integer>> hiddenLabel2ordinals;
+
+    private BKTree bkTree;
+    private int levenshteinThreshold;
+    private int levenshteinLengthThreshold;
+
+    /**
+     *
+     * @param prefLabelMap concept to pref label
+     * @param concept2hiddenLabels hidden labels of the concepts
+     * @param levenshteinThreshold max distance
+     * @param levenshteinLengthThreshold both labels need at least this length to compare the distance
+     */
+    public ConceptLabelIndex(Map<Resource, String> prefLabelMap, Map<Resource, Set<String>> concept2hiddenLabels, int levenshteinThreshold, int levenshteinLengthThreshold) {
+        this.levenshteinThreshold = levenshteinThreshold;
+        this.levenshteinLengthThreshold = levenshteinLengthThreshold;
+
+        concepts = new ArrayList<>();
+        prefLabels = new ArrayList<>();
+        label2ordinals = new TreeMap<>();
+        reversed2ordinals = new TreeMap<>();
+        tokenSet2ordinals = new HashMap<>();
+        hiddenLabel2ordinals = new HashMap<>();
+        bkTree = new BKTree();
+
+        for (Entry<Resource, String> entry : prefLabelMap.entrySet()) {
+            String label = entry.getValue();
+            if (label == null) {
+                continue;
+            }
+
+            int ordinal = concepts.size();
+            concepts.add(entry.getKey());
+            prefLabels.add(label);
+
+            label2ordinals.computeIfAbsent(label, l -> new ArrayList<>()).add(ordinal);
+            reversed2ordinals.computeIfAbsent(reverse(label), l -> new ArrayList<>()).add(ordinal);
+            tokenSet2ordinals.computeIfAbsent(getTokenSet(label), l -> new ArrayList<>()).add(ordinal);
+
+            if (label.length() >= levenshteinLengthThreshold) {
+                bkTree.add(label, ordinal);
+            }
+
+            for (String hiddenLabel : concept2hiddenLabels.getOrDefault(entry.getKey(), Collections.emptySet())) {
+                hiddenLabel2ordinals.computeIfAbsent(hiddenLabel, l -> new ArrayList<>()).add(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Ordinals of concepts which could be the same as the one with the given labels.
+     * @param prefLabel
+     * @param hiddenLabels
+     * @return
+     */
+    public BitSet getCandidates(String prefLabel, Set<String> hiddenLabels) {
+        BitSet candidates = new BitSet(concepts.size());
+
+        //other label is prefix or suffix of (or equal to) this label
+        for (int i = 0; i <= prefLabel.length(); i++) {
+            addAll(candidates, label2ordinals.get(prefLabel.substring(0, i)));
+            addAll(candidates, label2ordinals.get(prefLabel.substring(i)));
+        }
+
+        //this label is prefix of other label
+        for (Entry<String, List<Integer>> entry : label2ordinals.tailMap(prefLabel, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefLabel)) {
+                break;
+            }
+            addAll(candidates, entry.getValue());
+        }
+
+        //this label is suffix of other label
+        String reversed = reverse(prefLabel);
+        for (Entry<String, List<Integer>> entry : reversed2ordinals.tailMap(reversed, true).entrySet()) {
+            if (!entry.getKey().startsWith(reversed)) {
+                break;
+            }
+            addAll(candidates, entry.getValue());
+        }
+
+        if (prefLabel.length() >= levenshteinLengthThreshold) {
+            bkTree.search(prefLabel, levenshteinThreshold, candidates);
+        }
+
+        addAll(candidates, tokenSet2ordinals.get(getTokenSet(prefLabel)));
+
+        for (String hiddenLabel : hiddenLabels) {
+            addAll(candidates, hiddenLabel2ordinals.get(hiddenLabel));
+        }
+
+        return candidates;
+    }
+
+    public Resource getConcept(int ordinal) {
+        return concepts.get(ordinal);
+    }
+
+    public String getPrefLabel(int ordinal) {
+        return prefLabels.get(ordinal);
+    }
+
+    public int size() {
+        return concepts.size();
+    }
+
+    public static Set<String> getTokenSet(String label) {
+        return new TreeSet<>(Arrays.asList(label.split(TOKEN_SPLIT_REGEX)));
+    }
+
+    private static String reverse(String text) {
+        return new StringBuilder(text).reverse().toString();
+    }
+
+    private static void addAll(BitSet candidates, List<Integer> ordinals) {
+        if (ordinals == null) {
+            return;
+        }
+        for (int ordinal : ordinals) {
+            candidates.set(ordinal);
+        }
+    }
+
+    //Burkhard-Keller tree over Levenshtein distance
+    private static class BKTree {
+
+        private Node root;
+
+        private void add(String label, int ordinal) {
+            if (root == null) {
+                root = new Node(label);
+                root.ordinals.add(ordinal);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int dist = LevenshteinDistance.getDefaultInstance().apply(label, node.label);
+                if (dist == 0) {
+                    node.ordinals.add(ordinal);
+                    return;
+                }
+                Node child = node.children.get(dist);
+                if (child == null) {
+                    child = new Node(label);
+                    child.ordinals.add(ordinal);
+                    node.children.put(dist, child);
+                    node.maxChildDist = Math.max(node.maxChildDist, dist);
+                    return;
+                }
+                node = child;
+            }
+        }
+
+        private void search(String label, int maxDist, BitSet result) {
+            if (root == null) {
+                return;
+            }
+            List<Node> stack = new ArrayList<>();
+            stack.add(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.remove(stack.size() - 1);
+                //a larger distance matches neither the node nor a child (-1 if above the threshold)
+                int dist = new LevenshteinDistance(maxDist + node.maxChildDist).apply(label, node.label);
+                if (dist == -1) {
+                    continue;
+                }
+                if (dist <= maxDist) {
+                    addAll(result, node.ordinals);
+                }
+                //triangle inequality
+                for (Entry<Integer, Node> child : node.children.entrySet()) {
+                    if (Math.abs(child.getKey() - dist) <= maxDist) {
+                        stack.add(child.getValue());
+                    }
+                }
+            }
+        }
+
+        private static class Node {
+
+            private String label;
+            private List<Integer> ordinals = new ArrayList<>();
+            private Map<Integer, Node> children = new HashMap<>();
+            private int maxChildDist;
+
+            private Node(String label) {
+                this.label = label;
+            }
+        }
+    }
+
+}
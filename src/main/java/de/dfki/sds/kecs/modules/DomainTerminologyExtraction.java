@@ -2,8 +2,8 @@ package de.dfki.sds.kecs.modules;
 
 import de.dfki.sds.hephaistos.storage.StorageItem;
 import de.dfki.sds.hephaistos.storage.assertion.Assertion;
+import de.dfki.sds.hephaistos.storage.assertion.AssertionPattern;
 import de.dfki.sds.hephaistos.storage.assertion.AssertionPool;
-import de.dfki.sds.hephaistos.storage.assertion.Concept;
 import de.dfki.sds.hephaistos.storage.assertion.Intelligence;
 import de.dfki.sds.hephaistos.storage.assertion.Phase;
 import de.dfki.sds.hephaistos.storage.assertion.Rating;
@@ -12,17 +12,23 @@ import de.dfki.sds.hephaistos.storage.file.FileInfoStorage;
 import de.dfki.sds.kecs.KecsApp;
 import de.dfki.sds.kecs.KecsSettings;
 import de.dfki.sds.kecs.server.KecsHumlServer;
+import de.dfki.sds.kecs.util.BasenameIndex;
 import de.dfki.sds.kecs.util.ExceptionUtility;
 import de.dfki.sds.kecs.util.FileInfoSearchResult;
 import de.dfki.sds.kecs.util.KecsUtils;
 import de.dfki.sds.kecs.vocab.KECS;
-import de.dfki.sds.mschroeder.commons.lang.RegexUtility;
 import de.dfki.sds.mschroeder.commons.lang.SetUtility;
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -30,8 +36,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import org.ahocorasick.trie.Emit;
+import org.ahocorasick.trie.Trie;
+import org.ahocorasick.trie.Trie.TrieBuilder;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.rdf.model.RDFNode;
@@ -39,7 +52,6 @@ import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.sparql.vocabulary.FOAF;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.SKOS;
-import org.json.JSONObject;
 
 /**
  *
@@ -51,7 +63,17 @@ public class DomainTerminologyExtraction extends Module {
 
     private Set<String> stopwords;
 
-    private Map<Resource, String> file2basename;
+    private static final Pattern ALPHABETIC_PATTERN = Pattern.compile("[a-zA-ZüöäÜÖÄß]+");
+    private static final Pattern DIGITS_PATTERN = Pattern.compile("\\d+");
+    private static final int BOOTSTRAP_CHUNK_SIZE = 1000;
+
+    //file rows, the same as in basenameIndex
+    private Resource[] files;
+    private String[] basenames;
+    private BasenameIndex basenameIndex;
+    
+    //concepts by hidden labels for getOrCreateConcept, a listener of the pool
+    private ConceptHiddenLabelIndex conceptHiddenLabelIndex;
     
     private FileInfoStorage fileInfoStorage;
 
@@ -59,6 +81,12 @@ public class DomainTerminologyExtraction extends Module {
         
     }
 
+    //ModuleUtils
+    @Override
+    public Set<ModuleResource> getRequiredResources() {
+        return EnumSet.of(ModuleResource.LemmaTable);
+    }
+
     @Override
     public void init(FileInfoStorage fileInfoStorage, AssertionPool pool, KecsSettings settings) {
         this.settings = settings;
@@ -75,28 +103,39 @@ public class DomainTerminologyExtraction extends Module {
         
         this.fileInfoStorage = fileInfoStorage;
         initCache(fileInfoStorage);
+        
+        //registered before the modules, so it knows the changes before they are notified
+        conceptHiddenLabelIndex = new ConceptHiddenLabelIndex(pool);
+        pool.addListener(conceptHiddenLabelIndex);
     }
 
     //this is used for faster find method in generalizePositiveTerms
     private void initCache(FileInfoStorage fileInfoStorage) {
         long begin, end;
 
-        file2basename = new HashMap<>();
+        List<Resource> fileList = new ArrayList<>();
+        List<String> uriList = new ArrayList<>();
+        List<String> basenameList = new ArrayList<>();
 
         begin = System.currentTimeMillis();
         for (StorageItem storageItem : fileInfoStorage.getTreeIter(fileInfoStorage.getRoot())) {
 
             FileInfo fileInfo = (FileInfo) storageItem;
-            JSONObject meta = new JSONObject(fileInfo.getMeta());
-            String basename = meta.getString("basename");
-            String uri = meta.getString("uri");
-            Resource fileResource = KecsApp.creator.createResource(uri);
+            Resource fileResource = KecsApp.creator.createResource(fileInfo.getUri());
 
-            file2basename.put(fileResource, basename);
+            fileList.add(fileResource);
+            uriList.add(fileInfo.getUri());
+            basenameList.add(fileInfo.getBasename() == null ? "" : fileInfo.getBasename());
         }
+        files = fileList.toArray(new Resource[0]);
+        basenames = basenameList.toArray(new String[0]);
         end = System.currentTimeMillis();
 
-        System.out.println("DomainTerminologyExtraction file2basename init cache with " + file2basename.size() + " files took " + (end - begin) + " ms");
+        System.out.println("DomainTerminologyExtraction basenames init cache with " + files.length + " files took " + (end - begin) + " ms");
+        
+        //stored next to data.sqlite
+        File indexFile = settings.getOutputFolder() == null ? null : new File(settings.getOutputFolder(), BasenameIndex.DEFAULT_FILENAME);
+        basenameIndex = BasenameIndex.loadOrCreate(indexFile, uriList.toArray(new String[0]), basenames);
     }
 
     @Override
@@ -105,21 +144,52 @@ public class DomainTerminologyExtraction extends Module {
     }
 
     //v1 is based on splitByCharacterTypeCamelCase and heuristics
+    //files are tokenized and rated in chunks in parallel, the results are asserted in tree order
     private void bootstrapV1(FileInfoStorage fileInfoStorage, AssertionPool pool) {
         String symbols = ModuleUtils.getSymbols();
 
-        Iterable<StorageItem> iter = fileInfoStorage.getTreeIter(fileInfoStorage.getRoot());
+        List<FileInfo> fileInfos = new ArrayList<>();
+        for (StorageItem node : fileInfoStorage.getTreeIter(fileInfoStorage.getRoot())) {
+            fileInfos.add((FileInfo) node);
+        }
+
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        //bounded, so that not all results are in memory
+        int maxPendingChunks = parallelism * 2;
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try {
+            Deque<ForkJoinTask<List<TokenRating>>> pending = new ArrayDeque<>();
+            int next = 0;
+
+            while (next < fileInfos.size() || !pending.isEmpty()) {
+
+                while (next < fileInfos.size() && pending.size() < maxPendingChunks) {
+                    List<FileInfo> chunk = fileInfos.subList(next, Math.min(next + BOOTSTRAP_CHUNK_SIZE, fileInfos.size()));
+                    pending.add(forkJoinPool.submit(() -> tokenize(chunk, symbols)));
+                    next += chunk.size();
+                }
+
+                //the pool is only written by this thread
+                for (TokenRating tokenRating : pending.poll().join()) {
+                    pool.assertStatement(KecsApp.creator.createResource(tokenRating.uri), KECS.containsDomainTerm, tokenRating.token,
+                            Phase.DomainTerminologyExtraction, Intelligence.AI, "DomainTerminologyExtraction", tokenRating.rating, 1.0);
+                }
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
 
-        for (StorageItem node : iter) {
+        pool.commit();
+    }
 
-            FileInfo fileInfo = (FileInfo) node;
+    private List<TokenRating> tokenize(List<FileInfo> chunk, String symbols) {
+        List<TokenRating> result = new ArrayList<>();
 
-            JSONObject meta = new JSONObject(fileInfo.getMeta());
+        for (FileInfo fileInfo : chunk) {
 
             //basename already removed the extension
-            String prefLabel = meta.getString("basename");
-            //boolean isFile = !fileInfo.isDirectory();
-            Resource resource = KecsApp.creator.createResource(meta.getString("uri"));
+            String prefLabel = fileInfo.getBasename();
 
             List<String> tokenList = new ArrayList<>(Arrays.asList(StringUtils.splitByCharacterTypeCamelCase(prefLabel)));
             Set<String> tokenSet = new HashSet<>(tokenList);
@@ -140,56 +210,75 @@ public class DomainTerminologyExtraction extends Module {
                     continue;
                 }
 
-                Rating rating = Rating.Undecided;
-                double conf = 1.0;
+                result.add(new TokenRating(fileInfo.getUri(), token, rateToken(token, symbols)));
+            }
+        }
 
-                //single letter or symbols
-                if (rating == Rating.Undecided && token.length() <= 1) {
-                    rating = Rating.Negative;
-                }
+        return result;
+    }
 
-                //year
-                if (rating == Rating.Undecided) {
-                    try {
-                        int year = Integer.parseInt(token);
-                        if (year >= 1980 && year <= 2030) {
-                            rating = Rating.Positive;
-                        }
-                    } catch (Exception e) {
-                        //ignore
-                    }
-                }
+    private Rating rateToken(String token, String symbols) {
+        Rating rating = Rating.Undecided;
 
-                //stopword
-                if (rating == Rating.Undecided && stopwords.contains(token.toLowerCase())) {
-                    rating = Rating.Negative;
-                }
+        //single letter or symbols
+        if (rating == Rating.Undecided && token.length() <= 1) {
+            rating = Rating.Negative;
+        }
 
-                //alphabetic (also german)
-                if (rating == Rating.Undecided && token.matches("[a-zA-ZüöäÜÖÄß]+")) {
+        //year
+        if (rating == Rating.Undecided) {
+            try {
+                int year = Integer.parseInt(token);
+                if (year >= 1980 && year <= 2030) {
                     rating = Rating.Positive;
                 }
+            } catch (Exception e) {
+                //ignore
+            }
+        }
 
-                //number which is not a year
-                if (rating == Rating.Undecided && token.matches("\\d+")) {
-                    rating = Rating.Negative;
-                }
+        //stopword
+        if (rating == Rating.Undecided && stopwords.contains(token.toLowerCase())) {
+            rating = Rating.Negative;
+        }
 
-                //only symbols, like "__" or "$|--._"
-                if (rating == Rating.Undecided && StringUtils.containsOnly(token, symbols)) {
-                    rating = Rating.Negative;
-                }
+        //alphabetic (also german)
+        if (rating == Rating.Undecided && ALPHABETIC_PATTERN.matcher(token).matches()) {
+            rating = Rating.Positive;
+        }
 
-                pool.assertStatement(resource, KECS.containsDomainTerm, token,
-                        Phase.DomainTerminologyExtraction, Intelligence.AI, "DomainTerminologyExtraction", rating, conf);
-            }
+        //number which is not a year
+        if (rating == Rating.Undecided && DIGITS_PATTERN.matcher(token).matches()) {
+            rating = Rating.Negative;
+        }
 
-            //if(pool.getCommitBufferSize() > 100000) {
-            //    pool.commit();
-            //}
+        //only symbols, like "__" or "$|--._"
+        if (rating == Rating.Undecided && StringUtils.containsOnly(token, symbols)) {
+            rating = Rating.Negative;
         }
 
-        pool.commit();
+        return rating;
+    }
+
+    private static class TokenRating {
+        String uri;
+        String token;
+        Rating rating;
+
+        public TokenRating(String uri, String token, Rating rating) {
+            this.uri = uri;
+            this.token = token;
+            this.rating = rating;
+        }
+    }
+
+    //the changes filtered in updateOnChanges
+    @Override
+    public List<AssertionPattern> getPatterns() {
+        return Arrays.asList(
+                new AssertionPattern(KECS.containsDomainTerm, aiPhase, null),
+                new AssertionPattern(SKOS.hiddenLabel, Phase.ConceptDiscovery, Intelligence.NI)
+        );
     }
 
     @Override
@@ -254,7 +343,10 @@ public class DomainTerminologyExtraction extends Module {
         String text;
         Set<String> variations;
         Resource file;
+        //only for regex terms, the others are matched by TermAutomaton
         List<Pattern> patterns;
+        Set<String> caseSensitiveVariations;
+        Set<String> caseInsensitiveVariations;
         Set<String> found;
         boolean isRegex;
         Map<Resource, Set<String>> resource2terms;
@@ -288,9 +380,16 @@ public class DomainTerminologyExtraction extends Module {
                     }
                 }
             });
-
+            
+            caseSensitiveVariations = varCs;
+            caseInsensitiveVariations = varCi;
+            
             //so we have two patterns: case sensitive and insensitive
             patterns = new ArrayList<>();
+            if(!isRegex) {
+                return;
+            }
+            
             for(int i = 0; i < varList.size(); i++) {
 
                 Set<String> vars = varList.get(i);
@@ -300,30 +399,140 @@ public class DomainTerminologyExtraction extends Module {
                     continue;
                 }
 
-                String glue = "([a-zA-ZÜÖÄüöä])?";
-
-                StringBuilder patternSB = new StringBuilder();
-                //left glue (group 1)
-                if(!isRegex) {
-                    patternSB.append(glue);
-                }
-                
-                //found term (group 2)
+                //found term (group 1)
                 StringJoiner sj = new StringJoiner("|", "(", ")");
-                vars.forEach(v -> sj.add(isRegex ? v : RegexUtility.quote(v)));
-                patternSB.append(sj.toString());
-
-                //right glue (group 3)
-                if(!isRegex) {
-                    patternSB.append(glue);
-                }
+                vars.forEach(v -> sj.add(v));
                 
                 if(i == 0) {
-                    patterns.add(Pattern.compile(patternSB.toString()));
+                    patterns.add(Pattern.compile(sj.toString()));
                 } else {
-                    patterns.add(Pattern.compile(patternSB.toString(), Pattern.CASE_INSENSITIVE));
+                    patterns.add(Pattern.compile(sj.toString(), Pattern.CASE_INSENSITIVE));
+                }
+            }
+        }
+    }
+    
+    /**
+     * One Aho-Corasick automaton over the variations of all (non regex) terms,
+     * so that a basename is scanned once for all terms.
+     * Like the patterns before, there is a case sensitive and a case insensitive one.
+     */
+    private class TermAutomaton {
+        
+        private Trie caseSensitive;
+        private Trie caseInsensitive;
+        
+        //variation (lower case for the insensitive one) to the terms having it
+        private Map<String, List<Term>> cs2terms;
+        private Map<String, List<Term>> ci2terms;
+        
+        public TermAutomaton(List<Term> terms) {
+            cs2terms = new HashMap<>();
+            ci2terms = new HashMap<>();
+            
+            TrieBuilder csBuilder = Trie.builder();
+            TrieBuilder ciBuilder = Trie.builder().ignoreCase();
+            
+            for(Term term : terms) {
+                if(term.isRegex) {
+                    continue;
+                }
+                for(String v : term.caseSensitiveVariations) {
+                    if(v.isEmpty())
+                        continue;
+                    
+                    csBuilder.addKeyword(v);
+                    cs2terms.computeIfAbsent(v, k -> new ArrayList<>()).add(term);
+                }
+                for(String v : term.caseInsensitiveVariations) {
+                    if(v.isEmpty())
+                        continue;
+                    
+                    ciBuilder.addKeyword(v);
+                    ci2terms.computeIfAbsent(v.toLowerCase(), k -> new ArrayList<>()).add(term);
+                }
+            }
+            
+            caseSensitive = cs2terms.isEmpty() ? null : csBuilder.build();
+            caseInsensitive = ci2terms.isEmpty() ? null : ciBuilder.build();
+        }
+        
+        public boolean isEmpty() {
+            return caseSensitive == null && caseInsensitive == null;
+        }
+        
+        /**
+         * Matches of the terms in the text which are not glued to other letters.
+         * @param text
+         * @param glueThreshold if the match is that long or shorter both sides have to be separated,
+         * else one is enough
+         * @return term to the found texts
+         */
+        public Map<Term, Set<String>> find(String text, int glueThreshold) {
+            Map<Term, List<int[]>> term2spans = new HashMap<>();
+            
+            if(caseSensitive != null) {
+                for(Emit emit : caseSensitive.parseText(text)) {
+                    addSpan(emit, cs2terms.get(emit.getKeyword()), text, glueThreshold, term2spans);
+                }
+            }
+            if(caseInsensitive != null) {
+                for(Emit emit : caseInsensitive.parseText(text)) {
+                    addSpan(emit, ci2terms.get(emit.getKeyword().toLowerCase()), text, glueThreshold, term2spans);
                 }
             }
+            
+            if(term2spans.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            
+            Map<Term, Set<String>> term2found = new HashMap<>();
+            for(Entry<Term, List<int[]>> entry : term2spans.entrySet()) {
+                List<int[]> spans = entry.getValue();
+                
+                //like a regex: leftmost first, the longer one on same start, no overlaps
+                spans.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+                
+                int consumed = -1;
+                for(int[] span : spans) {
+                    if(span[0] <= consumed) {
+                        continue;
+                    }
+                    consumed = span[1];
+                    term2found.computeIfAbsent(entry.getKey(), t -> new HashSet<>()).add(text.substring(span[0], span[1] + 1));
+                }
+            }
+            return term2found;
+        }
+        
+        private void addSpan(Emit emit, List<Term> terms, String text, int glueThreshold, Map<Term, List<int[]>> term2spans) {
+            if(terms == null) {
+                return;
+            }
+            
+            int start = emit.getStart();
+            int end = emit.getEnd();
+            
+            boolean leftSep = start == 0 || !BasenameIndex.isGlue(text.charAt(start - 1));
+            boolean rightSep = end == text.length() - 1 || !BasenameIndex.isGlue(text.charAt(end + 1));
+            //matching length
+            int len = end - start + 1;
+            
+            boolean fulfilled;
+            if (len <= glueThreshold) {
+                fulfilled = leftSep && rightSep;
+            } else {
+                //be less restictive if length is long
+                fulfilled = leftSep || rightSep;
+            }
+            
+            if(!fulfilled) {
+                return;
+            }
+            
+            for(Term term : terms) {
+                term2spans.computeIfAbsent(term, t -> new ArrayList<>()).add(new int[] { start, end });
+            }
         }
     }
 
@@ -495,97 +704,100 @@ public class DomainTerminologyExtraction extends Module {
         //TODO magic number
         int glueThreshold = 9;
         
-        class RegexRunnable implements Runnable {
-
-            Collection<Entry<Resource, String>> entries;
-            //Map<Resource, Set<String>> resource2terms = new HashMap<>();
-            
-            public RegexRunnable(Collection<Entry<Resource, String>> entries) {
-                this.entries = entries;
-                //this.resource2terms = new HashMap<>();
+        //all non regex terms in one automaton
+        TermAutomaton automaton = new TermAutomaton(terms);
+        
+        List<Term> regexTerms = new ArrayList<>();
+        for(Term term : terms) {
+            if(term.isRegex) {
+                regexTerms.add(term);
             }
-            
-            @Override
-            public void run() {
-                for(Term term : terms) {
-                    for(int i = 0; i < term.patterns.size(); i++) {
-                        Pattern p = term.patterns.get(i);
+        }
+        
+        //the automaton only runs on the basenames the index gives us
+        if(!automaton.isEmpty()) {
+            forEachRow(getCandidateRows(terms), row -> {
+                for(Entry<Term, Set<String>> found : automaton.find(basenames[row], glueThreshold).entrySet()) {
+                    addFound(found.getKey(), files[row], found.getValue());
+                }
+            });
+        }
+        
+        //a regex can not use the index
+        if(!regexTerms.isEmpty()) {
+            forEachRow(IntStream.range(0, basenames.length).toArray(), row -> {
+                for(Term term : regexTerms) {
+                    for(Pattern p : term.patterns) {
                         if(p == null) {
                             continue;
                         }
-
-                        for(Entry<Resource, String> entry : entries) {
-                            Matcher matcher = p.matcher(entry.getValue());
-
-                            while(matcher.find()) {
-
-                                if(!term.isRegex) {
-                                    boolean fulfilled;
-                                    
-                                    //because of \b it is empty
-                                    boolean leftSep  = matcher.group(1) == null;
-                                    //matching length
-                                    int len = matcher.group(2).length();
-                                    //because of \b it is empty
-                                    boolean rightSep = matcher.group(3) == null;
-                                    
-                                    if (len <= glueThreshold) {
-                                        fulfilled = leftSep && rightSep;
-                                    } else {
-                                        //be less restictive if length is long
-                                        fulfilled = leftSep || rightSep;
-                                    }
-                                    
-                                    if(fulfilled) {
-                                        term.found.add(matcher.group(2));
-                                        term.resource2terms.computeIfAbsent(entry.getKey(), n -> new HashSet<>()).add(matcher.group(2));
-                                    }
-                                    
-                                } else {
-                                    //if there is a group "(...)" use the first one
-                                    String text;
-                                    if(matcher.groupCount() > 1) {
-                                        text = matcher.group(2);
-                                    } else {
-                                        text = matcher.group();//same as group(1)
-                                    }
-                                    if(!text.isEmpty()) {
-                                        term.found.add(text);
-                                        term.resource2terms.computeIfAbsent(entry.getKey(), n -> new HashSet<>()).add(text);
-                                    }
-                                }
-                                
+                        
+                        Matcher matcher = p.matcher(basenames[row]);
+                        
+                        while(matcher.find()) {
+                            //if there is a group "(...)" in the regex use it
+                            String text;
+                            if(matcher.groupCount() > 1) {
+                                text = matcher.group(2);
+                            } else {
+                                text = matcher.group();//same as group(1)
+                            }
+                            if(text != null && !text.isEmpty()) {
+                                addFound(term, files[row], Arrays.asList(text));
                             }
                         }
                     }
                 }
+            });
+        }
+    }
+    
+    //rows of basenames which can contain a variation of the (non regex) terms
+    private int[] getCandidateRows(List<Term> terms) {
+        BitSet candidates = new BitSet(basenames.length);
+        for(Term term : terms) {
+            if(term.isRegex) {
+                continue;
+            }
+            for(String v : SetUtility.union(term.caseSensitiveVariations, term.caseInsensitiveVariations)) {
+                BitSet rows = basenameIndex.getCandidates(v);
+                if(rows == null) {
+                    //the index can not help, so we scan all
+                    return IntStream.range(0, basenames.length).toArray();
+                }
+                candidates.or(rows);
             }
         }
-        
+        return candidates.stream().toArray();
+    }
+    
+    private void addFound(Term term, Resource file, Collection<String> texts) {
+        synchronized(term) {
+            term.found.addAll(texts);
+            term.resource2terms.computeIfAbsent(file, n -> new HashSet<>()).addAll(texts);
+        }
+    }
+    
+    private void forEachRow(int[] rows, IntConsumer consumer) {
         //seems to be not necessary for better optimization
-        //maybe threads make sense when more terms are there, e.g. count >= 4
-        //only use threads of set of files are large
-        int numThread = file2basename.size() > 50000 ? 4 : 0;
-        
-        //List<RegexRunnable> regexRunnables = new ArrayList<>();
-        List<Thread> threads = new ArrayList<>();
+        //only use threads if set of files are large
+        int numThread = rows.length > 50000 ? 4 : 0;
         
         if(numThread > 1) {
-            //around 112000 in one usecase
-            List<Entry<Resource, String>> fileEntries = new ArrayList<>(file2basename.entrySet());
+            List<Thread> threads = new ArrayList<>();
             
-            //split fileEntries
-            int splitSize = fileEntries.size() / numThread;
+            //split rows
+            int splitSize = rows.length / numThread;
             
             for(int i = 0; i < numThread; i++) {
-                List<Entry<Resource, String>> sublist = fileEntries.subList(
-                                                                 i    * splitSize, 
-                        i == numThread-1 ? fileEntries.size() : (i+1) * splitSize
-                );
+                int from = i * splitSize;
+                int to = i == numThread-1 ? rows.length : (i+1) * splitSize;
                 
-                RegexRunnable regexRunnable = new RegexRunnable(sublist);
-
-                Thread thread = new Thread(regexRunnable);
+                Thread thread = new Thread(() -> {
+                    for(int j = from; j < to; j++) {
+                        consumer.accept(rows[j]);
+                    }
+                });
                 threads.add(thread);
                 
                 thread.start();
@@ -600,15 +812,10 @@ public class DomainTerminologyExtraction extends Module {
             }
             
         } else {
-            RegexRunnable regexRunnable = new RegexRunnable(file2basename.entrySet());
-            regexRunnable.run();
+            for(int row : rows) {
+                consumer.accept(row);
+            }
         }
-        
-        //1 term takes around 300 ms
-        //5 terms take around 1000 ms (threading halfs this)
-        //for(Term term : terms) {
-        //    System.out.println(term.text + ", " + term.resource2terms.size() + " files found, numThread=" + numThread + ", took " + (end - begin) + " ms");
-        //}
     }
 
     private void getOrCreateConcept(List<Term> terms, AssertionPool pool) {
@@ -619,37 +826,13 @@ public class DomainTerminologyExtraction extends Module {
         
         for(Term term : terms) {
 
-            double maxJaccard = 0;
-            Concept maxConcept = null;
-            
-            //get from allFoundTerms all possible concepts
-            //use jaccard similarity
-            //will be around 500 to 1000 concepts so it is no problem to loop here
-            for (Concept concept : pool.getConcepts()) {
-
-                Set<String> techLabelStrings = new HashSet<>();
-                for (Assertion techLabel : concept.getHiddenLabels()) {
-                    techLabelStrings.add(techLabel.getStatement().getString());
-                }
-
-                double jaccard = SetUtility.intersection(term.found, techLabelStrings).size() / (double) SetUtility.union(term.found, techLabelStrings).size();
-
-                //System.out.println(term.found + " vs " + techLabelStrings + " => " + jaccard);
-                
-                if(jaccard > maxJaccard) {
-                    maxJaccard = jaccard;
-                    maxConcept = concept;
-                    
-                    //it will not get better
-                    if(maxJaccard == 1.0) {
-                        break;
-                    }
-                }
-            }
+            //best jaccard similarity of found terms and hidden labels
+            //only the concepts sharing at least one hidden label are compared
+            ConceptHiddenLabelIndex.Match maxMatch = conceptHiddenLabelIndex.getBestMatch(term.found);
 
             //best overlapping one
-            if (maxConcept != null && maxJaccard >= jaccardThreshold) {
-                term.matchedConcept = maxConcept.getResource();
+            if (maxMatch != null && maxMatch.getJaccard() >= jaccardThreshold) {
+                term.matchedConcept = maxMatch.getConcept();
                 
             } else {
                 //create one
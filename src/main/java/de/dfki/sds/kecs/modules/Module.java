@@ -13,10 +13,12 @@ import de.dfki.sds.stringanalyzer.helper.GermaNet;
 import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 /**
  * 
@@ -41,6 +43,16 @@ public abstract class Module implements AssertionListener {
     public void init(FileInfoStorage fileInfoStorage, AssertionPool pool, KecsSettings settings) {
         //empty
     }
+    
+    //the resources have to be loaded before init and bootstrap
+    public Set<ModuleResource> getRequiredResources() {
+        return EnumSet.noneOf(ModuleResource.class);
+    }
+    
+    //true if init asserts into the pool, then it is run by the one writer thread during bootstrap
+    public boolean isWritingInit(KecsSettings settings) {
+        return false;
+    }
 
     protected void print(List<Assertion> changes) {
         System.out.println();
@@ -0,0 +1,18 @@
+package de.dfki.sds.kecs.modules;
+
+/**
+ * Resources a {@link Module} needs to be loaded before its init and bootstrap
+ * (the lemma table only before bootstrap).
+ */
+public enum ModuleResource {
+
+    //DefaultItemEmbedding
+    Embedding,
+
+    //GermaNet or WordNet
+    LanguageResource,
+
+    //lemma table of ModuleUtils
+    LemmaTable
+
+}
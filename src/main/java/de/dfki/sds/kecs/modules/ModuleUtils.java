@@ -2,6 +2,7 @@
 package de.dfki.sds.kecs.modules;
 
 import de.dfki.sds.kecs.util.Lemmatizer;
+import de.dfki.sds.kecs.util.LruCache;
 import de.dfki.sds.mschroeder.commons.lang.StringUtility;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -13,6 +14,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.regex.Pattern;
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -20,24 +22,72 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class ModuleUtils {
     
-    private static Lemmatizer lemmatizer;
+    //loaded once, see init
+    private static volatile Lemmatizer lemmatizer;
     
+    //TODO magic number: labels of a cascade repeat a lot, but should not fill the memory
+    public static final int CACHE_CAPACITY = 20000;
+    
+    //results are computed once per term, variations are copied since callers add to them
+    private static final LruCache<String, Set<String>> variationsCache = new LruCache<>(CACHE_CAPACITY);
+    private static final LruCache<String, String> prefLabelCache = new LruCache<>(CACHE_CAPACITY);
+    
+    private static final List<String> SEPARATORS = Arrays.asList("", " ", "_", "-");
+    private static final String SEPARATORS_STR = " _-";
+    
+    //the same iteration order as the maps which were created per call
+    private static final Map<String, String> UMLAUT_TO_ESCAPE = new HashMap<>();
+    private static final Map<String, String> ESCAPE_TO_UMLAUT = new HashMap<>();
     static {
-        lemmatizer = new Lemmatizer("/de/dfki/sds/kecs/auxiliary/lemma.bin.gz");
+        UMLAUT_TO_ESCAPE.put("Ü", "Ue");
+        UMLAUT_TO_ESCAPE.put("Ö", "Oe");
+        UMLAUT_TO_ESCAPE.put("Ä", "Ae");
+        UMLAUT_TO_ESCAPE.put("ü", "ue");
+        UMLAUT_TO_ESCAPE.put("ö", "oe");
+        UMLAUT_TO_ESCAPE.put("ä", "ae");
+        
+        ESCAPE_TO_UMLAUT.put("Ue", "Ü");
+        ESCAPE_TO_UMLAUT.put("Oe", "Ö");
+        ESCAPE_TO_UMLAUT.put("Ae", "Ä");
+        ESCAPE_TO_UMLAUT.put("ue", "ü");
+        ESCAPE_TO_UMLAUT.put("oe", "ö");
+        ESCAPE_TO_UMLAUT.put("ae", "ä");
+    }
+    
+    private static final Pattern UPPER_CASE_OR_DIGITS_PATTERN = Pattern.compile("[A-ZÜÖÄ0-9]+");
+    private static final Pattern SPACES_PATTERN = Pattern.compile("[ ]+");
+    
+    /**
+     * Loads the lemma table, it is only done once.
+     * It is also called on first use, so call this to load it in advance.
+     */
+    public static synchronized void init() {
+        if (lemmatizer == null) {
+            lemmatizer = new Lemmatizer("/de/dfki/sds/kecs/auxiliary/lemma.bin.gz");
+        }
+    }
+    
+    private static Lemmatizer getLemmatizer() {
+        if (lemmatizer == null) {
+            init();
+        }
+        return lemmatizer;
     }
     
     public static Set<String> variations(String term) {
+        return new HashSet<>(variationsCache.get(term, ModuleUtils::computeVariations));
+    }
+    
+    private static Set<String> computeVariations(String term) {
         Set<String> variations = new HashSet<>();
         variations.add(term);
 
         String[] segments = StringUtils.splitByCharacterTypeCamelCase(term);
         
         List<String> segmentList = new ArrayList<>(Arrays.asList(segments));
-        List<String> separators = Arrays.asList("", " ", "_", "-");
-        String separatorsStr = " _-";
 
         //remove already existing separators
-        segmentList.removeIf(seg -> StringUtils.containsOnly(seg, separatorsStr));
+        segmentList.removeIf(seg -> StringUtils.containsOnly(seg, SEPARATORS_STR));
 
         //TODO magic number: threshold when making variations is too expensive
         if(segmentList.size() > 3) {
@@ -47,7 +97,7 @@ public class ModuleUtils {
         if (segmentList.size() > 1) {
             List<List<String>> separatorInput = new ArrayList<>();
             for (int i = 0; i < segmentList.size() - 1; i++) {
-                separatorInput.add(separators);
+                separatorInput.add(SEPARATORS);
             }
 
             List<List<String>> combinations = cartesianProductList(separatorInput);
@@ -66,15 +116,8 @@ public class ModuleUtils {
             }
         }
 
-        Map<String, String> umlautMap = new HashMap<>();
-        umlautMap.put("Ü", "Ue");
-        umlautMap.put("Ö", "Oe");
-        umlautMap.put("Ä", "Ae");
-        umlautMap.put("ü", "ue");
-        umlautMap.put("ö", "oe");
-        umlautMap.put("ä", "ae");
         boolean containedUmlaut = false;
-        for(Entry<String, String> entry : umlautMap.entrySet()) {
+        for(Entry<String, String> entry : UMLAUT_TO_ESCAPE.entrySet()) {
             if(term.contains(entry.getKey())) {
                 containedUmlaut = true;
                 term = term.replace(entry.getKey(), entry.getValue());
@@ -88,9 +131,13 @@ public class ModuleUtils {
     }
 
     public static String toPrefLabel(String term) {
+        return prefLabelCache.get(term, ModuleUtils::computePrefLabel);
+    }
+    
+    private static String computePrefLabel(String term) {
         String prefLabel = term;
         //"PRO-OPT", "ABC123" vs "ÜDS" vs "SensAI" vs "Grundsteuer" 
-        if (!prefLabel.matches("[A-ZÜÖÄ0-9]+") && !StringUtility.isCamelCase(term)) {
+        if (!UPPER_CASE_OR_DIGITS_PATTERN.matcher(prefLabel).matches() && !StringUtility.isCamelCase(term)) {
 
             prefLabel = umlautFixV2(prefLabel);
             
@@ -99,7 +146,7 @@ public class ModuleUtils {
 
             //too many strange effects for three-letter words
             if (prefLabel.length() >= 4) {
-                prefLabel = lemmatizer.lookupOr(prefLabel, lbl -> lbl);
+                prefLabel = getLemmatizer().lookupOr(prefLabel, lbl -> lbl);
             }
 
             //will also shrink multi spaces like "    "
@@ -137,7 +184,7 @@ public class ModuleUtils {
 
     public static String toProperCaseWords(String s) {
         StringJoiner sj = new StringJoiner(" ");
-        for (String word : s.split("[ ]+")) {
+        for (String word : SPACES_PATTERN.split(s)) {
             sj.add(toProperCase(word));
         }
         return sj.toString();
@@ -162,15 +209,7 @@ public class ModuleUtils {
             return null;
         }
 
-        Map<String, String> umlautMap = new HashMap<>();
-        umlautMap.put("Ue", "Ü");
-        umlautMap.put("Oe", "Ö");
-        umlautMap.put("Ae", "Ä");
-        umlautMap.put("ue", "ü");
-        umlautMap.put("oe", "ö");
-        umlautMap.put("ae", "ä");
-        
-        for(Map.Entry<String, String> e : umlautMap.entrySet()) {
+        for(Map.Entry<String, String> e : ESCAPE_TO_UMLAUT.entrySet()) {
             
             String esc = e.getKey();
             String umlaut = e.getValue();
@@ -232,6 +271,14 @@ public class ModuleUtils {
         return ret;
     }
 
+    /**
+     * Hits and misses of the memoized normalizations.
+     * @return
+     */
+    public static String getCacheStats() {
+        return "variations " + variationsCache + ", prefLabel " + prefLabelCache;
+    }
+
     public static String getSymbols() {
         String str = "";
         for (int i = 33; i <= 126; i++) {
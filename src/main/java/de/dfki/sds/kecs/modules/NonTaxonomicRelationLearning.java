@@ -2,6 +2,7 @@
 package de.dfki.sds.kecs.modules;
 
 import de.dfki.sds.hephaistos.storage.assertion.Assertion;
+import de.dfki.sds.hephaistos.storage.assertion.AssertionPattern;
 import de.dfki.sds.hephaistos.storage.assertion.AssertionPool;
 import de.dfki.sds.hephaistos.storage.assertion.Intelligence;
 import de.dfki.sds.hephaistos.storage.assertion.Phase;
@@ -12,13 +13,17 @@ import de.dfki.sds.kecs.KecsSettings;
 import de.dfki.sds.kecs.ml.Datasets;
 import de.dfki.sds.kecs.ml.FileNode;
 import de.dfki.sds.kecs.ml.GraphManager;
+import de.dfki.sds.kecs.ml.LinkPredictionScorer;
+import de.dfki.sds.kecs.ml.TopicGraph;
 import de.dfki.sds.kecs.util.Prediction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 import org.apache.commons.math3.ml.distance.DistanceMeasure;
 import org.apache.commons.math3.ml.distance.EuclideanDistance;
 import org.apache.jena.rdf.model.Property;
@@ -28,10 +33,7 @@ import org.apache.jena.sparql.vocabulary.FOAF;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
 import org.jgrapht.Graph;
-import org.jgrapht.alg.interfaces.LinkPredictionAlgorithm;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.DefaultUndirectedWeightedGraph;
-import org.jgrapht.graph.DefaultWeightedEdge;
 
 /**
  * 
@@ -56,6 +58,12 @@ public class NonTaxonomicRelationLearning extends Module {
         
     }
 
+    //in load mode init predicts links
+    @Override
+    public boolean isWritingInit(KecsSettings settings) {
+        return settings.getMode() == KecsSettings.Mode.Load || settings.getMode() == KecsSettings.Mode.Demo;
+    }
+
     @Override
     public void init(FileInfoStorage fileInfoStorage, AssertionPool pool, KecsSettings settings) {
         this.settings = settings;
@@ -78,11 +86,32 @@ public class NonTaxonomicRelationLearning extends Module {
         }
     }
     
+    //the changes filtered in updateOnChanges
+    @Override
+    public List<AssertionPattern> getPatterns() {
+        return Arrays.asList(
+                new AssertionPattern(null, Phase.NonTaxonomicRelationLearning, Intelligence.NI),
+                new AssertionPattern(RDF.type, Phase.OntologyPopulation, null),
+                new AssertionPattern(FOAF.topic, Phase.ConceptDiscovery, null)
+        );
+    }
+    
+    //e.g. a merged concept, it is not a topic anymore
+    @Override
+    public void removedAllAbout(AssertionPool pool, Resource resource) {
+        if(graphManager != null) {
+            graphManager.removeCachedTopic(resource);
+        }
+    }
+
     @Override
     public void updateOnChanges(FileInfoStorage fileInfoStorage, AssertionPool pool, List<Assertion> changes) {
         
         timeStat("NonTaxonomicRelationLearning", () -> {
         
+            //the topic graph is updated with every topic change, also if nothing is predicted
+            updateTopics(pool, changes);
+            
             boolean humanNonTaxonomyFeedback = !AssertionPool.filter(changes, null, null, null, Phase.NonTaxonomicRelationLearning, Intelligence.NI, null, null, 0).isEmpty();
 
             /*
@@ -106,43 +135,77 @@ public class NonTaxonomicRelationLearning extends Module {
         saveTimeStat();
     }
     
-    private void nonTaxonomicLinkPrediction(AssertionPool pool) {
-        //System.out.println();
-        //System.out.println();
-        
+    //only the files with changed topics are updated in the topic graph
+    private void updateTopics(AssertionPool pool, List<Assertion> changes) {
+        if(graphManager == null) {
+            return;
+        }
         
-        //topic relations are used to update the file nodes with topics 
+        Set<Resource> files = new HashSet<>();
+        for(Assertion topicAssertion : AssertionPool.filter(changes, null, FOAF.topic, null, Phase.ConceptDiscovery, null, null, null, 0)) {
+            files.add(topicAssertion.getSubject());
+        }
+        graphManager.updateCachedTopics(pool, files);
+    }
+    
+    private void loadTopics(AssertionPool pool) {
+        //topic relations are used to update the file nodes with topics
+        //only subject and object are needed, so they are streamed and not materialized
         long begin = System.currentTimeMillis();
-        List<Assertion> topicAssertions = pool.getAssertions(
+        int topicCount;
+        try(Stream<Statement> topicStatements = pool.streamStatements(
                 null, FOAF.topic, null, Phase.ConceptDiscovery, 
                 null, null, Rating.Positive, 0
-        );
-        long end = System.currentTimeMillis();
-        //System.out.println("\t" + topicAssertions.size() + " topic assertions: " + (end - begin) + " ms");
-        
-        
-        //maybe do not remove concepts because some relations use skos:Concepts
-        boolean removeConcepts = false;
-        //remove the topics which are skos:concept
-        if(removeConcepts) {
-            topicAssertions.removeIf(a -> {
-
-                List<Assertion> typeAssertions = 
-                pool.getAssertions(
-                    a.getObject(), RDF.type, null, Phase.OntologyPopulation, 
-                    null, null, Rating.Positive, 0
-                );
+        )) {
+            
+            //maybe do not remove concepts because some relations use skos:Concepts
+            boolean removeConcepts = false;
+            //remove the topics which are skos:concept
+            Stream<Statement> filtered = topicStatements;
+            if(removeConcepts) {
+                filtered = filtered.filter(stmt -> {
+                    
+                    List<Assertion> typeAssertions = 
+                    pool.getAssertions(
+                        stmt.getResource(), RDF.type, null, Phase.OntologyPopulation, 
+                        null, null, Rating.Positive, 0
+                    );
 
-                if(typeAssertions.isEmpty())
-                    return true;
+                    if(typeAssertions.isEmpty())
+                        return false;
 
-                //remove if it is a skos:concept
-                return typeAssertions.get(0).getObject().equals(OntologyPopulation.CONCEPT_TYPE);
-            });
+                    //remove if it is a skos:concept
+                    return !typeAssertions.get(0).getObject().equals(OntologyPopulation.CONCEPT_TYPE);
+                });
+            }
+            
+            topicCount = graphManager.updateCachedFileNodeGraph(filtered);
         }
+        long end = System.currentTimeMillis();
+        //System.out.println("\t" + topicCount + " topic assertions: " + (end - begin) + " ms");
+    }
+    
+    private void nonTaxonomicLinkPrediction(AssertionPool pool) {
+        //System.out.println();
+        //System.out.println();
+        
+        //the first time the topic graph is built from all topic relations, afterwards it is updated with the changes
+        if(graphManager.getCachedTopicGraph() == null) {
+            loadTopics(pool);
+        }
+        
+        //less depth means it is more precise but recall is lower: e.g. markus is never connected to SensAI for depth=2
+        //if more is directly connected (maxDepth >= 3) then more is predicted that is actually "far away"
+        //so keep the topic graph more locally connected
+        //TODO magic number, how to build the topic graph
+        //depth = 0, current node (topics directly attached on file)
+        //depth = 1, parent, siblings, children (adjacent topics of adjacent files)
+        //int maxDepth = 1;
+        //V2 uses maxDepth 1 (so no BFS)
+        TopicGraph topicGraph = graphManager.getCachedTopicGraph();
         
-        //no topics so nothing to predict
-        if(topicAssertions.isEmpty())
+        //no topics (or no file node graph) so nothing to predict
+        if(topicGraph == null || topicGraph.getVertexCount() == 0)
             return;
         
         //all NI made relations are used for training
@@ -154,32 +217,14 @@ public class NonTaxonomicRelationLearning extends Module {
         
         //System.out.println("\t" + assertions.size() + " non taxonomic relation assertions");
         
-        //update filenode graph with topics (could be changed)
-        graphManager.updateCachedFileNodeGraph(topicAssertions);
-        
-        //System.out.println("\tgraphManager.updated");
-        
-        //less depth means it is more precise but recall is lower: e.g. markus is never connected to SensAI for depth=2
-        //if more is directly connected (maxDepth >= 3) then more is predicted that is actually "far away"
-        //so keep the topic graph more locally connected
-        //TODO magic number, how to build the topic graph
-        //depth = 0, current node (topics directly attached on file)
-        //depth = 1, parent, siblings, children (adjacent topics of adjacent files)
-        //int maxDepth = 1;
-        //V2 uses maxDepth 1 (so no BFS)
-        DefaultUndirectedWeightedGraph<Resource, DefaultWeightedEdge> topicGraph = graphManager.getTopicGraphV2(fileNodeGraph);
-        
         //export
         //graphManager.exportTopicGraph(topicGraph, pool, new File("/home/otaku/tmp/topic.graphml"));
         
-        if(topicGraph.vertexSet().isEmpty())
-            return;
-        
-        //System.out.println("\ttopicGraph: " + topicGraph.vertexSet().size() + " nodes, " + topicGraph.edgeSet().size() + " edges");
+        //System.out.println("\ttopicGraph: " + topicGraph.getVertexCount() + " nodes, " + topicGraph.getEdgeCount() + " edges");
         
         //TODO which features are the best for our task?
-        List<LinkPredictionAlgorithm<Resource, DefaultWeightedEdge>> algos = GraphManager.allLinkPredictionAlgorithms(topicGraph);
-        algos.remove(6); //remove PreferentialAttachmentLinkPrediction because it is maybe inappropriate here
+        List<LinkPredictionScorer.Index> algos = GraphManager.allLinkPredictionIndices();
+        algos.remove(LinkPredictionScorer.Index.PreferentialAttachment); //remove PreferentialAttachment because it is maybe inappropriate here
         
         //this will create all potentional ones based the type
         //all non-taxonomic relations are used for testing
@@ -2,6 +2,7 @@
 package de.dfki.sds.kecs.modules;
 
 import de.dfki.sds.hephaistos.storage.assertion.Assertion;
+import de.dfki.sds.hephaistos.storage.assertion.AssertionPattern;
 import de.dfki.sds.hephaistos.storage.assertion.AssertionPool;
 import de.dfki.sds.hephaistos.storage.assertion.Intelligence;
 import de.dfki.sds.hephaistos.storage.assertion.Phase;
@@ -15,6 +16,8 @@ import de.dfki.sds.kecs.util.Prediction;
 import de.dfki.sds.stringanalyzer.string.StringEntity;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -151,6 +154,11 @@ public class OntologyPopulation extends Module {
         });
     }
     
+    @Override
+    public Set<ModuleResource> getRequiredResources() {
+        return EnumSet.of(ModuleResource.Embedding);
+    }
+
     @Override
     public void init(FileInfoStorage fileInfoStorage, AssertionPool pool, KecsSettings settings) {
         this.settings = settings;
@@ -262,6 +270,16 @@ public class OntologyPopulation extends Module {
         return "Topic";
     }
     
+    //the changes filtered in updateOnChanges
+    @Override
+    public List<AssertionPattern> getPatterns() {
+        return Arrays.asList(
+                new AssertionPattern(RDF.type, Phase.ConceptDiscovery, null),
+                new AssertionPattern(RDF.type, Phase.OntologyPopulation, Intelligence.NI),
+                new AssertionPattern(SKOS.prefLabel, Phase.ConceptDiscovery, null)
+        );
+    }
+
     @Override
     public void updateOnChanges(FileInfoStorage fileInfoStorage, AssertionPool pool, List<Assertion> changes) {
     
@@ -218,7 +218,7 @@ public class KecsHumlServer {
             
             JSONObject obj = toJson(fn);
             
-            Resource resource = ResourceFactory.createResource(obj.getString("uri"));
+            Resource resource = ResourceFactory.createResource(fn.getUri());
             
             //terms
             List<Assertion> domainTermAssertions = manager.getAssertionPool().getAssertions(resource, KECS.containsDomainTerm, null, Phase.DomainTerminologyExtraction, null, null, null, 0);
@@ -292,7 +292,7 @@ public class KecsHumlServer {
         
         //to jump up
         if(parentOfParent.isPresent()) {
-            result.put("parentOfParent", new JSONObject(parentOfParent.get().getMeta()).getString("uri"));
+            result.put("parentOfParent", parentOfParent.get().getUri());
         }
         
         return result;
@@ -334,7 +334,7 @@ public class KecsHumlServer {
         Optional<FolderInfo> parentOpt = manager.getFileInfoStorage().getParentOf(child);
         
         if(parentOpt.isPresent()) {
-            String parentUri = new JSONObject(parentOpt.get().getMeta()).getString("uri");
+            String parentUri = parentOpt.get().getUri();
             JSONObject result = getChildren(parentUri);
             
             return result;
@@ -1230,7 +1230,7 @@ public class KecsHumlServer {
         for(StorageItem item : list) {
             FileInfo fi = (FileInfo) item;
             
-            Resource fileResource = KecsApp.creator.createResource(new JSONObject(fi.getMeta()).getString("uri"));
+            Resource fileResource = KecsApp.creator.createResource(fi.getUri());
             
             List<Assertion> posAssertions = manager.getAssertionPool().getAssertions(fileResource, KECS.containsDomainTerm, null, 
                     Phase.DomainTerminologyExtraction, null, null, Rating.Positive, 0);
@@ -1656,10 +1656,8 @@ public class KecsHumlServer {
         if(fi == null)
             return null;
         
-        JSONObject meta = new JSONObject(fi.getMeta());
-        
         JSONObject obj = new JSONObject();
-        obj.put("uri", meta.getString("uri"));
+        obj.put("uri", fi.getUri());
         obj.put("prefLabel", fi.getName());
         obj.put("isFile", !fi.isDirectory());
         obj.put("path", fi.getPath());
@@ -0,0 +1,351 @@
+package de.dfki.sds.kecs.util;
+
+import de.dfki.sds.kecs.util.MappedFiles.IntList;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+/**
+ * Inverted index over file basenames to find candidate files for a text without scanning all basenames.
+ * Rows are the positions in the basename array the index was created with.
+ * There are two kinds of postings, both lower case:
+ * trigrams for substring queries and tokens (maximal runs of glue letters, see {@link #isGlue(char)})
+ * for short texts which have to stand alone.
+ * Postings are delta and varint encoded.
+ * The index is saved next to data.sqlite and only loaded again if the fingerprint of the files is the same.
+ */
+public class BasenameIndex {
+
+    public static final String DEFAULT_FILENAME = "basename.index";
+
+    private static final int MAGIC = 0x4b424e49;
+    private static final int VERSION = 2;
+
+    private int size;
+    private long fingerprint;
+
+    private Map<Long, Postings> trigram2rows;
+    private Map<String, Postings> token2rows;
+
+    private BasenameIndex(int size, long fingerprint) {
+        this.size = size;
+        this.fingerprint = fingerprint;
+        this.trigram2rows = new HashMap<>();
+        this.token2rows = new HashMap<>();
+    }
+
+    /**
+     * Loads the index from file if it has the same fingerprint, else creates it and saves it to file.
+     * @param file can be null, then the index is only in memory
+     * @param uris of the files, only used for the fingerprint
+     * @param basenames
+     * @return
+     */
+    public static BasenameIndex loadOrCreate(File file, String[] uris, String[] basenames) {
+        long fp = fingerprint(uris, basenames);
+
+        long begin = System.currentTimeMillis();
+        BasenameIndex index = file == null ? null : load(file, fp);
+        if (index != null) {
+            System.out.println("BasenameIndex loaded " + index.trigram2rows.size() + " trigrams and " + index.token2rows.size() + " tokens from " + file.getName() + " took " + (System.currentTimeMillis() - begin) + " ms");
+            return index;
+        }
+        if (file != null) {
+            //outdated or broken
+            file.delete();
+        }
+
+        index = create(basenames, fp);
+        if (file != null) {
+            index.save(file);
+        }
+        System.out.println("BasenameIndex created " + index.trigram2rows.size() + " trigrams and " + index.token2rows.size() + " tokens for " + basenames.length + " files took " + (System.currentTimeMillis() - begin) + " ms");
+        return index;
+    }
+
+    public static BasenameIndex create(String[] basenames, long fingerprint) {
+        Map<Long, IntList> trigrams = new HashMap<>();
+        Map<String, IntList> tokens = new HashMap<>();
+
+        for (int row = 0; row < basenames.length; row++) {
+            String lower = toLowerCase(basenames[row]);
+
+            for (int i = 0; i + 3 <= lower.length(); i++) {
+                addOnce(trigrams.computeIfAbsent(trigram(lower, i), k -> new IntList(4)), row);
+            }
+
+            int start = -1;
+            for (int i = 0; i <= lower.length(); i++) {
+                boolean glue = i < lower.length() && isGlue(lower.charAt(i));
+                if (glue && start == -1) {
+                    start = i;
+                } else if (!glue && start != -1) {
+                    addOnce(tokens.computeIfAbsent(lower.substring(start, i), k -> new IntList(4)), row);
+                    start = -1;
+                }
+            }
+        }
+
+        BasenameIndex index = new BasenameIndex(basenames.length, fingerprint);
+        for (Entry<Long, IntList> e : trigrams.entrySet()) {
+            index.trigram2rows.put(e.getKey(), Postings.encode(e.getValue()));
+        }
+        for (Entry<String, IntList> e : tokens.entrySet()) {
+            index.token2rows.put(e.getKey(), Postings.encode(e.getValue()));
+        }
+        return index;
+    }
+
+    /**
+     * Rows of basenames which can contain the text (case insensitive) where the text stands alone
+     * if it is shorter than three characters.
+     * @param text
+     * @return null if the index can not narrow it down, so every row is a candidate
+     */
+    public BitSet getCandidates(String text) {
+        String lower = toLowerCase(text);
+
+        if (lower.length() >= 3) {
+            //intersect the postings, shortest first
+            Postings[] postings = new Postings[lower.length() - 2];
+            for (int i = 0; i < postings.length; i++) {
+                postings[i] = trigram2rows.get(trigram(lower, i));
+                if (postings[i] == null) {
+                    return new BitSet();
+                }
+            }
+            Arrays.sort(postings, (a, b) -> Integer.compare(a.count, b.count));
+
+            BitSet result = postings[0].toBitSet();
+            for (int i = 1; i < postings.length && !result.isEmpty(); i++) {
+                result.and(postings[i].toBitSet());
+            }
+            return result;
+        }
+
+        //a short text only matches if it is not glued, so it is a whole token
+        if (!lower.isEmpty() && lower.chars().allMatch(c -> isGlue((char) c))) {
+            Postings postings = token2rows.get(lower);
+            return postings == null ? new BitSet() : postings.toBitSet();
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Letters which glue a term to its neighbours, like [a-zA-ZÜÖÄüöä].
+     * @param c
+     * @return
+     */
+    public static boolean isGlue(char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || c == 'Ü' || c == 'Ö' || c == 'Ä'
+                || c == 'ü' || c == 'ö' || c == 'ä';
+    }
+
+    /**
+     * CRC32 of the uris and basenames, the number of files is in the upper 32 bits.
+     * @param uris
+     * @param basenames
+     * @return
+     */
+    public static long fingerprint(String[] uris, String[] basenames) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < basenames.length; i++) {
+            update(crc, uris[i]);
+            update(crc, basenames[i]);
+        }
+        return ((long) basenames.length << 32) | crc.getValue();
+    }
+
+    //null and empty differ, the separator keeps "ab","c" and "a","bc" apart
+    private static void update(CRC32 crc, String str) {
+        if (str == null) {
+            crc.update(1);
+            return;
+        }
+        crc.update(0);
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        crc.update(bytes, 0, bytes.length);
+        crc.update(0);
+    }
+
+    //char wise like the case insensitive Aho-Corasick trie
+    private static String toLowerCase(String text) {
+        if (text == null) {
+            return "";
+        }
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    //rows come in ascending order, so a duplicate is always the last one
+    private static void addOnce(IntList rows, int row) {
+        if (rows.size() == 0 || rows.get(rows.size() - 1) != row) {
+            rows.add(row);
+        }
+    }
+
+    private static long trigram(String lower, int i) {
+        return ((long) lower.charAt(i) << 32) | ((long) lower.charAt(i + 1) << 16) | lower.charAt(i + 2);
+    }
+
+    /**
+     * Saves the index, see {@link MappedFiles#write(File, MappedFiles.Content)}.
+     * @param file
+     */
+    public void save(File file) {
+        MappedFiles.write(file, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(size);
+
+            out.writeInt(trigram2rows.size());
+            for (Entry<Long, Postings> e : trigram2rows.entrySet()) {
+                out.writeLong(e.getKey());
+                e.getValue().write(out);
+            }
+
+            out.writeInt(token2rows.size());
+            for (Entry<String, Postings> e : token2rows.entrySet()) {
+                out.writeUTF(e.getKey());
+                e.getValue().write(out);
+            }
+        });
+    }
+
+    /**
+     * Loads the index if the file exists and has the given fingerprint.
+     * @param file
+     * @param fingerprint
+     * @return null if it is missing, outdated or broken
+     */
+    public static BasenameIndex load(File file, long fingerprint) {
+        if (!file.exists()) {
+            return null;
+        }
+        long length = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != fingerprint) {
+                return null;
+            }
+            BasenameIndex index = new BasenameIndex(in.readInt(), fingerprint);
+
+            //every entry has at least its key and two ints
+            int trigrams = in.readInt();
+            if (index.size < 0 || trigrams < 0 || trigrams > length / 16) {
+                return null;
+            }
+            for (int i = 0; i < trigrams; i++) {
+                long key = in.readLong();
+                index.trigram2rows.put(key, Postings.read(in, index.size, length));
+            }
+
+            int tokens = in.readInt();
+            if (tokens < 0 || tokens > length / 10) {
+                return null;
+            }
+            for (int i = 0; i < tokens; i++) {
+                String key = in.readUTF();
+                index.token2rows.put(key, Postings.read(in, index.size, length));
+            }
+
+            //the sections have to fill the file exactly
+            if (in.read() != -1) {
+                return null;
+            }
+            return index;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    //sorted rows, delta and varint encoded
+    private static class Postings {
+
+        private int count;
+        private byte[] data;
+
+        private Postings(int count, byte[] data) {
+            this.count = count;
+            this.data = data;
+        }
+
+        private static Postings encode(IntList rows) {
+            byte[] buffer = new byte[rows.size() * 5];
+            int pos = 0;
+            int prev = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                int delta = rows.get(i) - prev;
+                prev = rows.get(i);
+                while ((delta & ~0x7F) != 0) {
+                    buffer[pos++] = (byte) ((delta & 0x7F) | 0x80);
+                    delta >>>= 7;
+                }
+                buffer[pos++] = (byte) delta;
+            }
+            return new Postings(rows.size(), Arrays.copyOf(buffer, pos));
+        }
+
+        private BitSet toBitSet() {
+            BitSet bs = new BitSet();
+            int pos = 0;
+            int row = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                row += delta;
+                bs.set(row);
+            }
+            return bs;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(count);
+            out.writeInt(data.length);
+            out.write(data);
+        }
+
+        //a count above the rows or data longer than the file is broken
+        private static Postings read(DataInputStream in, int rows, long fileLength) throws IOException {
+            int count = in.readInt();
+            int length = in.readInt();
+            if (count < 0 || count > rows || length < count || length > fileLength) {
+                throw new IOException("broken postings of " + count + " rows in " + length + " bytes");
+            }
+            byte[] data = new byte[length];
+            in.readFully(data);
+            return new Postings(count, data);
+        }
+    }
+
+}
@@ -20,7 +20,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import org.json.JSONObject;
 
 /**
  * 
@@ -93,10 +92,8 @@ public class ColumnMemoryExcelStorage extends ExcelStorage {
         excelFolder.setName("");
         excelFolder.setPath("/Excel");
         
-        JSONObject meta = new JSONObject();
-        meta.put("uri", "urn:file:2");
-        meta.put("basename", excelFolder.getName());
-        excelFolder.setMeta(meta.toString());
+        excelFolder.setUri("urn:file:2");
+        excelFolder.setBasename(excelFolder.getName());
         
         bulk.add(excelFolder);
         
@@ -133,10 +130,8 @@ public class ColumnMemoryExcelStorage extends ExcelStorage {
             tableFolder.setName(table.getSheetName());
             tableFolder.setSort(table.getIndex());
             
-            meta = new JSONObject();
-            meta.put("uri", "urn:file:" + id);
-            meta.put("basename", table.getSheetName());
-            tableFolder.setMeta(meta.toString());
+            tableFolder.setUri("urn:file:" + id);
+            tableFolder.setBasename(table.getSheetName());
             
             id++;
             
@@ -167,10 +162,8 @@ public class ColumnMemoryExcelStorage extends ExcelStorage {
                 columnFolder.setPath(tableFolder.getPath() + "/" + colName);
                 columnFolder.setName(colName);
 
-                meta = new JSONObject();
-                meta.put("uri", "urn:file:" + id);
-                meta.put("basename", colName);
-                columnFolder.setMeta(meta.toString());
+                columnFolder.setUri("urn:file:" + id);
+                columnFolder.setBasename(colName);
 
                 id++;
 
@@ -232,10 +225,8 @@ public class ColumnMemoryExcelStorage extends ExcelStorage {
                         cellFile.setPath(tableFolder.getPath() + "/" + content);
                         cellFile.setName(content);
 
-                        meta = new JSONObject();
-                        meta.put("uri", "urn:file:" + id);
-                        meta.put("basename", content);
-                        cellFile.setMeta(meta.toString());
+                        cellFile.setUri("urn:file:" + id);
+                        cellFile.setBasename(content);
 
                         id++;
 
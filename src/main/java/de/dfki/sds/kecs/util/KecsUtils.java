@@ -27,6 +27,17 @@ import org.json.JSONObject;
  */
 public class KecsUtils {
     
+    /**
+     * Folder for files which are created from resources once (e.g. the lemma table), 
+     * it is per user because the temp dir is shared.
+     * @return ~/.kecs/cache
+     */
+    public static File getCacheFolder() {
+        File folder = new File(new File(System.getProperty("user.home"), ".kecs"), "cache");
+        folder.mkdirs();
+        return folder;
+    }
+    
     public static int getId(String fileUri) {
         return Integer.parseInt(fileUri.split("\\:")[2]);
     }
@@ -36,7 +47,7 @@ public class KecsUtils {
     }
     
     public static String getURI(FileInfo fi) {
-        return new JSONObject(fi.getMeta()).getString("uri");
+        return fi.getUri();
     }
     
     public static TypeWithIntel getType(List<Assertion> types) {
@@ -0,0 +1,198 @@
+package de.dfki.sds.kecs.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Read-only word hash to lemma table which is memory-mapped from a file, so nothing is deserialized on the heap.
+ * Layout (big endian): header, sorted word hashes (long), per hash the index of its lemma (int),
+ * offsets of the distinct lemmas (int, one more than lemmas) and the UTF-8 lemmas.
+ * A lookup is a binary search over the hashes.
+ * Use {@link #convert(Map, long, File)} to create it from the map of lemma.bin.gz,
+ * the header keeps the {@link MappedFiles#checksum(InputStream)} of it to detect a stale file.
+ */
+public class LemmaTable {
+
+    private static final int MAGIC = 0x4b4c4d54;
+    private static final int VERSION = 2;
+    //magic, version, source, count, lemmas, blob length
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+
+    private int count;
+    private LongBuffer hashes;
+    private ByteBuffer lemmaIndex;
+    private ByteBuffer lemmaOffsets;
+    private ByteBuffer blob;
+
+    private LemmaTable(ByteBuffer buffer) {
+        count = buffer.getInt(16);
+        int lemmas = buffer.getInt(20);
+        int blobLength = buffer.getInt(24);
+
+        int pos = HEADER_SIZE;
+        hashes = MappedFiles.slice(buffer, pos, count * 8).asLongBuffer();
+        pos += count * 8;
+        lemmaIndex = MappedFiles.slice(buffer, pos, count * 4);
+        pos += count * 4;
+        lemmaOffsets = MappedFiles.slice(buffer, pos, (lemmas + 1) * 4);
+        pos += (lemmas + 1) * 4;
+        blob = MappedFiles.slice(buffer, pos, blobLength);
+    }
+
+    /**
+     * Maps the table file if it was converted from the given source.
+     * @param file
+     * @param source checksum of the source, see {@link #convert(Map, long, File)}
+     * @return null if the file is missing, was created from another source or version or is truncated
+     */
+    public static LemmaTable open(File file, long source) {
+        try {
+            ByteBuffer buffer = MappedFiles.map(file, HEADER_SIZE);
+            if (buffer == null || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != source) {
+                return null;
+            }
+            
+            //the sections have to fill the file exactly
+            long count = buffer.getInt(16);
+            long lemmas = buffer.getInt(20);
+            long blobLength = buffer.getInt(24);
+            if (count < 0 || lemmas < 0 || blobLength < 0 ||
+                    HEADER_SIZE + count * 8 + count * 4 + (lemmas + 1) * 4 + blobLength != buffer.limit()) {
+                return null;
+            }
+            return new LemmaTable(buffer);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Writes the table to file, see {@link MappedFiles#write(File, MappedFiles.Content)}.
+     * @param word2lemma hash of the lower case word to lemma
+     * @param source checksum of the source, stored in the header
+     * @param file
+     */
+    public static void convert(Map<Long, String> word2lemma, long source, File file) {
+        long[] sorted = new long[word2lemma.size()];
+        int i = 0;
+        for (Long hash : word2lemma.keySet()) {
+            sorted[i++] = hash;
+        }
+        Arrays.sort(sorted);
+
+        //lemmas are shared by many words, store each only once
+        Map<String, Integer> lemma2index = new HashMap<>();
+        int[] indices = new int[sorted.length];
+        for (i = 0; i < sorted.length; i++) {
+            indices[i] = lemma2index.computeIfAbsent(word2lemma.get(sorted[i]), l -> lemma2index.size());
+        }
+        byte[][] lemmas = new byte[lemma2index.size()][];
+        int blobLength = 0;
+        for (Map.Entry<String, Integer> e : lemma2index.entrySet()) {
+            lemmas[e.getValue()] = e.getKey().getBytes(StandardCharsets.UTF_8);
+            blobLength += lemmas[e.getValue()].length;
+        }
+
+        int length = blobLength;
+        MappedFiles.write(file, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(source);
+            out.writeInt(sorted.length);
+            out.writeInt(lemmas.length);
+            out.writeInt(length);
+            for (long hash : sorted) {
+                out.writeLong(hash);
+            }
+            for (int index : indices) {
+                out.writeInt(index);
+            }
+            int offset = 0;
+            for (byte[] lemma : lemmas) {
+                out.writeInt(offset);
+                offset += lemma.length;
+            }
+            out.writeInt(offset);
+            for (byte[] lemma : lemmas) {
+                out.write(lemma);
+            }
+        });
+    }
+
+    /**
+     * Reads the serialized map of lemma.bin.gz.
+     * @param binGz
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<Long, String> readBinGz(InputStream binGz) {
+        try (ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(binGz))) {
+            return (Map<Long, String>) ois.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * The lemma of the word hash, see {@link Lemmatizer#hash(String)}.
+     * @param hash
+     * @return null if not found
+     */
+    public String get(long hash) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midHash = hashes.get(mid);
+            if (midHash < hash) {
+                low = mid + 1;
+            } else if (midHash > hash) {
+                high = mid - 1;
+            } else {
+                return getLemma(lemmaIndex.getInt(mid * 4));
+            }
+        }
+        return null;
+    }
+
+    private String getLemma(int index) {
+        int begin = lemmaOffsets.getInt(index * 4);
+        int end = lemmaOffsets.getInt(index * 4 + 4);
+        byte[] bytes = new byte[end - begin];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = blob.get(begin + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Converts a lemma.bin.gz file to a table file.
+     * @param args lemma.bin.gz and the table file
+     */
+    public static void main(String[] args) {
+        File binGz = new File(args[0]);
+        File file = new File(args[1]);
+        long begin = System.currentTimeMillis();
+        try (InputStream in = new FileInputStream(binGz); InputStream checksumIn = new FileInputStream(binGz)) {
+            convert(readBinGz(in), MappedFiles.checksum(checksumIn), file);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        System.out.println("LemmaTable converted " + binGz.getName() + " to " + file + " took " + (System.currentTimeMillis() - begin) + " ms");
+    }
+
+}
@@ -5,9 +5,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,8 +31,13 @@ public class Lemmatizer {
     //to check how often it happens that one word has multiple lemmas
     private static Map<String, List<String>> word2lemmaList;
     
+    //memory-mapped alternative to word2lemma, see the resource constructor
+    private static LemmaTable table;
+    
     //file for cache
     File tmpFile = new File(System.getProperty("java.io.tmpdir"), "lemma.bin.gz");
+    //per user, the temp dir is shared
+    File tableFile = new File(KecsUtils.getCacheFolder(), "lemma.table");
     
     private File lemmatableTxtGz;
     
@@ -39,15 +46,47 @@ public class Lemmatizer {
         load();
     }
 
-    //from resource
+    //from resource: it is converted once to a memory-mapped table in the cache folder
+    //and on later starts only mapped, so the map is not deserialized again
     public Lemmatizer(String resourcePath) {
-        try(ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(Lemmatizer.class.getResourceAsStream(resourcePath)))) {
-            word2lemma = (Map<Long, String>) ois.readObject();
+        if(table != null || word2lemma != null)
+            return;
+        
+        long begin = System.currentTimeMillis();
+        
+        URL url = Lemmatizer.class.getResource(resourcePath);
+        long source;
+        try(InputStream in = url.openStream()) {
+            source = MappedFiles.checksum(in);
         } catch (IOException ex) {
-            //ignore
-        } catch (ClassNotFoundException ex) {
-            //ignore
+            throw new RuntimeException(ex);
         }
+        
+        table = LemmaTable.open(tableFile, source);
+        if(table == null) {
+            //missing, stale or corrupt: it is created again
+            tableFile.delete();
+            
+            try(InputStream in = url.openStream()) {
+                word2lemma = LemmaTable.readBinGz(in);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+            
+            try {
+                LemmaTable.convert(word2lemma, source, tableFile);
+                table = LemmaTable.open(tableFile, source);
+                if(table != null) {
+                    word2lemma = null;
+                }
+            } catch (RuntimeException ex) {
+                //not writable: keep the map
+                ExceptionUtility.save(ex);
+            }
+        }
+        
+        long end = System.currentTimeMillis();
+        System.out.println("Lemmatizer " + (table != null ? "mapped " + table.size() : "loaded " + word2lemma.size()) + " lemmas took " + (end - begin) + " ms");
     }
                 
     private void rawToHashMap() {
@@ -128,7 +167,7 @@ public class Lemmatizer {
     
     private void load() {
         //no load necessary
-        if(word2lemma != null)
+        if(word2lemma != null || table != null)
             return;
         
         if(tmpFile.exists()) {
@@ -157,29 +196,35 @@ public class Lemmatizer {
         return h;
     }
     
+    private String get(long hash) {
+        if(table != null)
+            return table.get(hash);
+        return word2lemma.get(hash);
+    }
+    
     public String lookup(String word) {
         //String lc = word.toLowerCase();
         String lc = StringUtils.lowerCase(word);
         long hash = hash(lc);
-        return word2lemma.get(hash);
+        return get(hash);
     }
     
     public String lookupOrWord(String word) {
-        String lemma = word2lemma.get(hash(StringUtils.lowerCase(word)));
+        String lemma = get(hash(StringUtils.lowerCase(word)));
         if(lemma != null)
             return lemma;
         return word;
     }
     
     public String lookupOr(String word, Function<String, String> transformer) {
-        String lemma = word2lemma.get(hash(StringUtils.lowerCase(word)));
+        String lemma = get(hash(StringUtils.lowerCase(word)));
         if(lemma != null)
             return lemma;
         return transformer.apply(word);
     }
     
     public String lookupOrLowercaseWord(String word) {
-        String lemma = word2lemma.get(hash(StringUtils.lowerCase(word)));
+        String lemma = get(hash(StringUtils.lowerCase(word)));
         if(lemma != null)
             return lemma;
         return word.toLowerCase();
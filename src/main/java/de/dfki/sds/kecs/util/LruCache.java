@@ -0,0 +1,78 @@
+package de.dfki.sds.kecs.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A bounded least recently used cache which is thread-safe.
+ * Values are computed outside of the lock, so a computation may call the cache again
+ * (two threads may compute the same value, the last one is kept).
+ * @param <K>
+ * @param <V>
+ */
+public class LruCache<K, V> {
+
+    private int capacity;
+    private LinkedHashMap<K, V> key2value;
+
+    private long hits;
+    private long misses;
+
+    public LruCache(int capacity) {
+        this.capacity = capacity;
+        //access order for LRU
+        this.key2value = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key or computes and caches it.
+     * @param key not null
+     * @param function only called if the value is not cached, should not return null
+     * @return
+     */
+    public V get(K key, Function<K, V> function) {
+        synchronized (this) {
+            V value = key2value.get(key);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+        }
+
+        V value = function.apply(key);
+
+        synchronized (this) {
+            key2value.put(key, value);
+        }
+        return value;
+    }
+
+    public synchronized void clear() {
+        key2value.clear();
+    }
+
+    public synchronized int size() {
+        return key2value.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LruCache{" + "size=" + key2value.size() + ", capacity=" + capacity + ", hits=" + hits + ", misses=" + misses + '}';
+    }
+
+}
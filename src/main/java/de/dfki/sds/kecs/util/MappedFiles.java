@@ -0,0 +1,139 @@
+package de.dfki.sds.kecs.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Helpers for the binary files which are created once from a source and then read again
+ * (e.g. {@link LemmaTable}, {@link BasenameIndex} and the GermaNet snapshot).
+ */
+public class MappedFiles {
+
+    /**
+     * Writes the content of a file.
+     */
+    public interface Content {
+
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * CRC32 of the content, identifies the source of a file.
+     * @param in is read to the end, not closed
+     * @return
+     * @throws IOException
+     */
+    public static long checksum(InputStream in) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            crc.update(buffer, 0, read);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes to a temporary file which is then moved, so that a concurrent reader never sees a half written file.
+     * @param file
+     * @param content
+     */
+    public static void write(File file, Content content) {
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp" + System.nanoTime());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+                content.write(out);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            tmp.delete();
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Maps the whole file read-only.
+     * @param file
+     * @param minSize e.g. the header size
+     * @return null if the file is missing, smaller than minSize or too large for a buffer
+     * @throws IOException
+     */
+    public static ByteBuffer map(File file, int minSize) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < minSize || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            //the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * A view of length bytes at pos, the caller checks the bounds.
+     * @param buffer
+     * @param pos
+     * @param length
+     * @return
+     */
+    public static ByteBuffer slice(ByteBuffer buffer, int pos, int length) {
+        ByteBuffer dup = buffer.duplicate();
+        //Buffer methods, so that it also runs on Java 8
+        ((Buffer) dup).position(pos);
+        ((Buffer) dup).limit(pos + length);
+        return dup.slice();
+    }
+
+    /**
+     * Growable int array to collect a section before it is written.
+     */
+    public static class IntList {
+
+        private int[] values;
+        private int size;
+
+        public IntList() {
+            this(16);
+        }
+
+        public IntList(int capacity) {
+            values = new int[Math.max(1, capacity)];
+        }
+
+        public void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        public int get(int index) {
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                out.writeInt(values[i]);
+            }
+        }
+    }
+
+}
@@ -1,12 +1,13 @@
 package de.dfki.sds.stringanalyzer.helper;
 
-
+import de.dfki.sds.kecs.util.MappedFiles;
 import de.dfki.sds.stringanalyzer.string.StringEntity;
 import de.dfki.sds.stringanalyzer.string.StringEntitySequence;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -15,9 +16,9 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.zip.GZIPInputStream;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import org.apache.commons.io.IOUtils;
@@ -36,9 +37,8 @@ public class GermaNet {
     private List<File> wiktionaryParaphrasesFiles; //e.g. wiktionaryParaphrases-nomen.xml
     private List<File> synsetFiles; //e.g. nomen.Zeit.xml
 
-    private Map<String, SynSet> id2synset;
-    private Map<String, LexUnit> id2lexunit;
-    private Map<String, List<SynSet>> word2synsets;
+    //synsets, lex units and words, SynSet and LexUnit are views on it
+    private GermaNetSnapshot snapshot;
 
     private List<SynSet> roots;
     private List<StringEntity> rootsStringEntity;
@@ -49,22 +49,64 @@ public class GermaNet {
         this.wiktionaryParaphrasesFiles = wiktionaryParaphrasesFiles;
         this.synsetFiles = synsetFiles;
 
-        id2synset = new HashMap<>();
-        id2lexunit = new HashMap<>();
-        word2synsets = new HashMap<>();
-
         //parse();
     }
 
     //load
     public GermaNet(InputStream inputStream) {
-        id2synset = new HashMap<>();
-        id2lexunit = new HashMap<>();
-        word2synsets = new HashMap<>();
-        
         load(inputStream);
     }
     
+    public GermaNet(GermaNetSnapshot snapshot) {
+        this.snapshot = snapshot;
+        initTree();
+    }
+    
+    /**
+     * Loads the json.gz resource. It is converted once to a snapshot file which is memory-mapped
+     * on later loads, so the json is not parsed again.
+     * @param resourcePath json.gz
+     * @param snapshotFile
+     * @return 
+     */
+    public static GermaNet loadOrCreateSnapshot(String resourcePath, File snapshotFile) {
+        URL url = GermaNet.class.getResource(resourcePath);
+        if (url == null) {
+            throw new RuntimeException("resource not found: " + resourcePath);
+        }
+        
+        long source;
+        try (InputStream in = url.openStream()) {
+            source = MappedFiles.checksum(in);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        
+        GermaNetSnapshot snapshot = GermaNetSnapshot.open(snapshotFile, source);
+        if (snapshot == null) {
+            //stale or broken file
+            snapshotFile.delete();
+            
+            JSONObject id2synsetObj;
+            try (InputStream in = new GZIPInputStream(url.openStream())) {
+                id2synsetObj = new JSONObject(IOUtils.toString(in, StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+            
+            try {
+                GermaNetSnapshot.convert(id2synsetObj, source, snapshotFile);
+                snapshot = GermaNetSnapshot.open(snapshotFile, source);
+            } catch (RuntimeException ex) {
+                //not writable: keep it on the heap
+            }
+            if (snapshot == null) {
+                snapshot = GermaNetSnapshot.fromJson(id2synsetObj);
+            }
+        }
+        return new GermaNet(snapshot);
+    }
+    
     /* XML parse version, load() loads the saved json version
     private void parse() {
         try {
@@ -161,7 +203,12 @@ public class GermaNet {
     */
     
     private void initTree() {
-        roots = id2synset.values().stream().filter(synset -> synset.generalizations.isEmpty()).collect(toList());
+        roots = new ArrayList<>();
+        for (int i = 0; i < snapshot.getSynsetCount(); i++) {
+            if (snapshot.getGeneralizationCount(i) == 0) {
+                roots.add(new SynSet(i));
+            }
+        }
     }
     
     private void initStringEntityTree() {
@@ -190,7 +237,7 @@ public class GermaNet {
                     rootsStringEntity.add(se);
                 }
 
-                for(SynSet child : cur.specializations) {
+                for(SynSet child : cur.getSpecializations()) {
                     
                     StringEntity seChild;
                     if(synset2se.containsKey(child)) {
@@ -208,47 +255,50 @@ public class GermaNet {
         }
     }
 
+    //view on a synset of the snapshot
     public class SynSet {
 
-        private String id;
-        private String category;
-        private String clazz;
-        private List<LexUnit> lexUnits;
+        private int index;
 
         //relations
         //names = [entails, has_component_meronym, causes, has_portion_meronym, has_substance_meronym, is_related_to, has_hypernym, has_member_meronym]
         //dirs = [one, revert, both]
         //inv = [, has_hyponym, has_member_holonym, has_portion_holonym, has_substance_holonym, is_entailed_by, is_related_to, has_component_holonym]
-        //hypernym = generalization
-        private List<SynSet> generalizations;
+        //hypernym = generalization (has_hyponym = specialization)
+
+        private SynSet(int index) {
+            this.index = index;
+        }
 
-        //has_hyponym
-        private List<SynSet> specializations;
+        private List<SynSet> getSpecializations() {
+            return toSynSets(snapshot.getSpecializations(index));
+        }
 
-        public SynSet(String id, String category, String clazz) {
-            this.id = id;
-            this.category = category;
-            this.clazz = clazz;
-            this.lexUnits = new ArrayList<>();
-            this.generalizations = new ArrayList<>();
-            this.specializations = new ArrayList<>();
+        private boolean hasGeneralization() {
+            return snapshot.getGeneralizationCount(index) > 0;
+        }
+
+        //null if it is missing
+        private SynSet getFirstGeneralization() {
+            int parent = snapshot.getGeneralization(index, 0);
+            return parent == GermaNetSnapshot.NULL ? null : new SynSet(parent);
         }
 
         public String getLexSimple() {
-            return lexUnits.stream().map(lu -> lu.orthForm).collect(joining(", "));
+            return getLexUnits().stream().map(lu -> lu.getOrthForm()).collect(joining(", "));
         }
         
         public String getLex() {
-            return "["+lexUnits.stream().map(lu -> lu.orthForm).collect(joining(",")) + "]";
+            return "["+getLexUnits().stream().map(lu -> lu.getOrthForm()).collect(joining(",")) + "]";
         }
         
         @Override
         public String toString() {
-            return "SynSet{" + "id=" + id + ", category=" + category + ", clazz=" + clazz + ", lexUnits=" + getLex() + '}';
+            return "SynSet{" + "id=" + getId() + ", category=" + getCategory() + ", clazz=" + getClazz() + ", lexUnits=" + getLex() + '}';
         }
 
         public String getId() {
-            return id;
+            return snapshot.getId(index);
         }
         
         public String toStringTree() {
@@ -259,6 +309,7 @@ public class GermaNet {
 
         private void toStringTree(String prefix, boolean isTail, StringBuilder sb) {
             sb.append(prefix).append(isTail ? "└── " : "├── ").append(toString()).append("\n");
+            List<SynSet> specializations = getSpecializations();
             for (int i = 0; i < specializations.size() - 1; i++) {
                 specializations.get(i).toStringTree(prefix + (isTail ? "    " : "│   "), false, sb);
             }
@@ -281,12 +332,12 @@ public class GermaNet {
             //path.add(this);
             
             SynSet cur = this;
-            while (!cur.generalizations.isEmpty()) {
-                if (cur.generalizations.size() > 1) {
+            while (cur.hasGeneralization()) {
+                if (snapshot.getGeneralizationCount(cur.index) > 1) {
                     throw new RuntimeException("parent path is not possible because this string entity has more than one parent: " + cur);
                 }
 
-                SynSet parent = cur.generalizations.get(0);
+                SynSet parent = cur.getFirstGeneralization();
                 path.add(parent);
                 cur = parent;
             }
@@ -307,8 +358,8 @@ public class GermaNet {
             //path.add(this);
 
             SynSet cur = this;
-            while (!cur.generalizations.isEmpty()) {
-                SynSet parent = cur.generalizations.get(0);
+            while (cur.hasGeneralization()) {
+                SynSet parent = cur.getFirstGeneralization();
                 path.add(parent);
                 cur = parent;
             }
@@ -330,8 +381,8 @@ public class GermaNet {
             //path.add(this);
 
             SynSet cur = this;
-            while (!cur.generalizations.isEmpty()) {
-                SynSet parent = cur.generalizations.get(0);
+            while (cur.hasGeneralization()) {
+                SynSet parent = cur.getFirstGeneralization();
                 path.add(parent);
                 cur = parent;
                 
@@ -344,13 +395,17 @@ public class GermaNet {
         }
 
         public List<LexUnit> getLexUnits() {
+            List<LexUnit> lexUnits = new ArrayList<>();
+            for (int i = snapshot.getLexUnitBegin(index); i < snapshot.getLexUnitEnd(index); i++) {
+                lexUnits.add(new LexUnit(i));
+            }
             return lexUnits;
         }
 
         @Override
         public int hashCode() {
             int hash = 7;
-            hash = 83 * hash + Objects.hashCode(this.id);
+            hash = 83 * hash + Objects.hashCode(getId());
             return hash;
         }
 
@@ -366,23 +421,23 @@ public class GermaNet {
                 return false;
             }
             final SynSet other = (SynSet) obj;
-            if (!Objects.equals(this.id, other.id)) {
+            if (!Objects.equals(getId(), other.getId())) {
                 return false;
             }
             return true;
         }
 
         public String getCategory() {
-            return category;
+            return snapshot.getCategory(index);
         }
 
         public String getClazz() {
-            return clazz;
+            return snapshot.getClazz(index);
         }
         
         public StringEntity toStringEntity() {
             StringEntity se = new StringEntity();
-            se.setId(id);
+            se.setId(getId());
             se.setValues(getLexUnits().stream().map(lu -> lu.getOrthForm()).collect(toList()));
             JSONObject meta = se.getOrCreateJsonObject(GERMANET);
             meta.put("category", getCategory());
@@ -401,36 +456,36 @@ public class GermaNet {
         
     }
 
+    //view on a lex unit of the snapshot
     public class LexUnit {
 
-        private String id;
-        private String orthForm;
-        private String paraphrase;
-        private List<SynSet> synSets;
+        private int index;
 
-        public LexUnit(String id, String orthForm) {
-            this.id = id;
-            this.orthForm = orthForm;
-            this.synSets = new ArrayList<>();
+        private LexUnit(int index) {
+            this.index = index;
+        }
+
+        public String getId() {
+            return snapshot.getLexUnitId(index);
         }
 
         public String getOrthForm() {
-            return orthForm;
+            return snapshot.getOrthForm(index);
         }
         
         @Override
         public String toString() {
-            return "LexUnit{" + "id=" + id + ", orthForm=" + orthForm + ", paraphrase=" + paraphrase + '}';
+            return "LexUnit{" + "id=" + getId() + ", orthForm=" + getOrthForm() + ", paraphrase=" + getParaphrase() + '}';
         }
 
         public String getParaphrase() {
-            return paraphrase;
+            return snapshot.getParaphrase(index);
         }
 
         @Override
         public int hashCode() {
             int hash = 3;
-            hash = 97 * hash + Objects.hashCode(this.id);
+            hash = 97 * hash + Objects.hashCode(getId());
             return hash;
         }
 
@@ -446,7 +501,7 @@ public class GermaNet {
                 return false;
             }
             final LexUnit other = (LexUnit) obj;
-            if (!Objects.equals(this.id, other.id)) {
+            if (!Objects.equals(getId(), other.getId())) {
                 return false;
             }
             return true;
@@ -478,15 +533,15 @@ public class GermaNet {
     
     
     public int synsetCount() {
-        return id2synset.size();
+        return snapshot.getSynsetCount();
     }
 
     public int lexunitCount() {
-        return id2lexunit.size();
+        return snapshot.getLexUnitCount();
     }
 
     public int wordCount() {
-        return word2synsets.size();
+        return snapshot.getWordCount();
     }
 
     public String getStatusLine() {
@@ -497,21 +552,29 @@ public class GermaNet {
     }
 
     public List<SynSet> lookup(String word) {
-        List<SynSet> synsets = word2synsets.get(word.toLowerCase());
-        if (synsets == null) {
+        int[] synsets = snapshot.lookup(word.toLowerCase());
+        if (synsets.length == 0) {
             return Arrays.asList();
         }
-        return synsets;
+        return toSynSets(synsets);
     }
 
     public List<StringEntity> lookupStringEntity(String word) {
-        List<SynSet> synsets = word2synsets.get(word.toLowerCase());
-        if (synsets == null) {
+        List<SynSet> synsets = lookup(word);
+        if (synsets.isEmpty()) {
             return Arrays.asList();
         }
         return synsets.stream().map(ss -> synset2se.get(ss)).collect(toList());
     }
 
+    private List<SynSet> toSynSets(int[] synsets) {
+        List<SynSet> list = new ArrayList<>();
+        for (int synset : synsets) {
+            list.add(synset == GermaNetSnapshot.NULL ? null : new SynSet(synset));
+        }
+        return list;
+    }
+
     public List<StringEntity> getRootsStringEntity() {
         return rootsStringEntity;
     }
@@ -519,39 +582,43 @@ public class GermaNet {
     public void save(OutputStream outputStream) {
         JSONObject id2synsetObj = new JSONObject();
         
-        for(Entry<String, SynSet> e : id2synset.entrySet()) {
+        for(int i = 0; i < snapshot.getSynsetCount(); i++) {
             JSONObject synsetObj = new JSONObject();
-            id2synsetObj.put(e.getKey(), synsetObj);
             
-            SynSet synset = e.getValue();
+            SynSet synset = new SynSet(i);
+            id2synsetObj.put(synset.getId(), synsetObj);
             
-            synsetObj.put("id", synset.id);
-            synsetObj.put("category", synset.category);
-            synsetObj.put("class", synset.clazz);
+            synsetObj.put("id", synset.getId());
+            synsetObj.put("category", synset.getCategory());
+            synsetObj.put("class", synset.getClazz());
             
             JSONArray lexUnitArray = new JSONArray();
             synsetObj.put("lexUnits", lexUnitArray);
             
-            for(LexUnit lu : synset.lexUnits) {
+            for(LexUnit lu : synset.getLexUnits()) {
                 
                 JSONObject luObj = new JSONObject();
-                luObj.put("id", lu.id);
-                luObj.put("orthForm", lu.orthForm);
-                luObj.put("paraphrase", lu.paraphrase);
+                luObj.put("id", lu.getId());
+                luObj.put("orthForm", lu.getOrthForm());
+                luObj.put("paraphrase", lu.getParaphrase());
                 
                 lexUnitArray.put(luObj);
             }
             
             JSONArray genArray = new JSONArray();
             synsetObj.put("gen", genArray);
-            for(SynSet gen : synset.generalizations) {
-                genArray.put(gen.id);
+            for(int gen : snapshot.getGeneralizations(i)) {
+                if(gen != GermaNetSnapshot.NULL) {
+                    genArray.put(snapshot.getId(gen));
+                }
             }
             
             JSONArray specArray = new JSONArray();
             synsetObj.put("spec", specArray);
-            for(SynSet spec : synset.specializations) {
-                specArray.put(spec.id);
+            for(int spec : snapshot.getSpecializations(i)) {
+                if(spec != GermaNetSnapshot.NULL) {
+                    specArray.put(snapshot.getId(spec));
+                }
             }
         }
         
@@ -573,51 +640,7 @@ public class GermaNet {
             throw new RuntimeException(ex);
         }
         
-        JSONObject id2synsetObj = new JSONObject(content);
-        
-        for(String key : id2synsetObj.keySet()) {
-            
-            JSONObject synsetObj = id2synsetObj.getJSONObject(key);
-            
-            SynSet synset = new SynSet(synsetObj.getString("id"), synsetObj.getString("category"), synsetObj.getString("class"));
-            
-            JSONArray lexUnitArray = synsetObj.getJSONArray("lexUnits");
-            for(int i = 0; i < lexUnitArray.length(); i++) {
-                JSONObject luObj = lexUnitArray.getJSONObject(i);
-                
-                LexUnit lu = new LexUnit(luObj.getString("id"), luObj.getString("orthForm"));
-                lu.paraphrase = luObj.optString("paraphrase", null);
-                
-                String k = lu.orthForm.toLowerCase();
-                SynSet v = synset;
-                if(word2synsets.containsKey(k)) {
-                    word2synsets.get(k).add(v);
-                } else {
-                    word2synsets.put(k, new ArrayList<>(Arrays.asList(v)));
-                }
-                
-                synset.lexUnits.add(lu);
-            }
-            
-            id2synset.put(key, synset);
-        }
-        
-        for(String key : id2synsetObj.keySet()) {
-            
-            JSONObject synsetObj = id2synsetObj.getJSONObject(key);
-            
-            SynSet synset = id2synset.get(key);
-            
-            JSONArray genArray = synsetObj.getJSONArray("gen");
-            for(int i = 0; i < genArray.length(); i++) {
-                synset.generalizations.add(id2synset.get(genArray.getString(i)));
-            }
-            
-            JSONArray specArray = synsetObj.getJSONArray("spec");
-            for(int i = 0; i < specArray.length(); i++) {
-                synset.specializations.add(id2synset.get(specArray.getString(i)));
-            }
-        }
+        snapshot = GermaNetSnapshot.fromJson(new JSONObject(content));
         
         initTree();
     }
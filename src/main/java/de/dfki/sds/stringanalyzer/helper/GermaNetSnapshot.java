@@ -0,0 +1,430 @@
+package de.dfki.sds.stringanalyzer.helper;
+
+import de.dfki.sds.kecs.util.MappedFiles;
+import de.dfki.sds.kecs.util.MappedFiles.IntList;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Compact int-indexed representation of the synsets of {@link GermaNet} which can be memory-mapped.
+ * Synsets and lex units are numbered, their relations are CSR arrays
+ * (start offsets per synset into one array of targets) and all strings are in one UTF-8 pool.
+ * Words (lower case) are sorted, so a lookup is a binary search.
+ * A synset which is missing in the json is -1 in the relations (null in GermaNet).
+ * The header keeps the {@link MappedFiles#checksum(InputStream)} of the json.gz to detect a stale file.
+ */
+public class GermaNetSnapshot {
+
+    private static final int MAGIC = 0x474e5353;
+    private static final int VERSION = 2;
+
+    //-1 in a string column
+    public static final int NULL = -1;
+
+    private int stringCount;
+    private IntBuffer stringOffsets;
+    private ByteBuffer stringBlob;
+
+    private int synsetCount;
+    private IntBuffer synsetId;
+    private IntBuffer synsetCategory;
+    private IntBuffer synsetClass;
+
+    private IntBuffer lexStart;
+    private IntBuffer lexId;
+    private IntBuffer lexOrthForm;
+    private IntBuffer lexParaphrase;
+
+    private IntBuffer genStart;
+    private IntBuffer gen;
+    private IntBuffer specStart;
+    private IntBuffer spec;
+
+    private int wordCount;
+    private IntBuffer word;
+    private IntBuffer wordStart;
+    private IntBuffer wordSynsets;
+
+    //throws if a section does not fit in the buffer or the sections do not fill it
+    private GermaNetSnapshot(ByteBuffer buffer) throws IOException {
+        Reader r = new Reader(buffer, 16);
+
+        stringCount = r.nextInt();
+        stringOffsets = r.ints(stringCount + 1);
+        stringBlob = r.bytes(stringOffsets.get(stringCount));
+
+        synsetCount = r.nextInt();
+        synsetId = r.ints(synsetCount);
+        synsetCategory = r.ints(synsetCount);
+        synsetClass = r.ints(synsetCount);
+
+        lexStart = r.ints(synsetCount + 1);
+        int lexCount = lexStart.get(synsetCount);
+        lexId = r.ints(lexCount);
+        lexOrthForm = r.ints(lexCount);
+        lexParaphrase = r.ints(lexCount);
+
+        genStart = r.ints(synsetCount + 1);
+        gen = r.ints(genStart.get(synsetCount));
+        specStart = r.ints(synsetCount + 1);
+        spec = r.ints(specStart.get(synsetCount));
+
+        wordCount = r.nextInt();
+        word = r.ints(wordCount);
+        wordStart = r.ints(wordCount + 1);
+        wordSynsets = r.ints(wordStart.get(wordCount));
+        
+        if (r.pos != buffer.limit()) {
+            throw new IOException("snapshot has " + (buffer.limit() - r.pos) + " bytes more than its sections");
+        }
+    }
+
+    /**
+     * Builds the snapshot from the json of {@link GermaNet#save(OutputStream)}.
+     * Synsets are numbered in the iteration order of the json keys, like GermaNet loaded them.
+     * @param id2synsetObj
+     * @return on the heap
+     */
+    public static GermaNetSnapshot fromJson(JSONObject id2synsetObj) {
+        try {
+            return new GermaNetSnapshot(ByteBuffer.wrap(toBytes(id2synsetObj, 0)));
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Maps the snapshot file if it was created from the given source.
+     * @param file
+     * @param source checksum of the source, see {@link MappedFiles#checksum(InputStream)}
+     * @return null if the file is missing, was created from another source or version or is truncated
+     */
+    public static GermaNetSnapshot open(File file, long source) {
+        try {
+            ByteBuffer buffer = MappedFiles.map(file, 16);
+            if (buffer == null || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != source) {
+                return null;
+            }
+            return new GermaNetSnapshot(buffer);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot of the json to file, see {@link MappedFiles#write(File, MappedFiles.Content)}.
+     * @param id2synsetObj
+     * @param source checksum of the source, stored in the header
+     * @param file
+     */
+    public static void convert(JSONObject id2synsetObj, long source, File file) {
+        byte[] bytes = toBytes(id2synsetObj, source);
+        MappedFiles.write(file, out -> out.write(bytes));
+    }
+
+    private static byte[] toBytes(JSONObject id2synsetObj, long source) {
+        Map<String, Integer> string2index = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+
+        List<String> keys = new ArrayList<>(id2synsetObj.keySet());
+        Map<String, Integer> key2synset = new HashMap<>();
+        for (String key : keys) {
+            key2synset.put(key, key2synset.size());
+        }
+
+        int n = keys.size();
+        int[] ids = new int[n];
+        int[] categories = new int[n];
+        int[] classes = new int[n];
+        IntList lexStart = new IntList();
+        IntList lexIds = new IntList();
+        IntList lexOrthForms = new IntList();
+        IntList lexParaphrases = new IntList();
+        IntList genStart = new IntList();
+        IntList gens = new IntList();
+        IntList specStart = new IntList();
+        IntList specs = new IntList();
+        Map<String, IntList> word2synsets = new TreeMap<>();
+
+        for (int s = 0; s < n; s++) {
+            JSONObject synsetObj = id2synsetObj.getJSONObject(keys.get(s));
+
+            ids[s] = intern(synsetObj.getString("id"), string2index, strings);
+            categories[s] = intern(synsetObj.getString("category"), string2index, strings);
+            classes[s] = intern(synsetObj.getString("class"), string2index, strings);
+
+            lexStart.add(lexIds.size());
+            JSONArray lexUnitArray = synsetObj.getJSONArray("lexUnits");
+            for (int i = 0; i < lexUnitArray.length(); i++) {
+                JSONObject luObj = lexUnitArray.getJSONObject(i);
+                String orthForm = luObj.getString("orthForm");
+                lexIds.add(intern(luObj.getString("id"), string2index, strings));
+                lexOrthForms.add(intern(orthForm, string2index, strings));
+                lexParaphrases.add(intern(luObj.optString("paraphrase", null), string2index, strings));
+
+                word2synsets.computeIfAbsent(orthForm.toLowerCase(), w -> new IntList()).add(s);
+            }
+
+            genStart.add(gens.size());
+            JSONArray genArray = synsetObj.getJSONArray("gen");
+            for (int i = 0; i < genArray.length(); i++) {
+                gens.add(key2synset.getOrDefault(genArray.getString(i), NULL));
+            }
+
+            specStart.add(specs.size());
+            JSONArray specArray = synsetObj.getJSONArray("spec");
+            for (int i = 0; i < specArray.length(); i++) {
+                specs.add(key2synset.getOrDefault(specArray.getString(i), NULL));
+            }
+        }
+        lexStart.add(lexIds.size());
+        genStart.add(gens.size());
+        specStart.add(specs.size());
+
+        //words after the other strings, they are interned too
+        int[] words = new int[word2synsets.size()];
+        IntList wordStart = new IntList();
+        IntList wordSynsets = new IntList();
+        int w = 0;
+        for (Map.Entry<String, IntList> e : word2synsets.entrySet()) {
+            words[w++] = intern(e.getKey(), string2index, strings);
+            wordStart.add(wordSynsets.size());
+            for (int i = 0; i < e.getValue().size(); i++) {
+                wordSynsets.add(e.getValue().get(i));
+            }
+        }
+        wordStart.add(wordSynsets.size());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(source);
+
+            byte[][] utf8 = new byte[strings.size()][];
+            out.writeInt(strings.size());
+            int offset = 0;
+            for (int i = 0; i < utf8.length; i++) {
+                utf8[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(offset);
+                offset += utf8[i].length;
+            }
+            out.writeInt(offset);
+            for (byte[] bytes : utf8) {
+                out.write(bytes);
+            }
+            //the int arrays are aligned
+            for (int i = offset; i % 4 != 0; i++) {
+                out.write(0);
+            }
+
+            out.writeInt(n);
+            write(out, ids, n);
+            write(out, categories, n);
+            write(out, classes, n);
+
+            lexStart.write(out);
+            lexIds.write(out);
+            lexOrthForms.write(out);
+            lexParaphrases.write(out);
+
+            genStart.write(out);
+            gens.write(out);
+            specStart.write(out);
+            specs.write(out);
+
+            out.writeInt(words.length);
+            write(out, words, words.length);
+            wordStart.write(out);
+            wordSynsets.write(out);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return baos.toByteArray();
+    }
+
+    private static int intern(String str, Map<String, Integer> string2index, List<String> strings) {
+        if (str == null) {
+            return NULL;
+        }
+        return string2index.computeIfAbsent(str, s -> {
+            strings.add(s);
+            return strings.size() - 1;
+        });
+    }
+
+    private static void write(DataOutputStream out, int[] values, int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    /**
+     * The synsets of a lower case word.
+     * @param lowerCaseWord
+     * @return synset indices, empty if not found
+     */
+    public int[] lookup(String lowerCaseWord) {
+        int low = 0;
+        int high = wordCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = getString(word.get(mid)).compareTo(lowerCaseWord);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return slice(wordStart, wordSynsets, mid);
+            }
+        }
+        return new int[0];
+    }
+
+    public String getString(int index) {
+        if (index == NULL) {
+            return null;
+        }
+        int begin = stringOffsets.get(index);
+        int end = stringOffsets.get(index + 1);
+        byte[] bytes = new byte[end - begin];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = stringBlob.get(begin + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String getId(int synset) {
+        return getString(synsetId.get(synset));
+    }
+
+    public String getCategory(int synset) {
+        return getString(synsetCategory.get(synset));
+    }
+
+    public String getClazz(int synset) {
+        return getString(synsetClass.get(synset));
+    }
+
+    /**
+     * Lex units of a synset are numbered consecutively.
+     * @param synset
+     * @return first lex unit of the synset
+     */
+    public int getLexUnitBegin(int synset) {
+        return lexStart.get(synset);
+    }
+
+    public int getLexUnitEnd(int synset) {
+        return lexStart.get(synset + 1);
+    }
+
+    public String getLexUnitId(int lexUnit) {
+        return getString(lexId.get(lexUnit));
+    }
+
+    public String getOrthForm(int lexUnit) {
+        return getString(lexOrthForm.get(lexUnit));
+    }
+
+    public String getParaphrase(int lexUnit) {
+        return getString(lexParaphrase.get(lexUnit));
+    }
+
+    public int getGeneralizationCount(int synset) {
+        return genStart.get(synset + 1) - genStart.get(synset);
+    }
+
+    /**
+     * @param synset
+     * @param i
+     * @return the i-th generalization or {@link #NULL}
+     */
+    public int getGeneralization(int synset, int i) {
+        return gen.get(genStart.get(synset) + i);
+    }
+
+    public int[] getGeneralizations(int synset) {
+        return slice(genStart, gen, synset);
+    }
+
+    public int[] getSpecializations(int synset) {
+        return slice(specStart, spec, synset);
+    }
+
+    public int getSynsetCount() {
+        return synsetCount;
+    }
+
+    public int getLexUnitCount() {
+        return lexStart.get(synsetCount);
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    private static int[] slice(IntBuffer start, IntBuffer values, int row) {
+        int begin = start.get(row);
+        int[] result = new int[start.get(row + 1) - begin];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(begin + i);
+        }
+        return result;
+    }
+
+    //reads the sections one after the other, a section beyond the end is an IOException
+    private static class Reader {
+
+        private ByteBuffer buffer;
+        private int pos;
+
+        private Reader(ByteBuffer buffer, int pos) {
+            this.buffer = buffer;
+            this.pos = pos;
+        }
+
+        private int nextInt() throws IOException {
+            check(4);
+            int value = buffer.getInt(pos);
+            pos += 4;
+            return value;
+        }
+
+        private IntBuffer ints(int count) throws IOException {
+            if (count < 0 || count > (buffer.limit() - pos) / 4) {
+                throw new IOException("snapshot section of " + count + " ints does not fit");
+            }
+            return bytes(count * 4).asIntBuffer();
+        }
+
+        private void check(int length) throws IOException {
+            if (length < 0 || length > buffer.limit() - pos) {
+                throw new IOException("snapshot section of " + length + " bytes does not fit");
+            }
+        }
+
+        private ByteBuffer bytes(int length) throws IOException {
+            check(length);
+            ByteBuffer slice = MappedFiles.slice(buffer, pos, length);
+            //the int arrays are aligned
+            pos += (length + 3) & ~3;
+            return slice;
+        }
+    }
+
+}
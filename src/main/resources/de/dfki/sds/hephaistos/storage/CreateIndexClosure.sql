@@ -0,0 +1,7 @@
+
+-- for the ancestors of a node
+CREATE INDEX IF NOT EXISTS "${tablename}_Closure_descendant" ON "${tablename}_Closure" (
+	"descendant",
+	"depth",
+	"ancestor"
+);
@@ -0,0 +1,7 @@
+
+-- for Children.sql and the recursive queries which look up by parent
+CREATE INDEX IF NOT EXISTS "${tablename}_parent_type_sort" ON "${tablename}" (
+	"parent",
+	"type",
+	"sort"
+);
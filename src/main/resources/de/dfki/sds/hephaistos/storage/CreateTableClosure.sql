@@ -0,0 +1,8 @@
+
+-- optional closure table: one row for every ancestor of a node (and the node itself with depth 0)
+CREATE TABLE IF NOT EXISTS "${tablename}_Closure" (
+	"ancestor" INTEGER NOT NULL,
+	"descendant" INTEGER NOT NULL,
+	"depth" INTEGER NOT NULL,
+	PRIMARY KEY ("ancestor", "depth", "descendant")
+) WITHOUT ROWID;
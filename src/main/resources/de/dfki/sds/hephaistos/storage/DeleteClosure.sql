@@ -0,0 +1,9 @@
+
+-- removes the closure rows of the node and its descendants (root stays)
+DELETE 
+FROM "${tablename}_Closure"
+WHERE descendant != 1 AND descendant IN (
+  SELECT descendant
+  FROM "${tablename}_Closure"
+  WHERE ancestor = ?
+);
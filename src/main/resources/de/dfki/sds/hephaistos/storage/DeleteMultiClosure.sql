@@ -0,0 +1,9 @@
+
+-- like DeleteMulti.sql but with the closure table
+DELETE 
+FROM "${tablename}"
+WHERE id != 1 AND id IN (
+  SELECT descendant
+  FROM "${tablename}_Closure"
+  WHERE ancestor = ?
+);
@@ -0,0 +1 @@
+DROP TABLE IF EXISTS "${tablename}_Closure";
@@ -0,0 +1,8 @@
+
+-- the ancestors of the parent (which has to be inserted before) and the node itself
+INSERT OR IGNORE INTO "${tablename}_Closure"
+SELECT ancestor, ?, depth + 1
+FROM "${tablename}_Closure"
+WHERE descendant = ?
+UNION ALL
+SELECT ?, ?, 0;
@@ -0,0 +1,7 @@
+
+-- like Parents.sql but with the closure table (from parent to root)
+SELECT "${tablename}".*
+FROM "${tablename}_Closure"
+JOIN "${tablename}" ON "${tablename}".id = "${tablename}_Closure".ancestor
+WHERE "${tablename}_Closure".descendant = ? AND "${tablename}_Closure".depth > 0
+ORDER BY "${tablename}_Closure".depth;
@@ -0,0 +1,17 @@
+
+WITH RECURSIVE temp (ancestor, descendant, depth) AS
+(
+  -- start
+  SELECT id, id, 0
+  FROM "${tablename}"
+
+  UNION ALL
+
+  -- recursive
+  SELECT temp.ancestor, "${tablename}".id, temp.depth + 1
+  FROM temp
+  JOIN "${tablename}" ON "${tablename}".parent = temp.descendant -- get children
+)
+INSERT OR IGNORE INTO "${tablename}_Closure"
+SELECT ancestor, descendant, depth
+FROM temp;
@@ -0,0 +1,7 @@
+
+-- like SelectTree.sql but with the closure table (parents before children)
+SELECT "${tablename}".*
+FROM "${tablename}_Closure"
+JOIN "${tablename}" ON "${tablename}".id = "${tablename}_Closure".descendant
+WHERE "${tablename}_Closure".ancestor = ? AND "${tablename}".id != 1
+ORDER BY "${tablename}_Closure".depth;
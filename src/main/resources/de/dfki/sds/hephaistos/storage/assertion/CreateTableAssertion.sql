@@ -1,22 +1,21 @@
 
 CREATE TABLE IF NOT EXISTS "${tablename}" (
-	"s" TEXT,
-	"p" TEXT,
-	"o" TEXT,
-    "phase" TEXT,
+	"s" INTEGER, -- term id
+	"p" INTEGER, -- term id
+	"o" INTEGER, -- term id
+    "phase" INTEGER, -- Phase ordinal
 
-    "ai_intelligence" TEXT,
+    "ai_intelligence" INTEGER, -- Intelligence ordinal
     "ai_name" TEXT,
-    "ai_rating" TEXT,
+    "ai_rating" INTEGER, -- Rating ordinal
     "ai_confidence" REAL,
     "ai_when" INTEGER,
 
-    "ni_intelligence" TEXT,
+    "ni_intelligence" INTEGER, -- Intelligence ordinal
     "ni_name" TEXT,
-    "ni_rating" TEXT,
+    "ni_rating" INTEGER, -- Rating ordinal
     "ni_confidence" REAL,
     "ni_when" INTEGER,
 
     PRIMARY KEY(s, p, o)
 );
-
@@ -0,0 +1,6 @@
+
+CREATE TEMP TABLE IF NOT EXISTS "${tablename}_Staging" (
+	"s" INTEGER,
+	"p" INTEGER,
+	"o" INTEGER
+);
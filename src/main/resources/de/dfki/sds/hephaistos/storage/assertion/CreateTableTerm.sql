@@ -0,0 +1,5 @@
+
+CREATE TABLE IF NOT EXISTS "${tablename}_Term" (
+	"id" INTEGER PRIMARY KEY,
+	"term" TEXT NOT NULL -- N-Triples form of the rdf node
+);
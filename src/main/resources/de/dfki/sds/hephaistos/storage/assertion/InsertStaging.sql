@@ -0,0 +1,6 @@
+
+INSERT INTO "${tablename}_Staging" VALUES (
+	?, -- "s" INTEGER,
+	?, -- "p" INTEGER,
+	?  -- "o" INTEGER
+);
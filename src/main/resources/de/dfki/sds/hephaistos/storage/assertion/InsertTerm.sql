@@ -0,0 +1,5 @@
+
+INSERT INTO "${tablename}_Term" VALUES (
+	?, -- "id" INTEGER,
+	?  -- "term" TEXT
+);
@@ -0,0 +1,3 @@
+
+SELECT a.* FROM "${tablename}" a
+JOIN "${tablename}_Staging" t ON a.s = t.s AND a.p = t.p AND a.o = t.o ;
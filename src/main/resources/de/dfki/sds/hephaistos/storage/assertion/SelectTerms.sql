@@ -0,0 +1,2 @@
+
+SELECT id, term FROM "${tablename}_Term";
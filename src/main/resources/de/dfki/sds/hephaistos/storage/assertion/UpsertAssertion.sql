@@ -1,19 +1,19 @@
 
 INSERT INTO "${tablename}" VALUES (
-	?, -- "s" TEXT,
-	?, -- "p" TEXT,
-	?, -- "o" TEXT,
-    ?, -- "phase" TEXT,
+	?, -- "s" INTEGER,
+	?, -- "p" INTEGER,
+	?, -- "o" INTEGER,
+    ?, -- "phase" INTEGER,
 
-    ?, -- "ai_intelligence" TEXT,
+    ?, -- "ai_intelligence" INTEGER,
     ?, -- "ai_name" TEXT,
-    ?, -- "ai_rating" TEXT,
+    ?, -- "ai_rating" INTEGER,
     ?, -- "ai_confidence" REAL,
     ?, -- "ai_when" INTEGER,
 
-    ?, -- "ni_intelligence" TEXT,
+    ?, -- "ni_intelligence" INTEGER,
     ?, -- "ni_name" TEXT,
-    ?, -- "ni_rating" TEXT,
+    ?, -- "ni_rating" INTEGER,
     ?, -- "ni_confidence" REAL,
     ?  -- "ni_when" INTEGER,
 )
@@ -0,0 +1,6 @@
+-- moves uri and basename out of the json meta into their own columns (${prefix} is branch_ or leaf_)
+UPDATE "${tablename}"
+SET "${prefix}uri" = json_extract("${prefix}meta", '$.uri'),
+    "${prefix}basename" = json_extract("${prefix}meta", '$.basename'),
+    "${prefix}meta" = NULLIF(json_remove("${prefix}meta", '$.uri', '$.basename'), '{}')
+WHERE "${prefix}meta" IS NOT NULL AND json_valid("${prefix}meta");